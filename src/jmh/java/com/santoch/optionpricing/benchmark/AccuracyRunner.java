@@ -0,0 +1,56 @@
+package com.santoch.optionpricing.benchmark;
+
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.vanilla.BaroneAdesiWhaley;
+import com.santoch.optionpricing.vanilla.BinomialTree;
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+
+// Price errors of the American approximations against a 2001 step Leisen-Reimer tree with Richardson
+// extrapolation, on the moneyness x expiry x volatility grid of ModelBenchmark, which has the matching timings:
+//     mvn -Pjmh test-compile exec:exec -Djmh.main=com.santoch.optionpricing.benchmark.AccuracyRunner
+public class AccuracyRunner {
+    private static final double UNDERLYING_PRICE = 100d;
+    private static final double INTEREST_RATE = 0.03d;
+    private static final double DIVIDEND_YIELD = 0.02d;
+    private static final double[] MONEYNESS = {0.5d, 0.9d, 1.0d, 1.1d, 2.0d};
+    private static final int[] EXPIRY_DAYS = {1, 30, 365};
+    private static final double[] VOLATILITIES = {0.1d, 0.3d, 1.0d};
+
+    public static void main(String[] args) {
+        final BinomialTree reference = new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 2001, true);
+        final IOptionModel[] models = {new BjerksundStensland(), new BaroneAdesiWhaley()};
+        final String[] names = {"BjerksundStensland", "BaroneAdesiWhaley"};
+        final double[] maxError = new double[models.length];
+        final double[] sumError = new double[models.length];
+        int count = 0;
+        System.out.printf("%-4s %9s %6s %10s %12s %12s %12s%n", "type", "moneyness", "days", "volatility",
+                "reference", names[0], names[1]);
+        for (OptionType type : OptionType.values()) {
+            for (double moneyness : MONEYNESS) {
+                for (int days : EXPIRY_DAYS) {
+                    for (double volatility : VOLATILITIES) {
+                        final double strike = UNDERLYING_PRICE * moneyness;
+                        final double timeRemaining = days / 365d;
+                        final double expected = reference.priceOption(type, UNDERLYING_PRICE, strike, timeRemaining,
+                                volatility, INTEREST_RATE, DIVIDEND_YIELD);
+                        final double[] errors = new double[models.length];
+                        for (int m = 0; m < models.length; m++) {
+                            errors[m] = models[m].priceOption(type, UNDERLYING_PRICE, strike, timeRemaining,
+                                    volatility, INTEREST_RATE, DIVIDEND_YIELD) - expected;
+                            maxError[m] = Math.max(maxError[m], Math.abs(errors[m]));
+                            sumError[m] += Math.abs(errors[m]);
+                        }
+                        count++;
+                        System.out.printf("%-4s %9.2f %6d %10.2f %12.6f %12.6f %12.6f%n", type.getCode(), moneyness,
+                                days, volatility, expected, errors[0], errors[1]);
+                    }
+                }
+            }
+        }
+        for (int m = 0; m < models.length; m++) {
+            System.out.printf("%-20s max |error| %.6f  mean |error| %.6f%n", names[m], maxError[m],
+                    sumError[m] / count);
+        }
+    }
+}
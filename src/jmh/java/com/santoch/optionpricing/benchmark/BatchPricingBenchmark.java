@@ -0,0 +1,89 @@
+package com.santoch.optionpricing.benchmark;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Pricing a 10k contract chain (calls and puts over strikes and expiries of one underlying, grouped by expiry)
+// through BlackScholes.priceOptions with the Vector API kernel, through the same call in a fork where
+// -Doptionpricing.vector=false leaves the scalar loop, and through a priceOption loop. Scores are per contract,
+// so 1e9 / score is contracts per second.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class BatchPricingBenchmark {
+    private static final int CHAIN = 10_000;
+    private static final int EXPIRIES = 10;
+    private static final double SPOT = 214.76d;
+    private static final double INTEREST_RATE = 0.0135d;
+    private static final double DIVIDEND_YIELD = 0.01d;
+
+    private final BlackScholes model = new BlackScholes();
+    private final boolean[] isCall = new boolean[CHAIN];
+    private final OptionType[] types = new OptionType[CHAIN];
+    private final double[] underlyingPrices = new double[CHAIN];
+    private final double[] strikes = new double[CHAIN];
+    private final double[] times = new double[CHAIN];
+    private final double[] volatilities = new double[CHAIN];
+    private final double[] interestRates = new double[CHAIN];
+    private final double[] dividendYields = new double[CHAIN];
+    private final double[] prices = new double[CHAIN];
+
+    @Setup
+    public void setup() {
+        final int perExpiry = CHAIN / EXPIRIES;
+        for (int i = 0; i < CHAIN; i++) {
+            final int row = i % perExpiry;
+            isCall[i] = (row & 1) == 0;
+            types[i] = isCall[i] ? OptionType.CALL : OptionType.PUT;
+            underlyingPrices[i] = SPOT;
+            strikes[i] = Math.round(SPOT * (0.7d + 0.6d * (row >> 1) / (perExpiry >> 1)));
+            times[i] = (1 + (i / perExpiry) * 30) / 365d;
+            volatilities[i] = 0.2d + 0.1d * Math.abs(strikes[i] / SPOT - 1d);
+            interestRates[i] = INTEREST_RATE;
+            dividendYields[i] = DIVIDEND_YIELD;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHAIN)
+    public double[] vectorKernel() {
+        model.priceOptions(isCall, underlyingPrices, strikes, times, volatilities, interestRates, dividendYields,
+                prices, 0, CHAIN);
+        return prices;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHAIN)
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Doptionpricing.vector=false"})
+    public double[] scalarFallback() {
+        model.priceOptions(isCall, underlyingPrices, strikes, times, volatilities, interestRates, dividendYields,
+                prices, 0, CHAIN);
+        return prices;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHAIN)
+    public double[] priceOptionLoop() {
+        for (int i = 0; i < CHAIN; i++) {
+            prices[i] = model.priceOption(types[i], underlyingPrices[i], strikes[i], times[i], volatilities[i],
+                    interestRates[i], dividendYields[i]);
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,81 @@
+package com.santoch.optionpricing.benchmark;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import com.santoch.optionpricing.vanilla.IncrementalBlackScholes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Repricing a chain of one underlying on a spot tick, from scratch with BlackScholes.priceOption against
+// IncrementalBlackScholes contracts that keep everything but log(S/K) and the CDFs.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class IncrementalBlackScholesBenchmark {
+    private static final int CHAIN = 1024;
+    private static final double SPOT = 214.76d;
+    private static final double INTEREST_RATE = 0.0135d;
+    private static final double DIVIDEND_YIELD = 0.01d;
+
+    private final BlackScholes model = new BlackScholes();
+    private final OptionType[] types = new OptionType[CHAIN];
+    private final double[] strikes = new double[CHAIN];
+    private final double[] times = new double[CHAIN];
+    private final double[] volatilities = new double[CHAIN];
+    private final IncrementalBlackScholes[] contracts = new IncrementalBlackScholes[CHAIN];
+    private int tick;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < CHAIN; i++) {
+            types[i] = (i & 1) == 0 ? OptionType.CALL : OptionType.PUT;
+            strikes[i] = Math.round(SPOT * (0.8d + 0.4d * (i >> 1) / (CHAIN >> 1)));
+            times[i] = (1 + (i % 8) * 30) / 365d;
+            volatilities[i] = 0.2d + 0.1d * Math.abs(strikes[i] / SPOT - 1d);
+            contracts[i] = new IncrementalBlackScholes(types[i], SPOT, strikes[i], times[i], volatilities[i],
+                    INTEREST_RATE, DIVIDEND_YIELD);
+        }
+    }
+
+    private double nextSpot() {
+        return SPOT + 0.01d * (++tick & 15);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHAIN)
+    public double spotTickFull() {
+        final double spot = nextSpot();
+        double sum = 0d;
+        for (int i = 0; i < CHAIN; i++) {
+            sum += model.priceOption(types[i], spot, strikes[i], times[i], volatilities[i], INTEREST_RATE,
+                    DIVIDEND_YIELD);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHAIN)
+    public double spotTickIncremental() {
+        final double spot = nextSpot();
+        double sum = 0d;
+        for (IncrementalBlackScholes contract : contracts) {
+            contract.setUnderlyingPrice(spot);
+            sum += contract.price();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,147 @@
+package com.santoch.optionpricing.benchmark;
+
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.vanilla.BaroneAdesiWhaley;
+import com.santoch.optionpricing.vanilla.BinomialTree;
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Every IOptionModel hot path over a moneyness x expiry x volatility grid. moneyness is strike / underlying,
+// so 0.5 is a deep in the money call (deep out of the money put) and 2.0 the reverse, one day to expiry is the
+// near-expiry case. Narrow the grid from the command line, e.g. -p model=BjerksundStensland -p expiryDays=1.
+// -p model=BinomialTree runs the 500 step tree, left out of the default grid for its cost. BaroneAdesiWhaley
+// prices from its critical price cache here (every call has the same key), -p model=BaroneAdesiWhaleyUncached
+// solves for the critical price every time. AccuracyRunner prints the price errors of the American models on
+// the same grid. priceOptionType and impliedVolatilityType call the OptionType overloads, priceOption and
+// impliedVolatility the String adapters, e.g. ".*ModelBenchmark.impliedVolatility.*" compares the two.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class ModelBenchmark {
+    @Param({"BlackScholes", "BjerksundStensland", "BaroneAdesiWhaley"})
+    public String model;
+
+    @Param({"C", "P"})
+    public String type;
+
+    @Param({"0.5", "0.9", "1.0", "1.1", "2.0"})
+    public double moneyness;
+
+    @Param({"1", "30", "365"})
+    public int expiryDays;
+
+    @Param({"0.1", "0.3", "1.0"})
+    public double volatility;
+
+    private static final double UNDERLYING_PRICE = 100d;
+    private static final double INTEREST_RATE = 0.03d;
+    private static final double DIVIDEND_YIELD = 0.02d;
+
+    private IOptionModel optionModel;
+    private OptionType optionType;
+    private double strikePrice;
+    private double timeRemaining;
+    private double price;
+    private double bid;
+    private double ask;
+    private ZonedDateTime updateTime;
+
+    @Setup
+    public void setup() {
+        optionModel = switch (model) {
+            case "BlackScholes" -> new BlackScholes();
+            case "BinomialTree" -> new BinomialTree();
+            case "BaroneAdesiWhaley" -> new BaroneAdesiWhaley();
+            case "BaroneAdesiWhaleyUncached" -> new BaroneAdesiWhaley(0);
+            default -> new BjerksundStensland();
+        };
+        optionType = OptionType.fromCode(type);
+        strikePrice = UNDERLYING_PRICE * moneyness;
+        timeRemaining = expiryDays / 365d;
+        price = optionModel.priceOption(type, UNDERLYING_PRICE, strikePrice, timeRemaining, volatility,
+                INTEREST_RATE, DIVIDEND_YIELD);
+        bid = price * 0.98d;
+        ask = price * 1.02d;
+        updateTime = ZonedDateTime.now();
+    }
+
+    @Benchmark
+    public double priceOption() {
+        return optionModel.priceOption(type, UNDERLYING_PRICE, strikePrice, timeRemaining, volatility,
+                INTEREST_RATE, DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public double priceOptionType() {
+        return optionModel.priceOption(optionType, UNDERLYING_PRICE, strikePrice, timeRemaining, volatility,
+                INTEREST_RATE, DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public double delta() {
+        return optionModel.delta(type, UNDERLYING_PRICE, strikePrice, timeRemaining, volatility, INTEREST_RATE,
+                DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public double gamma() {
+        return optionModel.gamma(UNDERLYING_PRICE, strikePrice, timeRemaining, volatility, INTEREST_RATE,
+                DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public double vega() {
+        return optionModel.vega(type, UNDERLYING_PRICE, strikePrice, timeRemaining, volatility, INTEREST_RATE,
+                DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public double theta() {
+        return optionModel.theta(type, UNDERLYING_PRICE, strikePrice, timeRemaining, volatility, INTEREST_RATE,
+                DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public double rho() {
+        return optionModel.rho(type, UNDERLYING_PRICE, strikePrice, timeRemaining, volatility, INTEREST_RATE,
+                DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public double impliedVolatility() {
+        return optionModel.impliedVolatility(type, price, UNDERLYING_PRICE, strikePrice, timeRemaining, 0.5d,
+                INTEREST_RATE, DIVIDEND_YIELD);
+    }
+
+    // the OptionType overload, next to the String adapter above
+    @Benchmark
+    public double impliedVolatilityType() {
+        return optionModel.impliedVolatility(optionType, price, UNDERLYING_PRICE, strikePrice, timeRemaining, 0.5d,
+                INTEREST_RATE, DIVIDEND_YIELD);
+    }
+
+    @Benchmark
+    public IGreeks greeks() {
+        return optionModel.greeks(updateTime, type, bid, ask, price, UNDERLYING_PRICE, strikePrice, timeRemaining,
+                volatility, INTEREST_RATE, DIVIDEND_YIELD);
+    }
+}
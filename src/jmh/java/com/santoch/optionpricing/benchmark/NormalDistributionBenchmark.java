@@ -0,0 +1,65 @@
+package com.santoch.optionpricing.benchmark;
+
+import com.santoch.optionpricing.util.NormalDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// cdf and inverseCdf over a fixed batch of inputs, so branch prediction sees a realistic mix of the
+// central, middle and tail regions. spread scales a standard normal sample, 6 puts many points in the tails.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class NormalDistributionBenchmark {
+    private static final int BATCH = 1024;
+
+    @Param({"0.5", "1.5", "6"})
+    public double spread;
+
+    private final double[] x = new double[BATCH];
+    private final double[] p = new double[BATCH];
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < BATCH; i++) {
+            x[i] = random.nextGaussian() * spread;
+            p[i] = NormalDistribution.StandardNormal.cdf(x[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double cdf() {
+        double sum = 0d;
+        for (int i = 0; i < BATCH; i++) {
+            sum += NormalDistribution.StandardNormal.cdf(x[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double inverseCdf() {
+        double sum = 0d;
+        for (int i = 0; i < BATCH; i++) {
+            sum += NormalDistribution.StandardNormal.inverseCdf(p[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,34 @@
+package com.santoch.optionpricing.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the selected benchmarks (by default ModelBenchmark.greeks and impliedVolatility) at 1, 2, 4 .. N threads
+// with the gc profiler (unless other profilers are given), N being the number of available processors.
+// Any JMH command line options are passed through, e.g. -p model=BjerksundStensland -p moneyness=1.0.
+public class ScalingBenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        final int maxThreads = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            final OptionsBuilder options = new OptionsBuilder();
+            options.parent(commandLine);
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include(ModelBenchmark.class.getSimpleName() + "\\.(greeks|impliedVolatility)$");
+            }
+            if (commandLine.getProfilers().isEmpty()) {
+                options.addProfiler(GCProfiler.class);
+            }
+            options.threads(threads);
+            System.out.println("# Threads: " + threads + " of " + maxThreads);
+            new Runner(options.build()).run();
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+}
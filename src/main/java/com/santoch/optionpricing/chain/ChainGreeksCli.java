@@ -0,0 +1,211 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.GreeksBlock;
+import com.santoch.optionpricing.vanilla.BaroneAdesiWhaley;
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// End of day greeks over a quote file of any size (see QuoteFormat for the layouts):
+//
+//     java -cp javapriceoptions.jar com.santoch.optionpricing.chain.ChainGreeksCli [options] quotes results
+//         --format csv|binary     quote and result format, by default binary unless quotes ends in .csv
+//         --model BlackScholes|BjerksundStensland|BaroneAdesiWhaley    default BlackScholes
+//         --now epochMillis       valuation time the expiries count from, default the current time
+//         --threads n             default the common pool
+//         --batch rows            default 65536
+//
+// The quotes are read through QuoteFileReader and parsed in batches into primitive columns, the implied
+// volatilities and greeks of a batch are computed on a ForkJoinPool in chunks of CHUNK_ROWS and the batch is
+// streamed out by GreeksWriter before the next one is read. Memory is the batch, the writer buffer and the
+// reader's window, whatever the size of the file.
+public class ChainGreeksCli {
+    static final int DEFAULT_BATCH_ROWS = 1 << 16;
+    private static final int CHUNK_ROWS = 256;
+    private static final double DEFAULT_VOLATILITY = 0.5d;
+    private static final double MILLIS_PER_YEAR = 365.0d * 24.0d * 60.0d * 60.0d * 1000.0d;
+
+    private final IOptionModel model;
+    private final QuoteFormat format;
+    private final long nowEpochMillis;
+    private final ForkJoinPool pool;
+    private final int batchRows;
+    private long windowSize = QuoteFileReader.DEFAULT_WINDOW_SIZE;
+
+    public ChainGreeksCli(IOptionModel model, QuoteFormat format, long nowEpochMillis) {
+        this(model, format, nowEpochMillis, ForkJoinPool.commonPool(), DEFAULT_BATCH_ROWS);
+    }
+
+    public ChainGreeksCli(IOptionModel model, QuoteFormat format, long nowEpochMillis, ForkJoinPool pool,
+                          int batchRows) {
+        if (batchRows <= 0) {
+            throw new InvalidParameterException("Invalid batch rows: " + batchRows);
+        }
+        this.model = model;
+        this.format = format;
+        this.nowEpochMillis = nowEpochMillis;
+        this.pool = pool;
+        this.batchRows = batchRows;
+    }
+
+    public IOptionModel getModel() {
+        return model;
+    }
+
+    public QuoteFormat getFormat() {
+        return format;
+    }
+
+    public long getNowEpochMillis() {
+        return nowEpochMillis;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getBatchRows() {
+        return batchRows;
+    }
+
+    // smaller windows exercise rows crossing window ends in tests
+    void setWindowSize(long windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    // Writes the results of every quote to results, in quote order, and returns the number of quotes.
+    public long run(Path quotes, Path results) throws IOException {
+        final QuoteBatch batch = new QuoteBatch(batchRows);
+        long rows = 0;
+        try (QuoteFileReader reader = new QuoteFileReader(quotes, format, windowSize);
+             GreeksWriter writer = new GreeksWriter(results, format)) {
+            while (reader.read(batch) > 0) {
+                pool.invoke(new ChunkTask(this, batch, 0, batch.size));
+                writer.write(batch, reader.buffer());
+                rows += batch.size;
+            }
+        }
+        return rows;
+    }
+
+    private void computeRange(QuoteBatch batch, int from, int to) {
+        final GreeksBlock.Row row = batch.greeks.newRow();
+        final long updateTimeNanos = nowEpochMillis * 1_000_000L;
+        for (int i = from; i < to; i++) {
+            row.moveTo(i);
+            try {
+                Utils.greeks(model, row, updateTimeNanos, batch.type[i], batch.bid[i], batch.ask[i], batch.smv[i],
+                        batch.underlyingPrice[i], batch.strike[i], (batch.expiry[i] - nowEpochMillis)
+                                                                   / MILLIS_PER_YEAR, DEFAULT_VOLATILITY,
+                        batch.interestRate[i], batch.dividendYield[i], true);
+            } catch (RuntimeException e) {
+                // one bad quote must not stop the file, its row is written as NaN
+                row.setSmvVol(Double.NaN);
+                row.setBidIv(Double.NaN);
+                row.setAskIv(Double.NaN);
+                row.setMidIv(Double.NaN);
+                row.setDelta(Double.NaN);
+                row.setGamma(Double.NaN);
+                row.setTheta(Double.NaN);
+                row.setVega(Double.NaN);
+                row.setRho(Double.NaN);
+            }
+        }
+    }
+
+    // never serialized, ForkJoinTask is Serializable only for exception reporting
+    @SuppressWarnings("serial")
+    private static final class ChunkTask extends RecursiveAction {
+        private final ChainGreeksCli cli;
+        private final QuoteBatch batch;
+        private final int from;
+        private final int to;
+
+        ChunkTask(ChainGreeksCli cli, QuoteBatch batch, int from, int to) {
+            this.cli = cli;
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_ROWS) {
+                cli.computeRange(batch, from, to);
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(cli, batch, from, mid), new ChunkTask(cli, batch, mid, to));
+        }
+    }
+
+    static IOptionModel model(String name) {
+        return switch (name) {
+            case "BlackScholes" -> new BlackScholes();
+            // the bracketed search bounds the cost of every implied volatility
+            case "BjerksundStensland" -> new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED);
+            case "BaroneAdesiWhaley" -> new BaroneAdesiWhaley();
+            default -> throw new InvalidParameterException("Unknown model: " + name);
+        };
+    }
+
+    public static void main(String[] args) {
+        String formatName = null, modelName = "BlackScholes";
+        long now = System.currentTimeMillis();
+        int threads = 0, batchRows = DEFAULT_BATCH_ROWS;
+        Path quotes = null, results = null;
+        try {
+            int i = 0;
+            for (; i < args.length && args[i].startsWith("--"); i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new InvalidParameterException("Missing value for " + args[i]);
+                }
+                switch (args[i]) {
+                    case "--format" -> formatName = args[i + 1];
+                    case "--model" -> modelName = args[i + 1];
+                    case "--now" -> now = Long.parseLong(args[i + 1]);
+                    case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                    case "--batch" -> batchRows = Integer.parseInt(args[i + 1]);
+                    default -> throw new InvalidParameterException("Unknown option: " + args[i]);
+                }
+            }
+            if (args.length - i != 2) {
+                throw new InvalidParameterException("Expected a quote file and a result file");
+            }
+            quotes = Path.of(args[i]);
+            results = Path.of(args[i + 1]);
+            if (formatName == null) {
+                formatName = args[i].endsWith(".csv") ? "csv" : "binary";
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: ChainGreeksCli [--format csv|binary] [--model BlackScholes|"
+                               + "BjerksundStensland|BaroneAdesiWhaley] [--now epochMillis] [--threads n] "
+                               + "[--batch rows] quotes results");
+            System.exit(2);
+        }
+
+        final ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        try {
+            final ChainGreeksCli cli = new ChainGreeksCli(model(modelName), QuoteFormat.valueOf(
+                    formatName.toUpperCase()), now, pool, batchRows);
+            final long start = System.nanoTime();
+            final long rows = cli.run(quotes, results);
+            System.err.printf("%d quotes in %.3f s%n", rows, (System.nanoTime() - start) / 1e9d);
+        } catch (IOException | RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+    }
+}
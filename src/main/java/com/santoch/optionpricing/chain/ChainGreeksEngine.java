@@ -0,0 +1,162 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.GreeksBlock;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Greeks and the four implied volatilities (smv, bid, ask, mid) of a whole OptionChainStore, computed on a
+// ForkJoinPool. The models are stateless and every contract is written to its own row of a GreeksBlock,
+// so the result does not depend on how the work is split or which thread runs it.
+//
+// Contracts do not cost the same: an American model near the money spends most of its time in the implied
+// volatility searches, far from the money it is close to the European cost. Every contract gets an estimated
+// cost and ranges are split at the cost midpoint rather than the row midpoint, down to leaves of about
+// 1 / (LEAVES_PER_THREAD * parallelism) of the total, which leaves enough small tasks for work-stealing.
+public class ChainGreeksEngine {
+    private static final int LEAVES_PER_THREAD = 8;
+    private static final double AMERICAN_AT_THE_MONEY_COST = 4d;
+    private static final double DEFAULT_VOLATILITY = 0.5d;
+
+    private final ForkJoinPool pool;
+
+    public ChainGreeksEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ChainGreeksEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    // Fills rows [0, chain.size()) of block. underlyingPrices and dividendYields are indexed by underlying id,
+    // the last implied volatility of each contract (DEFAULT_VOLATILITY when unset) seeds its searches.
+    public void compute(IOptionModel model, OptionChainStore chain, double[] underlyingPrices,
+                        double[] dividendYields, double interestRate, long nowEpochMillis, GreeksBlock block) {
+        final int size = chain.size();
+        if (block.size() < size) {
+            throw new InvalidParameterException("GreeksBlock of " + block.size() + " rows for " + size
+                                                + " contracts");
+        }
+        if (size == 0) {
+            return;
+        }
+        final double[] cumulativeCost = cumulativeCost(model, chain, underlyingPrices, nowEpochMillis);
+        final double leafCost = cumulativeCost[size] / (LEAVES_PER_THREAD * pool.getParallelism());
+        final Job job = new Job(model, chain, underlyingPrices, dividendYields, interestRate, nowEpochMillis,
+                block, cumulativeCost, leafCost);
+        pool.invoke(new ChainTask(job, 0, size));
+    }
+
+    // cumulativeCost[i] is the estimated cost of rows [0, i)
+    private static double[] cumulativeCost(IOptionModel model, OptionChainStore chain, double[] underlyingPrices,
+                                           long nowEpochMillis) {
+        final int size = chain.size();
+        final double[] cumulative = new double[size + 1];
+        final boolean european = model instanceof BlackScholes;
+        for (int i = 0; i < size; i++) {
+            double cost = 1d;
+            if (!european) {
+                final double timeRemaining = chain.getTimeRemaining(i, nowEpochMillis);
+                final double volatility = initialVolatility(chain, i);
+                if (timeRemaining > 0) {
+                    // standardized distance from the money
+                    final double z = Math.log(underlyingPrices[chain.getUnderlyingId(i)] / chain.getStrike(i))
+                                     / (volatility * Math.sqrt(timeRemaining));
+                    cost += AMERICAN_AT_THE_MONEY_COST * Math.exp(-0.5d * z * z);
+                }
+            }
+            cumulative[i + 1] = cumulative[i] + cost;
+        }
+        return cumulative;
+    }
+
+    private static double initialVolatility(OptionChainStore chain, int index) {
+        final double lastIv = chain.getLastIv(index);
+        return lastIv > 0 ? lastIv : DEFAULT_VOLATILITY;
+    }
+
+    // everything one compute() call shares between its tasks
+    private static final class Job {
+        private final IOptionModel model;
+        private final OptionChainStore chain;
+        private final double[] underlyingPrices;
+        private final double[] dividendYields;
+        private final double interestRate;
+        private final long nowEpochMillis;
+        private final GreeksBlock block;
+        private final double[] cumulativeCost;
+        private final double leafCost;
+
+        Job(IOptionModel model, OptionChainStore chain, double[] underlyingPrices, double[] dividendYields,
+            double interestRate, long nowEpochMillis, GreeksBlock block, double[] cumulativeCost, double leafCost) {
+            this.model = model;
+            this.chain = chain;
+            this.underlyingPrices = underlyingPrices;
+            this.dividendYields = dividendYields;
+            this.interestRate = interestRate;
+            this.nowEpochMillis = nowEpochMillis;
+            this.block = block;
+            this.cumulativeCost = cumulativeCost;
+            this.leafCost = leafCost;
+        }
+
+        void computeRange(int from, int to) {
+            final GreeksBlock.Row row = block.newRow();
+            final long updateTimeNanos = nowEpochMillis * 1_000_000L;
+            for (int i = from; i < to; i++) {
+                final int id = chain.getUnderlyingId(i);
+                Utils.greeks(model, row.moveTo(i), updateTimeNanos, chain.getOptionType(i), chain.getBid(i),
+                        chain.getAsk(i), chain.getSmv(i), underlyingPrices[id], chain.getStrike(i),
+                        chain.getTimeRemaining(i, nowEpochMillis), initialVolatility(chain, i), interestRate,
+                        dividendYields[id], true);
+            }
+        }
+
+        // first row after from where at least half of the cost of [from, to) lies before it
+        int split(int from, int to) {
+            final double half = 0.5d * (cumulativeCost[from] + cumulativeCost[to]);
+            int lo = from + 1, hi = to - 1;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (cumulativeCost[mid] < half) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    // never serialized, ForkJoinTask is Serializable only for exception reporting
+    @SuppressWarnings("serial")
+    private static final class ChainTask extends RecursiveAction {
+        private final Job job;
+        private final int from;
+        private final int to;
+
+        ChainTask(Job job, int from, int to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || job.cumulativeCost[to] - job.cumulativeCost[from] <= job.leafCost) {
+                job.computeRange(from, to);
+                return;
+            }
+            final int mid = job.split(from, to);
+            invokeAll(new ChainTask(job, from, mid), new ChainTask(job, mid, to));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.util.GreeksImpl;
+
+// Greeks published by a QuoteGreeksProcessor, tagged with the contract they belong to.
+public class ContractGreeks extends GreeksImpl {
+    private final String contractId;
+
+    public ContractGreeks(String contractId) {
+        this.contractId = contractId;
+    }
+
+    public String getContractId() {
+        return contractId;
+    }
+}
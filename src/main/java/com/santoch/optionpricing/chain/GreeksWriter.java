@@ -0,0 +1,113 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.util.GreeksBlock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Streams the results of QuoteBatches to a file in a QuoteFormat through one reusable direct buffer.
+// Numbers are formatted into a reused StringBuilder and copied out as ASCII, underlying symbols are copied
+// byte for byte from the window of the quotes.
+final class GreeksWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    // room for one CSV row besides its symbol: four numbers of the quote and nine results
+    private static final int MAX_ROW_SIZE = 14 * 32;
+
+    private final FileChannel channel;
+    private final QuoteFormat format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final StringBuilder text = new StringBuilder(32);
+
+    GreeksWriter(Path path, QuoteFormat format) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.format = format;
+        if (format == QuoteFormat.CSV) {
+            text.append(QuoteFormat.CSV_HEADER).append('\n');
+            putText();
+        }
+    }
+
+    // quotes is the buffer the batch's symbols point into
+    void write(QuoteBatch batch, ByteBuffer quotes) throws IOException {
+        final GreeksBlock greeks = batch.greeks;
+        for (int i = 0; i < batch.size; i++) {
+            if (buffer.remaining() < batch.symbolLength[i] + MAX_ROW_SIZE) {
+                flush();
+            }
+            if (format == QuoteFormat.BINARY) {
+                writeRecord(batch, quotes, greeks, i);
+            } else {
+                writeLine(batch, quotes, greeks, i);
+            }
+        }
+    }
+
+    private void writeRecord(QuoteBatch batch, ByteBuffer quotes, GreeksBlock greeks, int i) {
+        for (int b = 0; b < QuoteFormat.SYMBOL_SIZE; b++) {
+            buffer.put(b < batch.symbolLength[i] ? quotes.get(batch.symbolOffset[i] + b) : 0);
+        }
+        buffer.putLong(batch.expiry[i]);
+        buffer.putDouble(batch.strike[i]);
+        // the type byte and its padding
+        buffer.putLong(batch.type[i].ordinal());
+        buffer.putDouble(greeks.getSmvVol()[i]);
+        buffer.putDouble(greeks.getBidIv()[i]);
+        buffer.putDouble(greeks.getAskIv()[i]);
+        buffer.putDouble(greeks.getMidIv()[i]);
+        buffer.putDouble(greeks.getDelta()[i]);
+        buffer.putDouble(greeks.getGamma()[i]);
+        buffer.putDouble(greeks.getTheta()[i]);
+        buffer.putDouble(greeks.getVega()[i]);
+        buffer.putDouble(greeks.getRho()[i]);
+    }
+
+    private void writeLine(QuoteBatch batch, ByteBuffer quotes, GreeksBlock greeks, int i) {
+        for (int b = 0; b < batch.symbolLength[i]; b++) {
+            buffer.put(quotes.get(batch.symbolOffset[i] + b));
+        }
+        text.setLength(0);
+        text.append(',').append(batch.expiry[i])
+                .append(',').append(batch.strike[i])
+                .append(',').append(batch.type[i].getCode())
+                .append(',').append(greeks.getSmvVol()[i])
+                .append(',').append(greeks.getBidIv()[i])
+                .append(',').append(greeks.getAskIv()[i])
+                .append(',').append(greeks.getMidIv()[i])
+                .append(',').append(greeks.getDelta()[i])
+                .append(',').append(greeks.getGamma()[i])
+                .append(',').append(greeks.getTheta()[i])
+                .append(',').append(greeks.getVega()[i])
+                .append(',').append(greeks.getRho()[i])
+                .append('\n');
+        putText();
+    }
+
+    private void putText() {
+        for (int c = 0; c < text.length(); c++) {
+            buffer.put((byte) text.charAt(c));
+        }
+        text.setLength(0);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IBatchOptionModel;
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Off-heap store for a large option chain, one fixed-width record per contract in a single direct buffer,
+// so millions of contracts cost neither heap objects nor GC work.
+// Contracts are looked up by (underlying, expiry, strike, type) through a hash index whose chain links live
+// in the records themselves; underlyings are interned to small int ids.
+//
+// record layout (64 bytes, little endian):
+//   0 int underlying id | 4 byte type (0 = C, 1 = P) | 8 long expiry (epoch millis) | 16 double strike
+//  24 double bid | 32 double ask | 40 double smv | 48 double last implied volatility | 56 int next in bucket
+public class OptionChainStore {
+    public static final int RECORD_SIZE = 64;
+    private static final int UNDERLYING = 0;
+    private static final int TYPE = 4;
+    private static final int EXPIRY = 8;
+    private static final int STRIKE = 16;
+    private static final int BID = 24;
+    private static final int ASK = 32;
+    private static final int SMV = 40;
+    private static final int LAST_IV = 48;
+    private static final int NEXT = 56;
+    private static final byte CALL = 0;
+    private static final byte PUT = 1;
+    private static final double MILLIS_PER_YEAR = 365.0d * 24.0d * 60.0d * 60.0d * 1000.0d;
+    private static final int GATHER_ROWS = 512;
+    private static final ThreadLocal<Columns> s_columns = ThreadLocal.withInitial(Columns::new);
+
+    private final int capacity;
+    private final ByteBuffer records;
+    private final int[] buckets;
+    private final Map<String, Integer> underlyingIds = new HashMap<>();
+    private final List<String> underlyings = new ArrayList<>();
+    private int size;
+
+    public OptionChainStore(int capacity) {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new InvalidParameterException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.records = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.buckets = new int[Integer.highestOneBit(capacity) << 1];
+        Arrays.fill(buckets, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Appends a contract and returns its index, quotes and last implied volatility start at zero.
+    public int add(String underlying, long expiryEpochMillis, double strikePrice, String type) {
+        final byte typeCode = typeCode(type);
+        if (size == capacity) {
+            throw new IllegalStateException("Option chain store is full: " + capacity);
+        }
+        Integer id = underlyingIds.get(underlying);
+        if (id == null) {
+            id = underlyings.size();
+            underlyingIds.put(underlying, id);
+            underlyings.add(underlying);
+        } else if (find(id, expiryEpochMillis, strikePrice, typeCode) >= 0) {
+            throw new InvalidParameterException("Duplicate contract: " + underlying + " " + expiryEpochMillis
+                    + " " + strikePrice + " " + type);
+        }
+
+        final int index = size++;
+        final int base = index * RECORD_SIZE;
+        final int bucket = bucket(id, expiryEpochMillis, strikePrice, typeCode);
+        records.putInt(base + UNDERLYING, id);
+        records.put(base + TYPE, typeCode);
+        records.putLong(base + EXPIRY, expiryEpochMillis);
+        records.putDouble(base + STRIKE, strikePrice);
+        records.putDouble(base + BID, 0d);
+        records.putDouble(base + ASK, 0d);
+        records.putDouble(base + SMV, 0d);
+        records.putDouble(base + LAST_IV, 0d);
+        records.putInt(base + NEXT, buckets[bucket]);
+        buckets[bucket] = index;
+        return index;
+    }
+
+    // Index of the contract or -1 when it is not in the store.
+    public int find(String underlying, long expiryEpochMillis, double strikePrice, String type) {
+        final Integer id = underlyingIds.get(underlying);
+        return id == null ? -1 : find(id, expiryEpochMillis, strikePrice, typeCode(type));
+    }
+
+    private int find(int underlyingId, long expiryEpochMillis, double strikePrice, byte typeCode) {
+        int index = buckets[bucket(underlyingId, expiryEpochMillis, strikePrice, typeCode)];
+        while (index >= 0) {
+            final int base = index * RECORD_SIZE;
+            if (records.getInt(base + UNDERLYING) == underlyingId
+                && records.getLong(base + EXPIRY) == expiryEpochMillis
+                && records.getDouble(base + STRIKE) == strikePrice
+                && records.get(base + TYPE) == typeCode) {
+                return index;
+            }
+            index = records.getInt(base + NEXT);
+        }
+        return -1;
+    }
+
+    private int bucket(int underlyingId, long expiryEpochMillis, double strikePrice, byte typeCode) {
+        long h = underlyingId * 0x9E3779B97F4A7C15L;
+        h = (h ^ expiryEpochMillis) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ Double.doubleToLongBits(strikePrice)) * 0x165667B19E3779F9L;
+        h ^= typeCode;
+        h ^= (h >>> 29);
+        return (int) h & (buckets.length - 1);
+    }
+
+    private static byte typeCode(String type) {
+        if ("C".equals(type)) {
+            return CALL;
+        } else if ("P".equals(type)) {
+            return PUT;
+        }
+        throw new InvalidParameterException("Invalid option type: " + type);
+    }
+
+    public int getUnderlyingCount() {
+        return underlyings.size();
+    }
+
+    // -1 when the underlying has no contracts in the store
+    public int getUnderlyingId(String underlying) {
+        final Integer id = underlyingIds.get(underlying);
+        return id == null ? -1 : id;
+    }
+
+    public String getUnderlyingName(int underlyingId) {
+        return underlyings.get(underlyingId);
+    }
+
+    public int getUnderlyingId(int index) {
+        return records.getInt(offset(index) + UNDERLYING);
+    }
+
+    public String getType(int index) {
+        return getOptionType(index).getCode();
+    }
+
+    public OptionType getOptionType(int index) {
+        return isCall(index) ? OptionType.CALL : OptionType.PUT;
+    }
+
+    public boolean isCall(int index) {
+        return records.get(offset(index) + TYPE) == CALL;
+    }
+
+    public long getExpiry(int index) {
+        return records.getLong(offset(index) + EXPIRY);
+    }
+
+    public double getStrike(int index) {
+        return records.getDouble(offset(index) + STRIKE);
+    }
+
+    public double getBid(int index) {
+        return records.getDouble(offset(index) + BID);
+    }
+
+    public double getAsk(int index) {
+        return records.getDouble(offset(index) + ASK);
+    }
+
+    public double getSmv(int index) {
+        return records.getDouble(offset(index) + SMV);
+    }
+
+    public double getLastIv(int index) {
+        return records.getDouble(offset(index) + LAST_IV);
+    }
+
+    public void setQuote(int index, double bid, double ask, double smv) {
+        final int base = offset(index);
+        records.putDouble(base + BID, bid);
+        records.putDouble(base + ASK, ask);
+        records.putDouble(base + SMV, smv);
+    }
+
+    public void setLastIv(int index, double lastIv) {
+        records.putDouble(offset(index) + LAST_IV, lastIv);
+    }
+
+    // annualized like Utils.timeBetween
+    public double getTimeRemaining(int index, long nowEpochMillis) {
+        return (getExpiry(index) - nowEpochMillis) / MILLIS_PER_YEAR;
+    }
+
+    // Theoretical prices of rows [from, to) at their last implied volatility, read straight from the records.
+    // underlyingPrices and dividendYields are indexed by underlying id, prices by row.
+    // An IBatchOptionModel gets the rows as primitive columns, gathered GATHER_ROWS at a time into per-thread
+    // scratch columns, any other model is called row by row.
+    public void priceOptions(IOptionModel model, double[] underlyingPrices, double[] dividendYields,
+                             double interestRate, long nowEpochMillis, double[] prices, int from, int to) {
+        checkRange(from, to);
+        if (model instanceof IBatchOptionModel batchModel) {
+            final Columns columns = s_columns.get();
+            for (int start = from; start < to; start += GATHER_ROWS) {
+                final int length = Math.min(GATHER_ROWS, to - start);
+                columns.gather(records, underlyingPrices, dividendYields, interestRate, nowEpochMillis, start,
+                        length);
+                batchModel.priceOptions(columns.isCall, columns.underlyingPrice, columns.strikePrice,
+                        columns.timeRemaining, columns.volatility, columns.interestRate, columns.dividendYield,
+                        columns.prices, 0, length);
+                System.arraycopy(columns.prices, 0, prices, start, length);
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            final int base = i * RECORD_SIZE;
+            final int id = records.getInt(base + UNDERLYING);
+            final double timeRemaining = (records.getLong(base + EXPIRY) - nowEpochMillis) / MILLIS_PER_YEAR;
+            prices[i] = model.priceOption(records.get(base + TYPE) == CALL ? OptionType.CALL : OptionType.PUT,
+                    underlyingPrices[id], records.getDouble(base + STRIKE), timeRemaining,
+                    records.getDouble(base + LAST_IV), interestRate, dividendYields[id]);
+        }
+    }
+
+    // scratch columns of one gathered range, reused by every priceOptions call on a thread
+    private static final class Columns {
+        private final boolean[] isCall = new boolean[GATHER_ROWS];
+        private final double[] underlyingPrice = new double[GATHER_ROWS];
+        private final double[] strikePrice = new double[GATHER_ROWS];
+        private final double[] timeRemaining = new double[GATHER_ROWS];
+        private final double[] volatility = new double[GATHER_ROWS];
+        private final double[] interestRate = new double[GATHER_ROWS];
+        private final double[] dividendYield = new double[GATHER_ROWS];
+        private final double[] prices = new double[GATHER_ROWS];
+
+        void gather(ByteBuffer records, double[] underlyingPrices, double[] dividendYields, double rate,
+                    long nowEpochMillis, int from, int length) {
+            for (int j = 0; j < length; j++) {
+                final int base = (from + j) * RECORD_SIZE;
+                final int id = records.getInt(base + UNDERLYING);
+                isCall[j] = records.get(base + TYPE) == CALL;
+                underlyingPrice[j] = underlyingPrices[id];
+                strikePrice[j] = records.getDouble(base + STRIKE);
+                timeRemaining[j] = (records.getLong(base + EXPIRY) - nowEpochMillis) / MILLIS_PER_YEAR;
+                volatility[j] = records.getDouble(base + LAST_IV);
+                interestRate[j] = rate;
+                dividendYield[j] = dividendYields[id];
+            }
+        }
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " outside store of " + size);
+        }
+        return index * RECORD_SIZE;
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") outside store of " + size);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.OptionType;
+
+import java.time.ZonedDateTime;
+
+// One market update of a contract, as fed to a QuoteGreeksProcessor. Quotes with the same contractId replace
+// each other, so everything the greeks need travels with the quote.
+public class OptionQuote {
+    private final String contractId;
+    private final OptionType type;
+    private final double underlyingPrice;
+    private final double strikePrice;
+    private final double timeRemaining;
+    private final double bid;
+    private final double ask;
+    private final double smv;
+    private final double interestRate;
+    private final double dividendYield;
+    private final ZonedDateTime updateTime;
+
+    public OptionQuote(String contractId, OptionType type, double underlyingPrice, double strikePrice,
+                       double timeRemaining, double bid, double ask, double smv, double interestRate,
+                       double dividendYield, ZonedDateTime updateTime) {
+        this.contractId = contractId;
+        this.type = type;
+        this.underlyingPrice = underlyingPrice;
+        this.strikePrice = strikePrice;
+        this.timeRemaining = timeRemaining;
+        this.bid = bid;
+        this.ask = ask;
+        this.smv = smv;
+        this.interestRate = interestRate;
+        this.dividendYield = dividendYield;
+        this.updateTime = updateTime;
+    }
+
+    public String getContractId() {
+        return contractId;
+    }
+
+    public OptionType getType() {
+        return type;
+    }
+
+    public double getUnderlyingPrice() {
+        return underlyingPrice;
+    }
+
+    public double getStrikePrice() {
+        return strikePrice;
+    }
+
+    public double getTimeRemaining() {
+        return timeRemaining;
+    }
+
+    public double getBid() {
+        return bid;
+    }
+
+    public double getAsk() {
+        return ask;
+    }
+
+    public double getSmv() {
+        return smv;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public double getDividendYield() {
+        return dividendYield;
+    }
+
+    public ZonedDateTime getUpdateTime() {
+        return updateTime;
+    }
+}
@@ -0,0 +1,44 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.util.GreeksBlock;
+
+// One batch of parsed quotes as primitive columns, and the greeks computed for them. The underlying of a row
+// stays where it is in the window of the quote file (symbolOffset, symbolLength), so it is copied to the results
+// without ever becoming a String. Reused for every batch of a file.
+final class QuoteBatch {
+    final int capacity;
+    final int[] symbolOffset;
+    final int[] symbolLength;
+    final long[] expiry;
+    final double[] strike;
+    final OptionType[] type;
+    final double[] underlyingPrice;
+    final double[] bid;
+    final double[] ask;
+    final double[] smv;
+    final double[] interestRate;
+    final double[] dividendYield;
+    final GreeksBlock greeks;
+    int size;
+
+    QuoteBatch(int capacity) {
+        this.capacity = capacity;
+        this.symbolOffset = new int[capacity];
+        this.symbolLength = new int[capacity];
+        this.expiry = new long[capacity];
+        this.strike = new double[capacity];
+        this.type = new OptionType[capacity];
+        this.underlyingPrice = new double[capacity];
+        this.bid = new double[capacity];
+        this.ask = new double[capacity];
+        this.smv = new double[capacity];
+        this.interestRate = new double[capacity];
+        this.dividendYield = new double[capacity];
+        this.greeks = new GreeksBlock(capacity);
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+}
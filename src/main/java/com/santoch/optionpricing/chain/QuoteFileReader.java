@@ -0,0 +1,326 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.OptionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+
+// Reads a QuoteFormat file one window of at most windowSize bytes at a time, through positional FileChannel
+// reads into one reusable direct buffer, so files of any size are read with a fixed amount of memory (mapping
+// each window instead would keep every one mapped until its buffer is collected). Numbers are parsed straight
+// from the buffer: no String, no char[] per field. A batch only holds rows of the current window (the
+// underlying symbols are offsets into it), a row crossing the window end is read again from the start of the
+// next window.
+final class QuoteFileReader implements AutoCloseable {
+    static final long DEFAULT_WINDOW_SIZE = 64L << 20;
+    private static final int CSV_FIELDS = 10;
+    private static final byte[] CSV_HEADER_START = "underlying".getBytes(StandardCharsets.US_ASCII);
+    // powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1d;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10d;
+        }
+    }
+
+    private final FileChannel channel;
+    private final QuoteFormat format;
+    private final long fileSize;
+    private final long windowSize;
+    private final int[] fieldStart = new int[CSV_FIELDS + 1];
+    // allocated on the first window, limited to the data of the current one
+    private ByteBuffer window;
+    private long windowStart;
+    private int position;
+
+    QuoteFileReader(Path path, QuoteFormat format, long windowSize) throws IOException {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new InvalidParameterException("Invalid windowSize: " + windowSize);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.format = format;
+        this.fileSize = channel.size();
+        this.windowSize = format == QuoteFormat.BINARY
+                ? Math.max(1, windowSize / QuoteFormat.QUOTE_RECORD_SIZE) * QuoteFormat.QUOTE_RECORD_SIZE
+                : windowSize;
+        if (format == QuoteFormat.BINARY && fileSize % QuoteFormat.QUOTE_RECORD_SIZE != 0) {
+            channel.close();
+            throw new InvalidParameterException("Binary quote file of " + fileSize + " bytes is not a whole number"
+                                                + " of " + QuoteFormat.QUOTE_RECORD_SIZE + " byte records");
+        }
+    }
+
+    // The window the symbols of the last batch point into.
+    ByteBuffer buffer() {
+        return window;
+    }
+
+    // Fills batch with the next quotes, up to its capacity; 0 at the end of the file.
+    int read(QuoteBatch batch) throws IOException {
+        batch.size = 0;
+        while (!batch.isFull()) {
+            if (window == null || !readRow(batch)) {
+                if (windowStart + position >= fileSize || batch.size > 0) {
+                    // the end, or a batch still pointing into this window
+                    break;
+                }
+                if (window != null && position == 0) {
+                    throw new InvalidParameterException("Quote line longer than the " + windowSize
+                                                        + " byte window at byte " + windowStart);
+                }
+                fill(windowStart + position);
+            }
+        }
+        return batch.size;
+    }
+
+    private void fill(long start) throws IOException {
+        if (window == null) {
+            window = ByteBuffer.allocateDirect((int) Math.min(windowSize, fileSize)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        windowStart = start;
+        position = 0;
+        window.clear();
+        window.limit((int) Math.min(window.capacity(), fileSize - start));
+        while (window.hasRemaining()) {
+            if (channel.read(window, start + window.position()) < 0) {
+                throw new IOException("Quote file shorter than its " + fileSize + " bytes at byte "
+                                      + (start + window.position()));
+            }
+        }
+        window.flip();
+    }
+
+    // false when the window holds no further complete row
+    private boolean readRow(QuoteBatch batch) {
+        if (format == QuoteFormat.BINARY) {
+            if (window.limit() - position < QuoteFormat.QUOTE_RECORD_SIZE) {
+                return false;
+            }
+            readRecord(batch, position);
+            position += QuoteFormat.QUOTE_RECORD_SIZE;
+            return true;
+        }
+        final int limit = window.limit();
+        final boolean last = windowStart + limit == fileSize;
+        while (true) {
+            int end = position;
+            while (end < limit && window.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit && !last) {
+                return false;
+            }
+            final int start = position;
+            position = end < limit ? end + 1 : end;
+            if (readLine(batch, start, end)) {
+                return true;
+            }
+            if (position >= limit) {
+                return false;
+            }
+        }
+    }
+
+    private void readRecord(QuoteBatch batch, int at) {
+        final int row = batch.size;
+        int length = QuoteFormat.SYMBOL_SIZE;
+        while (length > 0 && (window.get(at + length - 1) == 0 || window.get(at + length - 1) == ' ')) {
+            length--;
+        }
+        batch.symbolOffset[row] = at;
+        batch.symbolLength[row] = length;
+        batch.expiry[row] = window.getLong(at + 8);
+        batch.strike[row] = window.getDouble(at + 16);
+        final byte type = window.get(at + 24);
+        if (type != 0 && type != 1) {
+            throw new InvalidParameterException("Invalid option type " + type + " at byte " + (windowStart + at));
+        }
+        batch.type[row] = type == 0 ? OptionType.CALL : OptionType.PUT;
+        batch.underlyingPrice[row] = window.getDouble(at + 32);
+        batch.bid[row] = window.getDouble(at + 40);
+        batch.ask[row] = window.getDouble(at + 48);
+        batch.smv[row] = window.getDouble(at + 56);
+        batch.interestRate[row] = window.getDouble(at + 64);
+        batch.dividendYield[row] = window.getDouble(at + 72);
+        batch.size++;
+    }
+
+    // false for lines that hold no quote: blank, comments and the header
+    private boolean readLine(QuoteBatch batch, int start, int end) {
+        if (end > start && window.get(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start || window.get(start) == '#'
+            || windowStart + start == 0 && startsWith(start, end, CSV_HEADER_START)) {
+            return false;
+        }
+        int fields = 0;
+        fieldStart[fields++] = start;
+        for (int i = start; i < end; i++) {
+            if (window.get(i) == ',') {
+                if (fields == CSV_FIELDS) {
+                    throw malformed(start);
+                }
+                fieldStart[fields++] = i + 1;
+            }
+        }
+        if (fields != CSV_FIELDS) {
+            throw malformed(start);
+        }
+        fieldStart[CSV_FIELDS] = end + 1;
+
+        final int row = batch.size;
+        batch.symbolOffset[row] = start;
+        batch.symbolLength[row] = fieldStart[1] - 1 - start;
+        batch.expiry[row] = parseLong(fieldStart[1], fieldStart[2] - 1, start);
+        batch.strike[row] = parseDouble(fieldStart[2], fieldStart[3] - 1, start);
+        if (fieldStart[4] - fieldStart[3] != 2) {
+            throw malformed(start);
+        }
+        final byte type = window.get(fieldStart[3]);
+        if (type == 'C') {
+            batch.type[row] = OptionType.CALL;
+        } else if (type == 'P') {
+            batch.type[row] = OptionType.PUT;
+        } else {
+            throw malformed(start);
+        }
+        batch.underlyingPrice[row] = parseDouble(fieldStart[4], fieldStart[5] - 1, start);
+        batch.bid[row] = parseDouble(fieldStart[5], fieldStart[6] - 1, start);
+        batch.ask[row] = parseDouble(fieldStart[6], fieldStart[7] - 1, start);
+        batch.smv[row] = parseDouble(fieldStart[7], fieldStart[8] - 1, start);
+        batch.interestRate[row] = parseDouble(fieldStart[8], fieldStart[9] - 1, start);
+        batch.dividendYield[row] = parseDouble(fieldStart[9], fieldStart[10] - 1, start);
+        batch.size++;
+        return true;
+    }
+
+    private boolean startsWith(int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (window.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLong(int from, int to, int line) {
+        boolean negative = false;
+        if (from < to && window.get(from) == '-') {
+            negative = true;
+            from++;
+        }
+        if (from == to || to - from > 18) {
+            throw malformed(line);
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            final int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw malformed(line);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // [-]digits[.digits][(e|E)[+|-]digits], an empty field is 0. With a mantissa up to 2^53 and a power of ten
+    // within 22 the result is correctly rounded (both are exact doubles, so there is a single rounding), anything
+    // else, NaN included, goes through Double.parseDouble.
+    double parseDouble(int from, int to, int line) {
+        if (from == to) {
+            return 0d;
+        }
+        int i = from;
+        boolean negative = false;
+        if (window.get(i) == '-' || window.get(i) == '+') {
+            negative = window.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean anyDigit = false, point = false;
+        for (; i < to; i++) {
+            final byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                anyDigit = true;
+                if ((mantissa != 0 || b != '0') && ++digits > 18) {
+                    // more digits than a long holds
+                    return slowParseDouble(from, to, line);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    scale--;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            return slowParseDouble(from, to, line);
+        }
+        if (i < to) {
+            final byte e = window.get(i);
+            if (e != 'e' && e != 'E') {
+                throw malformed(line);
+            }
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (window.get(i) == '-' || window.get(i) == '+')) {
+                negativeExponent = window.get(i) == '-';
+                i++;
+            }
+            if (i == to || to - i > 4) {
+                return slowParseDouble(from, to, line);
+            }
+            int exponent = 0;
+            for (; i < to; i++) {
+                final int digit = window.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw malformed(line);
+                }
+                exponent = exponent * 10 + digit;
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (mantissa > (1L << 53) || scale < -22 || scale > 22) {
+            return slowParseDouble(from, to, line);
+        }
+        final double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble(int from, int to, int line) {
+        final byte[] bytes = new byte[to - from];
+        window.get(from, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw malformed(line);
+        }
+    }
+
+    private InvalidParameterException malformed(int line) {
+        return new InvalidParameterException("Malformed quote line at byte " + (windowStart + line));
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
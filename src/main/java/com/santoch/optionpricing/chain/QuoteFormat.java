@@ -0,0 +1,26 @@
+package com.santoch.optionpricing.chain;
+
+// Quote and result file layouts of ChainGreeksCli, results are written in the format of the quotes.
+//
+// CSV, one contract per line, a first line starting with "underlying" and lines starting with '#' are skipped,
+// an empty number field reads as 0:
+//   quotes:  underlying,expiry,strike,type,underlyingPrice,bid,ask,smv,interestRate,dividendYield
+//   results: underlying,expiry,strike,type,smvVol,bidIv,askIv,midIv,delta,gamma,theta,vega,rho
+// expiry is in epoch millis and type C or P.
+//
+// BINARY, fixed-width little endian records:
+//   quotes (80 bytes):   0 8 byte ASCII underlying, zero or space padded | 8 long expiry | 16 double strike
+//                       24 byte type (0 = C, 1 = P) | 32 double underlyingPrice | 40 double bid | 48 double ask
+//                       56 double smv | 64 double interestRate | 72 double dividendYield
+//   results (104 bytes): the first 32 bytes of the quote, then doubles smvVol, bidIv, askIv, midIv, delta,
+//                       gamma, theta, vega, rho from offset 32
+public enum QuoteFormat {
+    CSV,
+    BINARY;
+
+    public static final int QUOTE_RECORD_SIZE = 80;
+    public static final int RESULT_RECORD_SIZE = 104;
+    public static final int SYMBOL_SIZE = 8;
+    static final String CSV_HEADER = "underlying,expiry,strike,type,smvVol,bidIv,askIv,midIv,delta,gamma,theta,"
+                                     + "vega,rho";
+}
@@ -0,0 +1,229 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.Utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Turns a stream of OptionQuotes into a stream of ContractGreeks, conflating per contract: while the greeks of
+// a contract are being computed or waiting for a worker, a newer quote of that contract replaces the pending
+// one, so bursts cost one greeks calculation per contract instead of one per quote.
+//
+// Every contract has at most one task on the executor at a time, which drains the latest quote until none is
+// left; results of one contract are therefore published in quote order. Each task seeds its implied volatility
+// searches with the last smv volatility of the contract. Contracts stay known, with their last volatility, until
+// evicted, so long running feeds should evict contracts once they expire or stop trading.
+//
+// Downstream demand is honoured by a SubmissionPublisher buffering up to maxBufferCapacity items per
+// subscriber. A worker waits up to publishTimeoutMillis for a full subscriber buffer, meanwhile newer quotes
+// keep conflating upstream, after that the item is dropped for that subscriber. Quotes arriving after
+// completion and quotes the model throws on are dropped as well.
+public class QuoteGreeksProcessor implements Flow.Processor<OptionQuote, ContractGreeks>, AutoCloseable {
+    private static final long DEFAULT_PUBLISH_TIMEOUT_MILLIS = 100L;
+    private static final double DEFAULT_VOLATILITY = 0.5d;
+
+    private final IOptionModel model;
+    private final Executor executor;
+    private final long publishTimeoutMillis;
+    private final SubmissionPublisher<ContractGreeks> publisher;
+    private final ConcurrentHashMap<String, Contract> contracts = new ConcurrentHashMap<>();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+    private volatile boolean completed;
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder published = new LongAdder();
+
+    public QuoteGreeksProcessor(IOptionModel model) {
+        this(model, ForkJoinPool.commonPool(), Flow.defaultBufferSize(), DEFAULT_PUBLISH_TIMEOUT_MILLIS);
+    }
+
+    public QuoteGreeksProcessor(IOptionModel model, Executor executor, int maxBufferCapacity,
+                                long publishTimeoutMillis) {
+        this.model = model;
+        this.executor = executor;
+        this.publishTimeoutMillis = publishTimeoutMillis;
+        this.publisher = new SubmissionPublisher<>(executor, maxBufferCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ContractGreeks> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (!this.subscription.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        // pending work is bounded by the number of contracts, not quotes, so upstream never has to wait
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(OptionQuote quote) {
+        received.increment();
+        if (completed) {
+            dropped.increment();
+            return;
+        }
+        // the quote is set under the map lock so that evict never drops a contract with a quote pending
+        final Contract contract = contracts.compute(quote.getContractId(), (id, current) -> {
+            final Contract target = current == null ? new Contract() : current;
+            if (target.latest.getAndSet(quote) != null) {
+                conflated.increment();
+            }
+            return target;
+        });
+        schedule(contract);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        completed = true;
+        publisher.closeExceptionally(throwable);
+    }
+
+    // greeks of quotes already received are still published, the downstream completes after the last of them
+    @Override
+    public void onComplete() {
+        completed = true;
+        if (activeTasks.get() == 0) {
+            publisher.close();
+        }
+    }
+
+    // cancels the upstream subscription and completes the downstream without waiting for pending quotes
+    @Override
+    public void close() {
+        completed = true;
+        final Flow.Subscription current = subscription.get();
+        if (current != null) {
+            current.cancel();
+        }
+        publisher.close();
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    // quotes replaced by a newer quote of the same contract before their greeks were computed
+    public long getConflatedCount() {
+        return conflated.sum();
+    }
+
+    // quotes or greeks discarded for any other reason
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // greeks delivered to the buffers of all subscribers
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    // forgets an idle contract, a later quote of it starts over from the default volatility. Returns false and
+    // keeps the contract while a quote of it is pending or being processed.
+    public boolean evict(String contractId) {
+        final boolean[] evicted = new boolean[1];
+        contracts.computeIfPresent(contractId, (id, contract) -> {
+            if (contract.latest.get() != null || contract.scheduled.get()) {
+                return contract;
+            }
+            evicted[0] = true;
+            return null;
+        });
+        return evicted[0];
+    }
+
+    public int getContractCount() {
+        return contracts.size();
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    private void schedule(Contract contract) {
+        if (contract.scheduled.compareAndSet(false, true)) {
+            activeTasks.incrementAndGet();
+            executor.execute(() -> drain(contract));
+        }
+    }
+
+    private void drain(Contract contract) {
+        try {
+            while (true) {
+                final OptionQuote quote = contract.latest.getAndSet(null);
+                if (quote == null) {
+                    contract.scheduled.set(false);
+                    // a quote may have arrived between the getAndSet and releasing the contract
+                    if (contract.latest.get() == null || !contract.scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                process(contract, quote);
+            }
+        } finally {
+            if (activeTasks.decrementAndGet() == 0 && completed) {
+                publisher.close();
+            }
+        }
+    }
+
+    private void process(Contract contract, OptionQuote quote) {
+        if (publisher.isClosed()) {
+            dropped.increment();
+            return;
+        }
+        final ContractGreeks greeks = new ContractGreeks(quote.getContractId());
+        greeks.setUpdateTime(quote.getUpdateTime());
+        try {
+            Utils.greeks(model, greeks, quote.getType(), quote.getBid(), quote.getAsk(), quote.getSmv(),
+                    quote.getUnderlyingPrice(), quote.getStrikePrice(), quote.getTimeRemaining(),
+                    contract.lastVolatility, quote.getInterestRate(), quote.getDividendYield(), true);
+        } catch (RuntimeException e) {
+            dropped.increment();
+            return;
+        }
+        if (greeks.getSmvVol() > 0) {
+            contract.lastVolatility = greeks.getSmvVol();
+        }
+        final int lag;
+        try {
+            lag = publisher.offer(greeks, publishTimeoutMillis, TimeUnit.MILLISECONDS,
+                    (subscriber, item) -> {
+                        dropped.increment();
+                        return false;
+                    });
+        } catch (IllegalStateException e) {
+            // closed while computing
+            dropped.increment();
+            return;
+        }
+        if (lag >= 0) {
+            published.increment();
+        }
+    }
+
+    private static final class Contract {
+        private final AtomicReference<OptionQuote> latest = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // only touched by the task holding scheduled, which orders it between tasks
+        private double lastVolatility = DEFAULT_VOLATILITY;
+    }
+}
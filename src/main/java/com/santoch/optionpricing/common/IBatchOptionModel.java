@@ -0,0 +1,19 @@
+package com.santoch.optionpricing.common;
+
+public interface IBatchOptionModel {
+
+    // Prices a chain laid out as parallel primitive columns, one row per contract.
+    // isCall[i] == true for a call, false for a put; all other columns follow IOptionModel.priceOption.
+    // Rows [offset, offset + length) are priced and written to the same rows of prices,
+    // nothing is allocated per contract.
+    void priceOptions(boolean[] isCall, double[] underlyingPrice, double[] strikePrice, double[] timeRemaining,
+                      double[] volatility, double[] interestRate, double[] dividendYield,
+                      double[] prices, int offset, int length);
+
+    default void priceOptions(boolean[] isCall, double[] underlyingPrice, double[] strikePrice,
+                              double[] timeRemaining, double[] volatility, double[] interestRate,
+                              double[] dividendYield, double[] prices) {
+        priceOptions(isCall, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield,
+                prices, 0, prices.length);
+    }
+}
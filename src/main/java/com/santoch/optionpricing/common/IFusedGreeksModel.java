@@ -0,0 +1,13 @@
+package com.santoch.optionpricing.common;
+
+import com.santoch.optionpricing.util.PriceAndGreeks;
+
+public interface IFusedGreeksModel {
+
+    // Price plus delta, gamma, theta, vega and rho in a single pass, in the same units as the
+    // individual IOptionModel methods. Intermediates shared by the greeks (d1, the discount
+    // factors, sqrt(t), the density at d1) are computed once. Writes into and returns result.
+    PriceAndGreeks priceAndGreeks(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                                  double volatility, double interestRate, double dividendYield,
+                                  PriceAndGreeks result);
+}
@@ -32,4 +32,58 @@ public interface IOptionModel {
     IGreeks greeks(ZonedDateTime updateTime, String type, double bid, double ask, double smvPrice,
                    double s, double strikePrice, double timeRemaining, double initialVolatility,
                    double interestRate, double dividendYield);
+
+    // OptionType overloads, so implementations can specialize the call and put paths instead of comparing
+    // strings on every call (and on every iteration of impliedVolatility). The defaults adapt to the
+    // String methods above.
+    default double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                               double volatility, double interestRate, double dividendYield) {
+        return priceOption(type.getCode(), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    default double delta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                         double volatility, double interestRate, double dividendYield) {
+        return delta(type.getCode(), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    default double vega(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        return vega(type.getCode(), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    default double theta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                         double volatility, double interestRate, double dividendYield) {
+        return theta(type.getCode(), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    default double rho(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        return rho(type.getCode(), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    default double impliedVolatility(OptionType type, double optionPrice, double underlyingPrice,
+                                     double strikePrice, double timeRemaining, double initialVolatility,
+                                     double interestRate, double dividendYield) {
+        return impliedVolatility(type.getCode(), optionPrice, underlyingPrice, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield);
+    }
+
+    default IGreeks greeks(ZonedDateTime updateTime, OptionType type, double bid, double ask, double smvPrice,
+                           double s, double strikePrice, double timeRemaining, double initialVolatility,
+                           double interestRate, double dividendYield) {
+        return greeks(updateTime, type.getCode(), bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield);
+    }
+
+    // Step in volatility at which impliedVolatility stops, 0 when it stops on anything else (e.g. a fixed number
+    // of iterations). Searches sharing reprices between prices of one contract (JointImpliedVolatility) stand in
+    // for impliedVolatility only when they can stop on the same step.
+    default double impliedVolatilityStep() {
+        return 0d;
+    }
 }
@@ -0,0 +1,109 @@
+package com.santoch.optionpricing.common;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded warm-start cache for implied volatility searches, keyed by (underlying, expiry, strike, type, side).
+// A fixed, power of two number of slots is addressed by a hash of the key and holds one immutable entry each,
+// so a colliding contract simply replaces the previous one: memory never grows, reads and writes are a single
+// volatile access, and a lost entry only costs a cold start. Entries are compared on the full key, so a
+// collision never seeds a search with another contract's volatility.
+public class ImpliedVolatilityCache {
+    public enum Side {
+        SMV,
+        BID,
+        ASK,
+        MID
+    }
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ImpliedVolatilityCache(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new InvalidParameterException("Invalid capacity: " + capacity);
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    // the cached volatility of the key, or defaultVolatility when it is not cached
+    public double get(String underlying, long expiryEpochMillis, double strikePrice, OptionType type, Side side,
+                      double defaultVolatility) {
+        final Entry entry = slots.get(slot(underlying, expiryEpochMillis, strikePrice, type, side));
+        if (entry != null && entry.matches(underlying, expiryEpochMillis, strikePrice, type, side)) {
+            hits.increment();
+            return entry.volatility;
+        }
+        misses.increment();
+        return defaultVolatility;
+    }
+
+    // anything not strictly positive and finite is ignored, callers only put volatilities that reprice their price
+    public void put(String underlying, long expiryEpochMillis, double strikePrice, OptionType type, Side side,
+                    double volatility) {
+        if (volatility > 0 && volatility < Double.POSITIVE_INFINITY) {
+            final int slot = slot(underlying, expiryEpochMillis, strikePrice, type, side);
+            final Entry entry = slots.get(slot);
+            if (entry == null || entry.volatility != volatility
+                || !entry.matches(underlying, expiryEpochMillis, strikePrice, type, side)) {
+                slots.set(slot, new Entry(underlying, expiryEpochMillis, strikePrice, type, side, volatility));
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private int slot(String underlying, long expiryEpochMillis, double strikePrice, OptionType type, Side side) {
+        long h = underlying.hashCode() * 0x9E3779B97F4A7C15L;
+        h = (h ^ expiryEpochMillis) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ Double.doubleToLongBits(strikePrice)) * 0x165667B19E3779F9L;
+        h ^= (type.ordinal() << 2) | side.ordinal();
+        h ^= (h >>> 29);
+        return (int) h & mask;
+    }
+
+    private static final class Entry {
+        private final String underlying;
+        private final long expiryEpochMillis;
+        private final double strikePrice;
+        private final OptionType type;
+        private final Side side;
+        private final double volatility;
+
+        Entry(String underlying, long expiryEpochMillis, double strikePrice, OptionType type, Side side,
+              double volatility) {
+            this.underlying = underlying;
+            this.expiryEpochMillis = expiryEpochMillis;
+            this.strikePrice = strikePrice;
+            this.type = type;
+            this.side = side;
+            this.volatility = volatility;
+        }
+
+        boolean matches(String underlying, long expiryEpochMillis, double strikePrice, OptionType type, Side side) {
+            return this.expiryEpochMillis == expiryEpochMillis && this.strikePrice == strikePrice
+                   && this.type == type && this.side == side && this.underlying.equals(underlying);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.santoch.optionpricing.common;
+
+import com.santoch.optionpricing.util.Constants;
+
+// Solves the ask, bid and mid implied volatilities of one contract together, given the smv solution.
+// The targets share every input but the price and price is increasing in volatility, so one search informs the
+// others: mid starts from the smv solution, bid and ask from the mid solution, each stepping along the slope
+// of the previous solution (the model vega at smv, secants after that) or, once three reprices are known,
+// from the inverse quadratic through the three closest to the target. Every reprice is kept and bounds the
+// searches of all later targets, and a target equal to an already solved one costs nothing.
+// Steps leaving the bracket are replaced by bisection, or by growing the volatility while nothing above the
+// target price has been seen. The searches stop on the model's own impliedVolatilityStep, so they are as close
+// as impliedVolatility would be, and only once the last reprice is within PRICE_PRECISION of the target: where
+// vega is nearly flat (e.g. deep in the money American options near intrinsic) a short step says nothing about
+// the price. A target that does not converge within MAX_ITERATIONS reprices, has no solution or meets prices
+// that are not increasing in volatility is NaN, so every volatility returned reprices its target.
+// The caller solves a NaN side with the model's own impliedVolatility, and every side when the model does not
+// stop on a step (e.g. Let's Be Rational) or there is no usable smv solution or vega.
+final class JointImpliedVolatility {
+    static final int MAX_ITERATIONS = 32;
+    static final int ASK = 0;
+    static final int BID = 1;
+    static final int MID = 2;
+    private static final double MAX_VOLATILITY = 10d;
+    private static final ThreadLocal<JointImpliedVolatility> s_scratch =
+            ThreadLocal.withInitial(JointImpliedVolatility::new);
+
+    // reprices of the current solve
+    private final double[] volatilities = new double[3 * MAX_ITERATIONS + 1];
+    private final double[] prices = new double[3 * MAX_ITERATIONS + 1];
+    private int evaluations;
+    // secant slope at the last solution
+    private double lastSlope;
+    // impliedVolatilityStep of the model
+    private double tolerance;
+
+    private JointImpliedVolatility() {}
+
+    // Writes the ask, bid and mid volatilities to out[ASK], out[BID] and out[MID], smvVol being the solution for
+    // the smv price. Returns false, writing nothing, when the model does not stop on a step or there is no usable
+    // smv solution or vega to start from.
+    static boolean solve(IOptionModel model, OptionType type, double smv, double smvVol, double ask, double bid,
+                         double mid, double underlyingPrice, double strikePrice, double timeRemaining,
+                         double interestRate, double dividendYield, double[] out) {
+        final double tolerance = model.impliedVolatilityStep();
+        if (!(tolerance > 0) || !(smvVol > 0 && smvVol < MAX_VOLATILITY) || !(timeRemaining > 0)) {
+            return false;
+        }
+        final double vega = model.vega(type, underlyingPrice, strikePrice, timeRemaining, smvVol, interestRate,
+                dividendYield) / 0.01;
+        if (!(vega > Constants.IV_PRECISION / 1000d)) {
+            return false;
+        }
+        final JointImpliedVolatility solver = s_scratch.get();
+        solver.evaluations = 0;
+        solver.tolerance = tolerance;
+        solver.record(smvVol, smv);
+        final double midVol = solver.solveTarget(model, type, mid, smvVol, smv, vega, underlyingPrice, strikePrice,
+                timeRemaining, interestRate, dividendYield);
+        double seedVol = smvVol, seedPrice = smv, seedSlope = vega;
+        if (midVol > 0) {
+            seedVol = midVol;
+            seedPrice = mid;
+            seedSlope = solver.lastSlope;
+        }
+        out[MID] = midVol;
+        out[BID] = solver.solveTarget(model, type, bid, seedVol, seedPrice, seedSlope, underlyingPrice,
+                strikePrice, timeRemaining, interestRate, dividendYield);
+        out[ASK] = solver.solveTarget(model, type, ask, seedVol, seedPrice, seedSlope, underlyingPrice,
+                strikePrice, timeRemaining, interestRate, dividendYield);
+        return true;
+    }
+
+    // volatility at target of the parabola through the three reprices closest to it in price, NaN if two coincide
+    private double inverseQuadratic(double target) {
+        int a = -1, b = -1, c = -1;
+        for (int i = 0; i < evaluations; i++) {
+            final double distance = Math.abs(prices[i] - target);
+            if (a < 0 || distance < Math.abs(prices[a] - target)) {
+                c = b;
+                b = a;
+                a = i;
+            } else if (b < 0 || distance < Math.abs(prices[b] - target)) {
+                c = b;
+                b = i;
+            } else if (c < 0 || distance < Math.abs(prices[c] - target)) {
+                c = i;
+            }
+        }
+        final double pa = prices[a], pb = prices[b], pc = prices[c];
+        if (pa == pb || pa == pc || pb == pc) {
+            return Double.NaN;
+        }
+        return volatilities[a] * (target - pb) * (target - pc) / ((pa - pb) * (pa - pc))
+               + volatilities[b] * (target - pa) * (target - pc) / ((pb - pa) * (pb - pc))
+               + volatilities[c] * (target - pa) * (target - pb) / ((pc - pa) * (pc - pb));
+    }
+
+    private void record(double volatility, double price) {
+        volatilities[evaluations] = volatility;
+        prices[evaluations] = price;
+        evaluations++;
+    }
+
+    private double solveTarget(IOptionModel model, OptionType type, double target, double seedVol, double seedPrice,
+                               double slope, double underlyingPrice, double strikePrice, double timeRemaining,
+                               double interestRate, double dividendYield) {
+        lastSlope = slope;
+        if (target == seedPrice) {
+            return seedVol;
+        } else if (!(target > 0)) {
+            return Double.NaN;
+        }
+        // bracket from every reprice so far
+        double lower = 0d, upper = MAX_VOLATILITY;
+        boolean lowerKnown = false, upperKnown = false;
+        for (int i = 0; i < evaluations; i++) {
+            if (prices[i] < target) {
+                lower = Math.max(lower, volatilities[i]);
+                lowerKnown = true;
+            } else if (prices[i] > target && volatilities[i] < upper) {
+                upper = volatilities[i];
+                upperKnown = true;
+            }
+        }
+        if (!(lower < upper)) {
+            // price is not increasing in volatility over the reprices, none of them can be trusted as a bound
+            return Double.NaN;
+        }
+        double previousV = seedVol, previousDiff = seedPrice - target;
+        double v = seedVol - previousDiff / slope;
+        if (evaluations >= 3) {
+            // the earlier searches usually leave points on both sides, which pin down the curvature as well
+            final double interpolated = inverseQuadratic(target);
+            if (interpolated > lower && interpolated < upper) {
+                v = interpolated;
+            }
+        }
+        if (!(v > lower && v < upper)) {
+            v = upperKnown ? 0.5d * (lower + upper) : Math.min(2d * Math.max(lower, seedVol),
+                    0.5d * (lower + MAX_VOLATILITY));
+        }
+
+        for (int n = 0; n < MAX_ITERATIONS; n++) {
+            final double price = model.priceOption(type, underlyingPrice, strikePrice, timeRemaining, v,
+                    interestRate, dividendYield);
+            if (!Double.isFinite(price)) {
+                return Double.NaN;
+            }
+            record(v, price);
+            final double diff = price - target;
+            if (diff == 0d) {
+                return v;
+            } else if (diff > 0) {
+                upper = v;
+                upperKnown = true;
+            } else {
+                lower = v;
+                lowerKnown = true;
+            }
+            if (v != previousV) {
+                slope = (diff - previousDiff) / (v - previousV);
+            }
+            previousV = v;
+            previousDiff = diff;
+
+            double next = v - diff / slope;
+            if (slope > 0 && next > lower && next < upper) {
+                if (Math.abs(next - v) < tolerance && Math.abs(diff) < Constants.PRICE_PRECISION) {
+                    lastSlope = slope;
+                    return next;
+                }
+            } else {
+                next = upperKnown ? 0.5d * (lower + upper) : Math.min(2d * v, 0.5d * (v + MAX_VOLATILITY));
+            }
+            if (upper - lower < tolerance) {
+                // the bracket collapsed, onto the solution only if reprices were seen on both sides of the target
+                // and close to it, otherwise onto the volatility floor or cap or a jump in price
+                return lowerKnown && upperKnown && Math.abs(diff) < Constants.PRICE_PRECISION ? next : Double.NaN;
+            }
+            v = next;
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,34 @@
+package com.santoch.optionpricing.common;
+
+public enum OptionType {
+    CALL("C", 1d),
+    PUT("P", -1d);
+
+    private final String code;
+    private final double sign;
+
+    OptionType(String code, double sign) {
+        this.code = code;
+        this.sign = sign;
+    }
+
+    // "C" or "P", as used by the String based IOptionModel methods
+    public String getCode() {
+        return code;
+    }
+
+    // 1 for a call, -1 for a put
+    public double getSign() {
+        return sign;
+    }
+
+    // null for anything other than "C" or "P"
+    public static OptionType fromCode(String type) {
+        if ("C".equals(type)) {
+            return CALL;
+        } else if ("P".equals(type)) {
+            return PUT;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.santoch.optionpricing.common;
+
+import com.santoch.optionpricing.util.PriceAndGreeks;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Delta-gamma-theta fast path over an IOptionModel for small underlying moves between full reprices.
+// Each Contract keeps the price, delta, gamma and theta of its last full evaluation (the anchor) and serves
+//   price ~ price0 + delta0 * dS + gamma0 * dS^2 / 2 + theta0 * elapsed days
+//   delta ~ delta0 + gamma0 * dS
+// as long as the estimated error stays below maxPriceError and less than maxElapsedTime (annualized, like
+// timeRemaining) has passed since the anchor. The error estimate is the next Taylor term, |speed| * |dS|^3 / 6,
+// with speed bounded from the Black-Scholes closed form at the anchor gamma. Any change of volatility, rate or
+// dividend yield, or a clock moving backwards, forces a full reprice, which becomes the new anchor.
+// Hit and miss counts are kept per TaylorApproximation, contracts are not thread safe.
+public class TaylorApproximation {
+    private final IOptionModel model;
+    private final double maxPriceError;
+    private final double maxElapsedTime;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TaylorApproximation(IOptionModel model, double maxPriceError, double maxElapsedTime) {
+        if (!(maxPriceError >= 0) || !(maxElapsedTime >= 0)) {
+            throw new InvalidParameterException("Invalid error bound " + maxPriceError + " or elapsed time "
+                                                + maxElapsedTime);
+        }
+        this.model = model;
+        this.maxPriceError = maxPriceError;
+        this.maxElapsedTime = maxElapsedTime;
+    }
+
+    public IOptionModel getModel() {
+        return model;
+    }
+
+    public double getMaxPriceError() {
+        return maxPriceError;
+    }
+
+    public double getMaxElapsedTime() {
+        return maxElapsedTime;
+    }
+
+    public Contract contract(OptionType type, double strikePrice) {
+        return new Contract(type, strikePrice);
+    }
+
+    // evaluations served from the anchor
+    public long getHits() {
+        return hits.sum();
+    }
+
+    // evaluations that needed a full reprice
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        final long h = hits.sum(), total = h + misses.sum();
+        return total == 0 ? 0d : (double) h / total;
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    public class Contract {
+        private final OptionType type;
+        private final double strikePrice;
+        private final PriceAndGreeks fused = new PriceAndGreeks();
+        private boolean anchored;
+        private double anchorUnderlyingPrice;
+        private double anchorTimeRemaining;
+        private double volatility;
+        private double interestRate;
+        private double dividendYield;
+        private double anchorPrice;
+        private double anchorDelta;
+        private double anchorGamma;
+        private double anchorTheta;
+        private double speed;
+        private double price;
+        private double delta;
+        private boolean approximate;
+
+        private Contract(OptionType type, double strikePrice) {
+            this.type = type;
+            this.strikePrice = strikePrice;
+        }
+
+        public OptionType getType() {
+            return type;
+        }
+
+        public double getStrikePrice() {
+            return strikePrice;
+        }
+
+        public double price(double underlyingPrice, double timeRemaining, double volatility, double interestRate,
+                            double dividendYield) {
+            evaluate(underlyingPrice, timeRemaining, volatility, interestRate, dividendYield);
+            return price;
+        }
+
+        public double delta(double underlyingPrice, double timeRemaining, double volatility, double interestRate,
+                            double dividendYield) {
+            evaluate(underlyingPrice, timeRemaining, volatility, interestRate, dividendYield);
+            return delta;
+        }
+
+        // the next evaluation reprices in full
+        public void invalidate() {
+            anchored = false;
+        }
+
+        // true when the last evaluation came from the anchor
+        public boolean isApproximate() {
+            return approximate;
+        }
+
+        private void evaluate(double underlyingPrice, double timeRemaining, double volatility, double interestRate,
+                              double dividendYield) {
+            if (anchored && volatility == this.volatility && interestRate == this.interestRate
+                && dividendYield == this.dividendYield) {
+                final double elapsed = anchorTimeRemaining - timeRemaining;
+                final double dS = underlyingPrice - anchorUnderlyingPrice;
+                final double absDS = Math.abs(dS);
+                if (elapsed >= 0 && elapsed <= maxElapsedTime && speed * absDS * absDS * absDS / 6 <= maxPriceError) {
+                    price = anchorPrice + dS * (anchorDelta + 0.5d * anchorGamma * dS) + anchorTheta * elapsed * 365;
+                    delta = anchorDelta + anchorGamma * dS;
+                    approximate = true;
+                    hits.increment();
+                    return;
+                }
+            }
+            reprice(underlyingPrice, timeRemaining, volatility, interestRate, dividendYield);
+            approximate = false;
+            misses.increment();
+        }
+
+        private void reprice(double underlyingPrice, double timeRemaining, double volatility, double interestRate,
+                             double dividendYield) {
+            if (model instanceof IFusedGreeksModel fusedModel) {
+                fusedModel.priceAndGreeks(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                        dividendYield, fused);
+                price = fused.getPrice();
+                delta = fused.getDelta();
+                anchorGamma = fused.getGamma();
+                anchorTheta = fused.getTheta();
+            } else {
+                price = model.priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                        interestRate, dividendYield);
+                delta = model.delta(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                        dividendYield);
+                anchorGamma = model.gamma(underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                        dividendYield);
+                anchorTheta = model.theta(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                        interestRate, dividendYield);
+            }
+            anchorUnderlyingPrice = underlyingPrice;
+            anchorTimeRemaining = timeRemaining;
+            anchorPrice = price;
+            anchorDelta = delta;
+            this.volatility = volatility;
+            this.interestRate = interestRate;
+            this.dividendYield = dividendYield;
+            speed = speed(underlyingPrice, timeRemaining, volatility, interestRate, dividendYield);
+            // expired or degenerate inputs are never approximated
+            anchored = timeRemaining > 0 && Double.isFinite(speed) && Double.isFinite(anchorTheta)
+                       && Double.isFinite(price);
+        }
+
+        // bound on |d gamma / dS| from the Black-Scholes form -gamma / S * (d1 / vt + 1) at the model's own gamma,
+        // taking |d1| so the estimate does not vanish where speed itself crosses zero
+        private double speed(double underlyingPrice, double timeRemaining, double volatility, double interestRate,
+                             double dividendYield) {
+            final double vt = volatility * Math.sqrt(timeRemaining);
+            final double d1 = (Math.log(underlyingPrice / strikePrice)
+                               + (interestRate - dividendYield + 0.5d * volatility * volatility) * timeRemaining) / vt;
+            return Math.abs(anchorGamma / underlyingPrice) * (Math.abs(d1) / vt + 1);
+        }
+    }
+}
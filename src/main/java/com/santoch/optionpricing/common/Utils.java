@@ -1,7 +1,10 @@
 package com.santoch.optionpricing.common;
 
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.GreeksBlock;
 import com.santoch.optionpricing.util.GreeksImpl;
 import com.santoch.optionpricing.util.NormalDistribution;
+import com.santoch.optionpricing.util.PriceAndGreeks;
 import org.jetbrains.annotations.NotNull;
 
 import java.security.InvalidParameterException;
@@ -15,28 +18,94 @@ import static java.time.temporal.ChronoUnit.MILLIS;
 @SuppressWarnings("unused")
 
 public class Utils {
+    private static final ThreadLocal<PriceAndGreeks> s_fusedScratch = ThreadLocal.withInitial(PriceAndGreeks::new);
+    private static final ThreadLocal<double[]> s_sidesScratch = ThreadLocal.withInitial(() -> new double[3]);
+
     public static IGreeks greeks(IOptionModel model, ZonedDateTime updateTime, String type, double bid, double ask,
                                  double smv, double underlyingPrice, double strikePrice, double timeRemaining,
                                  double initialVolatility, double interestRate, double dividendYield,
                                  boolean useSmvVol) {
+        return greeks(model, updateTime, optionType(type), bid, ask, smv, underlyingPrice, strikePrice,
+                timeRemaining, initialVolatility, interestRate, dividendYield, useSmvVol);
+    }
+
+    public static IGreeks greeks(IOptionModel model, ZonedDateTime updateTime, OptionType type, double bid,
+                                 double ask, double smv, double underlyingPrice, double strikePrice,
+                                 double timeRemaining, double initialVolatility, double interestRate,
+                                 double dividendYield, boolean useSmvVol) {
         GreeksImpl greeks = new GreeksImpl();
+        greeks.setUpdateTime(updateTime);
+        return greeks(model, greeks, type, bid, ask, smv, underlyingPrice, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, useSmvVol);
+    }
+
+    public static IGreeks greeks(IOptionModel model, IGreeks greeks, String type, double bid, double ask,
+                                 double smv, double underlyingPrice, double strikePrice, double timeRemaining,
+                                 double initialVolatility, double interestRate, double dividendYield,
+                                 boolean useSmvVol) {
+        return greeks(model, greeks, optionType(type), bid, ask, smv, underlyingPrice, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, useSmvVol);
+    }
+
+    // Fills every field of greeks except the update time, so a reused IGreeks (e.g. a GreeksBlock.Row)
+    // can be written without allocating per contract.
+    public static IGreeks greeks(IOptionModel model, IGreeks greeks, OptionType type, double bid, double ask,
+                                 double smv, double underlyingPrice, double strikePrice, double timeRemaining,
+                                 double initialVolatility, double interestRate, double dividendYield,
+                                 boolean useSmvVol) {
+        return greeks(model, greeks, null, null, 0L, type, bid, ask, smv, underlyingPrice, strikePrice,
+                timeRemaining, initialVolatility, interestRate, dividendYield, useSmvVol);
+    }
+
+    // Same as above, with the smv search (and the fallback searches) seeded from the last solution of the same
+    // contract and side in cache, initialVolatility when there is none, and every solution written back.
+    // The smv implied volatility is solved first, the ask, bid and mid ones together from it
+    // (JointImpliedVolatility), falling back to the model's own search for any side that does not solve.
+    public static IGreeks greeks(IOptionModel model, IGreeks greeks, ImpliedVolatilityCache cache, String underlying,
+                                 long expiryEpochMillis, OptionType type, double bid, double ask, double smv,
+                                 double underlyingPrice, double strikePrice, double timeRemaining,
+                                 double initialVolatility, double interestRate, double dividendYield,
+                                 boolean useSmvVol) {
         double mid = (bid + ask) / 2.0;
         smv = smv > 0 ? smv : mid;
 
-        double smvVol = model.impliedVolatility(type, smv, underlyingPrice, strikePrice, timeRemaining,
+        double smvVol = impliedVolatility(model, cache, underlying, expiryEpochMillis,
+                ImpliedVolatilityCache.Side.SMV, type, smv, underlyingPrice, strikePrice, timeRemaining,
                 initialVolatility, interestRate, dividendYield);
         greeks.setSmvVol(smvVol);
         if (useSmvVol && smvVol > 0) {
             initialVolatility = smvVol;
         }
 
-        greeks.setUpdateTime(updateTime);
-        greeks.setAskIv(model.impliedVolatility(type, ask, underlyingPrice, strikePrice, timeRemaining,
-                initialVolatility, interestRate, dividendYield));
-        greeks.setBidIv(model.impliedVolatility(type, bid, underlyingPrice, strikePrice, timeRemaining,
-                initialVolatility, interestRate, dividendYield));
-        greeks.setMidIv(model.impliedVolatility(type, mid, underlyingPrice, strikePrice, timeRemaining,
-                initialVolatility, interestRate, dividendYield));
+        final double[] sides = s_sidesScratch.get();
+        if (!JointImpliedVolatility.solve(model, type, smv, smvVol, ask, bid, mid, underlyingPrice, strikePrice,
+                timeRemaining, interestRate, dividendYield, sides)) {
+            sides[JointImpliedVolatility.ASK] = Double.NaN;
+            sides[JointImpliedVolatility.BID] = Double.NaN;
+            sides[JointImpliedVolatility.MID] = Double.NaN;
+        }
+        sides[JointImpliedVolatility.ASK] = sideVolatility(model, cache, underlying, expiryEpochMillis,
+                ImpliedVolatilityCache.Side.ASK, sides[JointImpliedVolatility.ASK], type, ask, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+        sides[JointImpliedVolatility.BID] = sideVolatility(model, cache, underlying, expiryEpochMillis,
+                ImpliedVolatilityCache.Side.BID, sides[JointImpliedVolatility.BID], type, bid, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+        sides[JointImpliedVolatility.MID] = sideVolatility(model, cache, underlying, expiryEpochMillis,
+                ImpliedVolatilityCache.Side.MID, sides[JointImpliedVolatility.MID], type, mid, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+        greeks.setAskIv(sides[JointImpliedVolatility.ASK]);
+        greeks.setBidIv(sides[JointImpliedVolatility.BID]);
+        greeks.setMidIv(sides[JointImpliedVolatility.MID]);
+        if (model instanceof IFusedGreeksModel fusedModel) {
+            PriceAndGreeks fused = fusedModel.priceAndGreeks(type, underlyingPrice, strikePrice, timeRemaining,
+                    initialVolatility, interestRate, dividendYield, s_fusedScratch.get());
+            greeks.setDelta(fused.getDelta());
+            greeks.setGamma(fused.getGamma());
+            greeks.setTheta(fused.getTheta());
+            greeks.setVega(fused.getVega());
+            greeks.setRho(fused.getRho());
+            return greeks;
+        }
         greeks.setDelta(model.delta(type, underlyingPrice, strikePrice, timeRemaining, initialVolatility, interestRate,
                 dividendYield));
         greeks.setGamma(model.gamma(underlyingPrice, strikePrice, timeRemaining, initialVolatility, interestRate,
@@ -51,6 +120,63 @@ public class Utils {
         return greeks;
     }
 
+    // Writes the greeks of one contract into a row of block, stamped with an epoch nanos update time.
+    public static void greeks(IOptionModel model, GreeksBlock.Row row, long updateTimeNanos, OptionType type,
+                              double bid, double ask, double smv, double underlyingPrice, double strikePrice,
+                              double timeRemaining, double initialVolatility, double interestRate,
+                              double dividendYield, boolean useSmvVol) {
+        row.setUpdateTimeNanos(updateTimeNanos);
+        greeks(model, row, type, bid, ask, smv, underlyingPrice, strikePrice, timeRemaining, initialVolatility,
+                interestRate, dividendYield, useSmvVol);
+    }
+
+    // the joint solution of a side when there is one (the joint search only returns volatilities whose last
+    // reprice is within PRICE_PRECISION of the side, so it is cached as is), else the model's own search
+    private static double sideVolatility(IOptionModel model, ImpliedVolatilityCache cache, String underlying,
+                                         long expiryEpochMillis, ImpliedVolatilityCache.Side side, double joint,
+                                         OptionType type, double optionPrice, double underlyingPrice,
+                                         double strikePrice, double timeRemaining, double initialVolatility,
+                                         double interestRate, double dividendYield) {
+        if (Double.isNaN(joint)) {
+            return impliedVolatility(model, cache, underlying, expiryEpochMillis, side, type, optionPrice,
+                    underlyingPrice, strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+        }
+        if (cache != null) {
+            cache.put(underlying, expiryEpochMillis, strikePrice, type, side, joint);
+        }
+        return joint;
+    }
+
+    // cache may be null, the search then starts from initialVolatility as before. Only a volatility that reprices
+    // optionPrice within PRICE_PRECISION is written back: some solvers return their last iterate when they do not
+    // converge (e.g. a price below intrinsic), which must not seed the next search of the contract.
+    private static double impliedVolatility(IOptionModel model, ImpliedVolatilityCache cache, String underlying,
+                                            long expiryEpochMillis, ImpliedVolatilityCache.Side side,
+                                            OptionType type, double optionPrice, double underlyingPrice,
+                                            double strikePrice, double timeRemaining, double initialVolatility,
+                                            double interestRate, double dividendYield) {
+        if (cache == null) {
+            return model.impliedVolatility(type, optionPrice, underlyingPrice, strikePrice, timeRemaining,
+                    initialVolatility, interestRate, dividendYield);
+        }
+        final double seed = cache.get(underlying, expiryEpochMillis, strikePrice, type, side, initialVolatility);
+        final double volatility = model.impliedVolatility(type, optionPrice, underlyingPrice, strikePrice,
+                timeRemaining, seed, interestRate, dividendYield);
+        if (volatility > 0 && Math.abs(model.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield) - optionPrice) < Constants.PRICE_PRECISION) {
+            cache.put(underlying, expiryEpochMillis, strikePrice, type, side, volatility);
+        }
+        return volatility;
+    }
+
+    private static OptionType optionType(String type) {
+        final OptionType optionType = OptionType.fromCode(type);
+        if (optionType == null) {
+            throw new InvalidParameterException("Invalid option type: " + type);
+        }
+        return optionType;
+    }
+
     public static double probabilityBelow(double underlyingPrice, double strikePrice,
                                           double timeRemaining, double atTheMoneyVolatility) {
         if (underlyingPrice == strikePrice) {
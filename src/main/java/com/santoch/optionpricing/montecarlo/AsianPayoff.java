@@ -0,0 +1,33 @@
+package com.santoch.optionpricing.montecarlo;
+
+import com.santoch.optionpricing.common.OptionType;
+
+// Fixed strike option on the arithmetic average of the monitoring dates (today excluded).
+public class AsianPayoff implements IPathPayoff {
+    private final OptionType type;
+    private final double strike;
+
+    public AsianPayoff(OptionType type, double strike) {
+        this.type = type;
+        this.strike = strike;
+    }
+
+    @Override
+    public OptionType getType() {
+        return type;
+    }
+
+    @Override
+    public double getStrike() {
+        return strike;
+    }
+
+    @Override
+    public double payoff(double[] path, int offset, int steps) {
+        double sum = 0d;
+        for (int i = offset + 1; i <= offset + steps; i++) {
+            sum += path[i];
+        }
+        return Math.max(type.getSign() * (sum / steps - strike), 0d);
+    }
+}
@@ -0,0 +1,72 @@
+package com.santoch.optionpricing.montecarlo;
+
+import com.santoch.optionpricing.common.OptionType;
+
+// Vanilla payoff knocked in or out by the underlying touching the barrier on a monitoring date (discrete
+// monitoring, today included), no rebate. An in and an out option on the same path add up to the vanilla one.
+public class BarrierPayoff implements IPathPayoff {
+    public enum Barrier {
+        UP_AND_OUT(true, false),
+        UP_AND_IN(true, true),
+        DOWN_AND_OUT(false, false),
+        DOWN_AND_IN(false, true);
+
+        private final boolean up;
+        private final boolean knockIn;
+
+        Barrier(boolean up, boolean knockIn) {
+            this.up = up;
+            this.knockIn = knockIn;
+        }
+
+        public boolean isUp() {
+            return up;
+        }
+
+        public boolean isKnockIn() {
+            return knockIn;
+        }
+    }
+
+    private final OptionType type;
+    private final double strike;
+    private final Barrier barrier;
+    private final double level;
+
+    public BarrierPayoff(OptionType type, double strike, Barrier barrier, double level) {
+        this.type = type;
+        this.strike = strike;
+        this.barrier = barrier;
+        this.level = level;
+    }
+
+    @Override
+    public OptionType getType() {
+        return type;
+    }
+
+    @Override
+    public double getStrike() {
+        return strike;
+    }
+
+    public Barrier getBarrier() {
+        return barrier;
+    }
+
+    public double getLevel() {
+        return level;
+    }
+
+    @Override
+    public double payoff(double[] path, int offset, int steps) {
+        boolean touched = false;
+        for (int i = offset; i <= offset + steps && !touched; i++) {
+            touched = barrier.isUp() ? path[i] >= level : path[i] <= level;
+        }
+        if (touched != barrier.isKnockIn()) {
+            return 0d;
+        }
+        return Math.max(type.getSign() * (path[offset + steps] - strike), 0d);
+    }
+}
@@ -0,0 +1,29 @@
+package com.santoch.optionpricing.montecarlo;
+
+import com.santoch.optionpricing.common.OptionType;
+
+// Vanilla payoff at expiry, the control variate itself; mostly useful to check the engine against BlackScholes.
+public class EuropeanPayoff implements IPathPayoff {
+    private final OptionType type;
+    private final double strike;
+
+    public EuropeanPayoff(OptionType type, double strike) {
+        this.type = type;
+        this.strike = strike;
+    }
+
+    @Override
+    public OptionType getType() {
+        return type;
+    }
+
+    @Override
+    public double getStrike() {
+        return strike;
+    }
+
+    @Override
+    public double payoff(double[] path, int offset, int steps) {
+        return Math.max(type.getSign() * (path[offset + steps] - strike), 0d);
+    }
+}
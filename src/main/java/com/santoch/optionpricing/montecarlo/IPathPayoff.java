@@ -0,0 +1,14 @@
+package com.santoch.optionpricing.montecarlo;
+
+import com.santoch.optionpricing.common.OptionType;
+
+// Payoff of one simulated path. path[offset] is the underlying price today, path[offset + 1] to
+// path[offset + steps] the prices at the equally spaced monitoring dates, the last one at expiry.
+// The type and strike also define the European option used as the control variate.
+public interface IPathPayoff {
+    OptionType getType();
+
+    double getStrike();
+
+    double payoff(double[] path, int offset, int steps);
+}
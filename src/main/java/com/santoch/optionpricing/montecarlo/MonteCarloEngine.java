@@ -0,0 +1,235 @@
+package com.santoch.optionpricing.montecarlo;
+
+import com.santoch.optionpricing.vanilla.BlackScholes;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Monte Carlo prices of path dependent options under Black-Scholes dynamics (exact lognormal steps between
+// equally spaced monitoring dates), on a ForkJoinPool.
+//
+// Paths are simulated in blocks of BLOCK_PATHS. Every block draws from its own SplittableRandom, seeded from the
+// engine seed and the block number, and adds its samples up into its own slot; the slots are then summed in block
+// order. The result is therefore bit for bit the same whatever the parallelism and whichever thread runs a block.
+// Blocks run in rounds of ROUND_BLOCKS and the standard error is checked after every round, so stopping early at
+// the target error does not depend on the thread count either.
+//
+// Inside a block paths are generated BATCH_PATHS at a time into one reusable per-thread array, one step for the
+// whole batch after the other, with no per-path objects.
+// With antithetic set every normal draw also drives a mirrored path and the pair average is one sample.
+// With controlVariate set the vanilla option with the payoff's type and strike is simulated on the same paths
+// and its error against BlackScholes.priceOption is removed with the regression coefficient estimated from the
+// samples themselves.
+public class MonteCarloEngine {
+    static final int BLOCK_PATHS = 4096;
+    static final int ROUND_BLOCKS = 16;
+    private static final int BATCH_PATHS = 64;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    // per block: samples, sum of payoffs, sum of squared payoffs, sum of controls, of squared controls, of products
+    private static final int SUMS = 6;
+    private static final BlackScholes s_blackScholes = new BlackScholes();
+    private static final ThreadLocal<double[]> s_paths = ThreadLocal.withInitial(() -> new double[0]);
+
+    private final ForkJoinPool pool;
+    private final long seed;
+    private final boolean antithetic;
+    private final boolean controlVariate;
+
+    public MonteCarloEngine(long seed) {
+        this(ForkJoinPool.commonPool(), seed, true, true);
+    }
+
+    public MonteCarloEngine(ForkJoinPool pool, long seed, boolean antithetic, boolean controlVariate) {
+        this.pool = pool;
+        this.seed = seed;
+        this.antithetic = antithetic;
+        this.controlVariate = controlVariate;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isAntithetic() {
+        return antithetic;
+    }
+
+    public boolean isControlVariate() {
+        return controlVariate;
+    }
+
+    // Simulates up to maxPaths paths (rounded up to whole blocks) of steps monitoring dates, stopping after the
+    // first round whose standard error is at most targetError (0 runs all of maxPaths).
+    public MonteCarloResult price(IPathPayoff payoff, double underlyingPrice, double timeRemaining,
+                                  double volatility, double interestRate, double dividendYield, int steps,
+                                  long maxPaths, double targetError) {
+        if (steps < 1) {
+            throw new InvalidParameterException("Invalid steps: " + steps);
+        }
+        if (maxPaths < 1) {
+            throw new InvalidParameterException("Invalid maxPaths: " + maxPaths);
+        }
+        if (!(timeRemaining > 0)) {
+            // nothing left to simulate
+            final double[] path = new double[steps + 1];
+            Arrays.fill(path, underlyingPrice);
+            return new MonteCarloResult(payoff.payoff(path, 0, steps), 0d, 0L);
+        }
+        final double dt = timeRemaining / steps;
+        final Job job = new Job(this, payoff, underlyingPrice, steps,
+                (interestRate - dividendYield - 0.5d * volatility * volatility) * dt, volatility * Math.sqrt(dt));
+        final double discount = Math.exp(-interestRate * timeRemaining);
+        final double control = controlVariate ? s_blackScholes.priceOption(payoff.getType(), underlyingPrice,
+                payoff.getStrike(), timeRemaining, volatility, interestRate, dividendYield) : 0d;
+        final long blocks = (maxPaths + BLOCK_PATHS - 1) / BLOCK_PATHS;
+        final double[] total = new double[SUMS];
+        MonteCarloResult result = null;
+        for (long first = 0; first < blocks; first += ROUND_BLOCKS) {
+            final int count = (int) Math.min(ROUND_BLOCKS, blocks - first);
+            pool.invoke(new BlockTask(job, first, 0, count));
+            for (int b = 0; b < count; b++) {
+                for (int i = 0; i < SUMS; i++) {
+                    total[i] += job.sums[b * SUMS + i];
+                }
+            }
+            result = result(total, discount, control);
+            if (result.getStandardError() <= targetError) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private MonteCarloResult result(double[] total, double discount, double control) {
+        final double n = total[0];
+        final double meanY = total[1] / n;
+        double varianceY = Math.max((total[2] - total[1] * meanY) / (n - 1), 0d);
+        double price = meanY;
+        if (controlVariate) {
+            final double meanC = total[3] / n;
+            final double varianceC = (total[4] - total[3] * meanC) / (n - 1);
+            final double covariance = (total[5] - total[1] * meanC) / (n - 1);
+            if (varianceC > 0) {
+                final double beta = covariance / varianceC;
+                // control is already discounted, the sums are not
+                price -= beta * (meanC - control / discount);
+                varianceY = Math.max(varianceY - covariance * beta, 0d);
+            }
+        }
+        return new MonteCarloResult(discount * price, discount * Math.sqrt(varianceY / n),
+                (long) n * (antithetic ? 2L : 1L));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    // everything one price() call shares between its block tasks
+    private static final class Job {
+        private final MonteCarloEngine engine;
+        private final IPathPayoff payoff;
+        private final double underlyingPrice;
+        private final int steps;
+        private final double drift;
+        private final double diffusion;
+        private final double[] sums = new double[ROUND_BLOCKS * SUMS];
+
+        Job(MonteCarloEngine engine, IPathPayoff payoff, double underlyingPrice, int steps, double drift,
+            double diffusion) {
+            this.engine = engine;
+            this.payoff = payoff;
+            this.underlyingPrice = underlyingPrice;
+            this.steps = steps;
+            this.drift = drift;
+            this.diffusion = diffusion;
+        }
+
+        // block is the number of the block in the whole run, slot its place in sums
+        void simulate(long block, int slot) {
+            final SplittableRandom random = new SplittableRandom(mix64(engine.seed + GOLDEN_GAMMA * (block + 1)));
+            final boolean antithetic = engine.antithetic;
+            final int width = steps + 1;
+            double[] paths = s_paths.get();
+            if (paths.length < BATCH_PATHS * width) {
+                paths = new double[BATCH_PATHS * width];
+                s_paths.set(paths);
+            }
+            final double sign = payoff.getType().getSign();
+            final double strike = payoff.getStrike();
+            final int stride = antithetic ? 2 : 1;
+            double samples = 0d, sumY = 0d, sumYY = 0d, sumC = 0d, sumCC = 0d, sumYC = 0d;
+            for (int batch = 0; batch < BLOCK_PATHS; batch += BATCH_PATHS) {
+                for (int p = 0; p < BATCH_PATHS; p++) {
+                    paths[p * width] = underlyingPrice;
+                }
+                for (int k = 1; k <= steps; k++) {
+                    for (int p = 0; p < BATCH_PATHS; p += stride) {
+                        final double z = random.nextGaussian();
+                        final int i = p * width + k;
+                        paths[i] = paths[i - 1] * Math.exp(drift + diffusion * z);
+                        if (antithetic) {
+                            paths[i + width] = paths[i + width - 1] * Math.exp(drift - diffusion * z);
+                        }
+                    }
+                }
+                for (int p = 0; p < BATCH_PATHS; p += stride) {
+                    final int offset = p * width;
+                    double y = payoff.payoff(paths, offset, steps);
+                    double c = Math.max(sign * (paths[offset + steps] - strike), 0d);
+                    if (antithetic) {
+                        y = 0.5d * (y + payoff.payoff(paths, offset + width, steps));
+                        c = 0.5d * (c + Math.max(sign * (paths[offset + width + steps] - strike), 0d));
+                    }
+                    samples++;
+                    sumY += y;
+                    sumYY += y * y;
+                    sumC += c;
+                    sumCC += c * c;
+                    sumYC += y * c;
+                }
+            }
+            final int at = slot * SUMS;
+            sums[at] = samples;
+            sums[at + 1] = sumY;
+            sums[at + 2] = sumYY;
+            sums[at + 3] = sumC;
+            sums[at + 4] = sumCC;
+            sums[at + 5] = sumYC;
+        }
+    }
+
+    // never serialized, ForkJoinTask is Serializable only for exception reporting
+    @SuppressWarnings("serial")
+    private static final class BlockTask extends RecursiveAction {
+        private final Job job;
+        private final long firstBlock;
+        private final int from;
+        private final int to;
+
+        BlockTask(Job job, long firstBlock, int from, int to) {
+            this.job = job;
+            this.firstBlock = firstBlock;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                job.simulate(firstBlock + from, from);
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            invokeAll(new BlockTask(job, firstBlock, from, mid), new BlockTask(job, firstBlock, mid, to));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.santoch.optionpricing.montecarlo;
+
+// Price and standard error of a MonteCarloEngine run. paths counts simulated paths, an antithetic pair is two.
+public class MonteCarloResult {
+    private final double price;
+    private final double standardError;
+    private final long paths;
+
+    public MonteCarloResult(double price, double standardError, long paths) {
+        this.price = price;
+        this.standardError = standardError;
+        this.paths = paths;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public double getStandardError() {
+        return standardError;
+    }
+
+    public long getPaths() {
+        return paths;
+    }
+}
@@ -0,0 +1,225 @@
+package com.santoch.optionpricing.util;
+
+import java.security.InvalidParameterException;
+import java.time.Instant;
+import java.time.InstantSource;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Annualized time to expiry (timeRemaining) for a set of registered expiries, without ZonedDateTime arithmetic
+// on the pricing path. Expiries are held as epoch nanos and get an int id; every refresh (on tick, at most once
+// per tickNanos, or scheduled) reads the clock once and recomputes each expiry's year fraction.
+//
+// timeRemaining(id) is the year fraction of the last refresh. timeRemaining(id, nowEpochNanos) is
+// (effectiveExpiry[id] - now) * yearsPerNano: one subtraction and one multiply. With CALENDAR_DAYS the
+// effective expiry is the expiry itself, so the result is exact at any time, on the 365 day basis of
+// Utils.timeBetween. With TRADING_DAYS only the days in zone that are neither weekend days nor holidays
+// count, on a 252 day basis. The effective expiry is then set at each refresh so that the formula matches
+// there, and between refreshes time runs at the trading rate, even over a weekend, until the next one
+// corrects it.
+public class ExpiryClock {
+    public enum Convention {
+        CALENDAR_DAYS,
+        TRADING_DAYS
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_DAY = 24L * 60L * 60L * NANOS_PER_SECOND;
+    private static final double CALENDAR_DAYS_PER_YEAR = 365d;
+    private static final double TRADING_DAYS_PER_YEAR = 252d;
+
+    private final InstantSource source;
+    private final long tickNanos;
+    private final Convention convention;
+    private final ZoneId zone;
+    // epoch days of the holidays, sorted
+    private final long[] holidays;
+    private final double yearsPerNano;
+    private long[] expiries = new long[16];
+    private int size;
+    private volatile State state = new State(Long.MIN_VALUE, new long[0], new double[0]);
+
+    // what one refresh computed, published as a whole
+    private static final class State {
+        private final long nowEpochNanos;
+        private final long[] effectiveExpiries;
+        private final double[] yearFractions;
+
+        State(long nowEpochNanos, long[] effectiveExpiries, double[] yearFractions) {
+            this.nowEpochNanos = nowEpochNanos;
+            this.effectiveExpiries = effectiveExpiries;
+            this.yearFractions = yearFractions;
+        }
+    }
+
+    public ExpiryClock(long tickNanos) {
+        this(InstantSource.system(), tickNanos, Convention.CALENDAR_DAYS, ZoneId.systemDefault(), null);
+    }
+
+    // holidays may be null, they only matter to TRADING_DAYS
+    public ExpiryClock(InstantSource source, long tickNanos, Convention convention, ZoneId zone,
+                       Collection<LocalDate> holidays) {
+        if (tickNanos <= 0) {
+            throw new InvalidParameterException("Invalid tickNanos: " + tickNanos);
+        }
+        this.source = source;
+        this.tickNanos = tickNanos;
+        this.convention = convention;
+        this.zone = zone;
+        this.holidays = holidays == null ? new long[0]
+                : holidays.stream().mapToLong(LocalDate::toEpochDay).sorted().distinct().toArray();
+        this.yearsPerNano = 1d / ((convention == Convention.CALENDAR_DAYS ? CALENDAR_DAYS_PER_YEAR
+                : TRADING_DAYS_PER_YEAR) * NANOS_PER_DAY);
+        refresh(toEpochNanos(source.instant()));
+    }
+
+    public Convention getConvention() {
+        return convention;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // the clock as of the last refresh, in place of ZonedDateTime.now()
+    public long getNowEpochNanos() {
+        return state.nowEpochNanos;
+    }
+
+    public static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    // registers an expiry and returns its id, ids count up from 0
+    public synchronized int addExpiry(long expiryEpochNanos) {
+        if (size == expiries.length) {
+            expiries = Arrays.copyOf(expiries, size * 2);
+        }
+        expiries[size] = expiryEpochNanos;
+        publish(state.nowEpochNanos, size + 1);
+        return size++;
+    }
+
+    public synchronized long getExpiry(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("expiry " + id + " of " + size);
+        }
+        return expiries[id];
+    }
+
+    // year fraction as of the last refresh
+    public double timeRemaining(int id) {
+        return state.yearFractions[id];
+    }
+
+    public double timeRemaining(int id, long nowEpochNanos) {
+        return (state.effectiveExpiries[id] - nowEpochNanos) * yearsPerNano;
+    }
+
+    // refreshes when at least tickNanos passed since the last refresh, true if it did
+    public boolean tick() {
+        final long now = toEpochNanos(source.instant());
+        if (now - state.nowEpochNanos < tickNanos) {
+            return false;
+        }
+        return refresh(now);
+    }
+
+    public void refresh() {
+        refresh(toEpochNanos(source.instant()));
+    }
+
+    // refreshes every tickNanos on executor until the future is cancelled
+    public ScheduledFuture<?> schedule(ScheduledExecutorService executor) {
+        return executor.scheduleAtFixedRate(this::refresh, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // the instant is read outside the lock, so a refresh may arrive after a later one and is then dropped
+    private synchronized boolean refresh(long nowEpochNanos) {
+        if (nowEpochNanos < state.nowEpochNanos) {
+            return false;
+        }
+        publish(nowEpochNanos, size);
+        return true;
+    }
+
+    private void publish(long nowEpochNanos, int count) {
+        final long[] effectiveExpiries = new long[count];
+        final double[] yearFractions = new double[count];
+        for (int i = 0; i < count; i++) {
+            final long nanos = convention == Convention.CALENDAR_DAYS ? expiries[i] - nowEpochNanos
+                    : tradingNanos(nowEpochNanos, expiries[i]);
+            effectiveExpiries[i] = nowEpochNanos + nanos;
+            yearFractions[i] = nanos * yearsPerNano;
+        }
+        state = new State(nowEpochNanos, effectiveExpiries, yearFractions);
+    }
+
+    // nanos of [from, to) that fall on trading days, negative when to is before from
+    private long tradingNanos(long from, long to) {
+        if (to < from) {
+            return -tradingNanos(to, from);
+        }
+        final long fromDay = localEpochDay(from), toDay = localEpochDay(to);
+        if (fromDay == toDay) {
+            return isTradingDay(fromDay) ? to - from : 0L;
+        }
+        long nanos = 0L;
+        if (isTradingDay(fromDay)) {
+            nanos += startOfDay(fromDay + 1) - from;
+        }
+        if (isTradingDay(toDay)) {
+            nanos += to - startOfDay(toDay);
+        }
+        return nanos + tradingDays(fromDay + 1, toDay) * NANOS_PER_DAY;
+    }
+
+    private long localEpochDay(long epochNanos) {
+        return LocalDate.ofInstant(Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND)), zone)
+                .toEpochDay();
+    }
+
+    private long startOfDay(long epochDay) {
+        return toEpochNanos(LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant());
+    }
+
+    private boolean isTradingDay(long epochDay) {
+        return isWeekday(epochDay) && Arrays.binarySearch(holidays, epochDay) < 0;
+    }
+
+    // 1970-01-01 was a Thursday
+    private static boolean isWeekday(long epochDay) {
+        return Math.floorMod(epochDay + 3, 7) < 5;
+    }
+
+    // trading days in [fromDay, toDay)
+    private long tradingDays(long fromDay, long toDay) {
+        if (toDay <= fromDay) {
+            return 0L;
+        }
+        final long days = toDay - fromDay;
+        long count = days / 7 * 5;
+        for (long day = fromDay + days / 7 * 7; day < toDay; day++) {
+            if (isWeekday(day)) {
+                count++;
+            }
+        }
+        int from = Arrays.binarySearch(holidays, fromDay);
+        from = from >= 0 ? from : -from - 1;
+        for (int i = from; i < holidays.length && holidays[i] < toDay; i++) {
+            if (isWeekday(holidays[i])) {
+                count--;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,236 @@
+package com.santoch.optionpricing.util;
+
+import com.santoch.optionpricing.common.IGreeks;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+// Column store for the greeks of a whole chain, one row per contract.
+// Rows are read and written through reusable Row views (IGreeks) or the column arrays directly,
+// update times are kept as epoch nanos and only turned into a ZonedDateTime when asked for one.
+public class GreeksBlock {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int size;
+    private final ZoneId zone;
+    private final double[] delta;
+    private final double[] gamma;
+    private final double[] theta;
+    private final double[] vega;
+    private final double[] rho;
+    private final double[] bidIv;
+    private final double[] midIv;
+    private final double[] askIv;
+    private final double[] smvVol;
+    private final long[] updateTimeNanos;
+
+    public GreeksBlock(int size) {
+        this(size, ZoneId.systemDefault());
+    }
+
+    public GreeksBlock(int size, ZoneId zone) {
+        this.size = size;
+        this.zone = zone;
+        this.delta = new double[size];
+        this.gamma = new double[size];
+        this.theta = new double[size];
+        this.vega = new double[size];
+        this.rho = new double[size];
+        this.bidIv = new double[size];
+        this.midIv = new double[size];
+        this.askIv = new double[size];
+        this.smvVol = new double[size];
+        this.updateTimeNanos = new long[size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // A view positioned on the first row, move it with Row.moveTo. Views are not thread safe,
+    // use one per thread.
+    public Row newRow() {
+        return new Row();
+    }
+
+    public Row row(int row) {
+        return new Row().moveTo(row);
+    }
+
+    public double[] getDelta() {
+        return delta;
+    }
+
+    public double[] getGamma() {
+        return gamma;
+    }
+
+    public double[] getTheta() {
+        return theta;
+    }
+
+    public double[] getVega() {
+        return vega;
+    }
+
+    public double[] getRho() {
+        return rho;
+    }
+
+    public double[] getBidIv() {
+        return bidIv;
+    }
+
+    public double[] getMidIv() {
+        return midIv;
+    }
+
+    public double[] getAskIv() {
+        return askIv;
+    }
+
+    public double[] getSmvVol() {
+        return smvVol;
+    }
+
+    public long[] getUpdateTimeNanos() {
+        return updateTimeNanos;
+    }
+
+    public static long toEpochNanos(ZonedDateTime time) {
+        return time.toEpochSecond() * NANOS_PER_SECOND + time.getNano();
+    }
+
+    public class Row implements IGreeks {
+        private int row;
+
+        private Row() {}
+
+        public Row moveTo(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("row " + row + " outside block of " + size);
+            }
+            this.row = row;
+            return this;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public long getUpdateTimeNanos() {
+            return updateTimeNanos[row];
+        }
+
+        public void setUpdateTimeNanos(long epochNanos) {
+            updateTimeNanos[row] = epochNanos;
+        }
+
+        @Override
+        public double getDelta() {
+            return delta[row];
+        }
+
+        @Override
+        public void setDelta(double delta) {
+            GreeksBlock.this.delta[row] = delta;
+        }
+
+        @Override
+        public double getGamma() {
+            return gamma[row];
+        }
+
+        @Override
+        public void setGamma(double gamma) {
+            GreeksBlock.this.gamma[row] = gamma;
+        }
+
+        @Override
+        public double getTheta() {
+            return theta[row];
+        }
+
+        @Override
+        public void setTheta(double theta) {
+            GreeksBlock.this.theta[row] = theta;
+        }
+
+        @Override
+        public double getVega() {
+            return vega[row];
+        }
+
+        @Override
+        public void setVega(double vega) {
+            GreeksBlock.this.vega[row] = vega;
+        }
+
+        @Override
+        public double getRho() {
+            return rho[row];
+        }
+
+        @Override
+        public void setRho(double rho) {
+            GreeksBlock.this.rho[row] = rho;
+        }
+
+        @Override
+        public double getBidIv() {
+            return bidIv[row];
+        }
+
+        @Override
+        public void setBidIv(double bid_iv) {
+            bidIv[row] = bid_iv;
+        }
+
+        @Override
+        public double getMidIv() {
+            return midIv[row];
+        }
+
+        @Override
+        public void setMidIv(double mid_iv) {
+            midIv[row] = mid_iv;
+        }
+
+        @Override
+        public double getAskIv() {
+            return askIv[row];
+        }
+
+        @Override
+        public void setAskIv(double ask_iv) {
+            askIv[row] = ask_iv;
+        }
+
+        @Override
+        public double getSmvVol() {
+            return smvVol[row];
+        }
+
+        @Override
+        public void setSmvVol(double smv_vol) {
+            smvVol[row] = smv_vol;
+        }
+
+        @Override
+        public ZonedDateTime getUpdateTime() {
+            final long nanos = updateTimeNanos[row];
+            return ZonedDateTime.ofInstant(Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                    Math.floorMod(nanos, NANOS_PER_SECOND)), zone);
+        }
+
+        @Override
+        public void setUpdateTime(ZonedDateTime update_time) {
+            updateTimeNanos[row] = toEpochNanos(update_time);
+        }
+    }
+}
@@ -5,15 +5,19 @@ package com.santoch.optionpricing.util;
 // http://mathworld.wolfram.com/RegularizedGammaFunction.html
 // http://mathworld.wolfram.com/Erf.html
 // https://introcs.cs.princeton.edu/java/21function/ErrorFunction.java.html
+// W. J. Cody, "Rational Chebyshev Approximations for the Error Function", Math. Comp. 23 (1969)
+// https://web.archive.org/web/20151030215612/http://home.online.no/~pjacklam/notes/invnorm/
 
 public class NormalDistribution {
-    private static final double TOO_MANY_DEVIATIONS = 8d; // Apache commons Math uses 40.
+    private static final double TOO_MANY_DEVIATIONS = 38d; // the cdf underflows below -37.5, Apache commons Math uses 40.
     private final double mean;
     private final double standardDeviation;
     private final double stdDevSqrtTwoPi;
     private final double twoSigmaSquared;
-    private final double sqrt2 = Math.sqrt(2.0d);
     private static final NormalDistribution standard = new NormalDistribution();
+    private static final double SQRT2 = Math.sqrt(2.0d);
+    private static final double SQRT32 = Math.sqrt(32.0d);
+    private static final double ONE_OVER_SQRT_TWO_PI = 1.0d / Constants.SQRT_TWOPI;
 
     public NormalDistribution(double mean, double standardDeviation) {
         this.mean = mean;
@@ -31,23 +35,84 @@ public class NormalDistribution {
     }
 
     public static double errorFunction(double z) {
-        double t = 1.0 / (1.0 + 0.5 * Math.abs(z));
-
-        // use Horner's method
-        double ans = 1 - t * Math.exp(-z * z - 1.26551223 +
-                                      t * (1.00002368 +
-                                      t * (0.37409196 +
-                                      t * (0.09678418 +
-                                      t * (-0.18628806 +
-                                      t * (0.27886807 +
-                                      t * (-1.13520398 +
-                                      t * (1.48851587 +
-                                      t * (-0.82215223 +
-                                      t * (0.17087277))))))))));
+        final double ans = 1 - 2 * standardCdf(-Math.abs(z) * SQRT2);
         if (z >= 0) return ans;
         else return -ans;
     }
 
+    // Cody's rational Chebyshev approximations: no exp() at all within 0.67 deviations, otherwise one exp()
+    // times a rational function of |z|. Accurate to a few ulps, ~1e-13 relative in the far tail where
+    // exp(-z*z/2) has the rounding of z*z in its argument.
+    private static double standardCdf(double z) {
+        final double y = Math.abs(z);
+        if (y <= 0.67448975) {
+            final double zsq = z * z;
+            final double num = (((0.065682337918207449113 * zsq + 2.2352520354606839287) * zsq
+                                 + 161.02823106855587881) * zsq + 1067.6894854603709582) * zsq
+                               + 18154.981253343561249;
+            final double den = (((zsq + 47.20258190468824187) * zsq + 976.09855173777669322) * zsq
+                                + 10260.932208618978205) * zsq + 45507.789335026729956;
+            return 0.5 + z * num / den;
+        }
+        double tail;
+        if (y <= SQRT32) {
+            final double num = (((((((1.0765576773720192317e-8 * y + 0.39894151208813466764) * y
+                                     + 8.8831497943883759412) * y + 93.506656132177855979) * y
+                                   + 597.27027639480026226) * y + 2494.5375852903726711) * y
+                                 + 6848.1904505362823326) * y + 11602.651437647350124) * y
+                               + 9842.7148383839780218;
+            final double den = (((((((y + 22.266688044328115691) * y + 235.38790178262499861) * y
+                                    + 1519.377599407554805) * y + 6485.558298266760755) * y
+                                  + 18615.571640885098091) * y + 34900.952721145977266) * y
+                                + 38912.003286093271411) * y + 19685.429676859990727;
+            tail = num / den;
+        } else {
+            final double ysq = 1 / (y * y);
+            final double num = ((((0.02307344176494017303 * ysq + 0.21589853405795699) * ysq
+                                  + 0.1274011611602473639) * ysq + 0.022235277870649807) * ysq
+                                + 0.001421619193227893466) * ysq + 2.9112874951168792e-5;
+            final double den = ((((ysq + 1.28426009614491121) * ysq + 0.468238212480865118) * ysq
+                                 + 0.0659881378689285515) * ysq + 0.00378239633202758244) * ysq
+                               + 7.29751555083966205e-5;
+            tail = (ONE_OVER_SQRT_TWO_PI - ysq * num / den) / y;
+        }
+        tail *= Math.exp(-0.5 * y * y);
+        return z > 0 ? 1 - tail : tail;
+    }
+
+    // Acklam's rational approximation (~1e-9 relative) refined by one Halley step against the cdf above,
+    // which brings it to full double precision.
+    private static double standardInverseCdf(double p) {
+        if (!(p > 0)) {
+            return p == 0 ? Double.NEGATIVE_INFINITY : Double.NaN;
+        } else if (!(p < 1)) {
+            return p == 1 ? Double.POSITIVE_INFINITY : Double.NaN;
+        }
+        final double pLow = 0.02425;
+        double x;
+        if (p < pLow || p > 1 - pLow) {
+            final double q = Math.sqrt(-2 * Math.log(p < pLow ? p : 1 - p));
+            x = (((((-7.784894002430293e-03 * q - 3.223964580411365e-01) * q - 2.400758277161838e+00) * q
+                   - 2.549732539343734e+00) * q + 4.374664141464968e+00) * q + 2.938163982698783e+00)
+                / ((((7.784695709041462e-03 * q + 3.224671290700398e-01) * q + 2.445134137142996e+00) * q
+                    + 3.754408661907416e+00) * q + 1);
+            if (p > pLow) {
+                x = -x;
+            }
+        } else {
+            final double q = p - 0.5;
+            final double r = q * q;
+            x = (((((-3.969683028665376e+01 * r + 2.209460984245205e+02) * r - 2.759285104469687e+02) * r
+                   + 1.383577518672690e+02) * r - 3.066479806614716e+01) * r + 2.506628277459239e+00) * q
+                / (((((-5.447609879822406e+01 * r + 1.615858368580409e+02) * r - 1.556989798598866e+02) * r
+                     + 6.680131188771972e+01) * r - 1.328068155288572e+01) * r + 1);
+        }
+        // the error in the upper half is measured on the complement to keep its relative precision
+        final double e = x > 0 ? (1 - p) - standardCdf(-x) : standardCdf(x) - p;
+        final double u = e * Constants.SQRT_TWOPI * Math.exp(0.5 * x * x);
+        return x - u / (1 + 0.5 * x * u);
+    }
+
     public double pdf(double x) {
         double expon;
         if (mean == 0d) {
@@ -63,9 +128,12 @@ public class NormalDistribution {
         if (Math.abs(distFromMean) > TOO_MANY_DEVIATIONS * standardDeviation) {
             return x < mean ? 0.0d : 1.0d;
         }
+        return standardCdf(distFromMean / standardDeviation);
+    }
 
-        double errf = errorFunction(distFromMean / (standardDeviation * sqrt2));
-        return 0.5d * (1.0 + errf);
+    // x with cdf(x) == p, NaN outside [0, 1]
+    public double inverseCdf(double p) {
+        return mean + standardDeviation * standardInverseCdf(p);
     }
 
     public double getMean() {
@@ -92,11 +160,22 @@ public class NormalDistribution {
         }
 
         public static double cdf(double x) {
-            return STD_NORM.cdf(x);
+            if (Math.abs(x) > TOO_MANY_DEVIATIONS) {
+                return x < 0 ? 0.0d : 1.0d;
+            }
+            return standardCdf(x);
         }
 
         public static double cdf(double x, double mean, double standardDeviation) {
-            return STD_NORM.cdf(((x - mean) / standardDeviation));
+            return cdf(((x - mean) / standardDeviation));
+        }
+
+        public static double inverseCdf(double p) {
+            return standardInverseCdf(p);
+        }
+
+        public static double inverseCdf(double p, double mean, double standardDeviation) {
+            return mean + standardDeviation * standardInverseCdf(p);
         }
     }
 }
@@ -0,0 +1,45 @@
+package com.santoch.optionpricing.util;
+
+// Result holder for IFusedGreeksModel, meant to be reused between calls.
+public class PriceAndGreeks {
+    private double price;
+    private double delta;
+    private double gamma;
+    private double theta;
+    private double vega;
+    private double rho;
+
+    public PriceAndGreeks set(double price, double delta, double gamma, double theta, double vega, double rho) {
+        this.price = price;
+        this.delta = delta;
+        this.gamma = gamma;
+        this.theta = theta;
+        this.vega = vega;
+        this.rho = rho;
+        return this;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public double getGamma() {
+        return gamma;
+    }
+
+    public double getTheta() {
+        return theta;
+    }
+
+    public double getVega() {
+        return vega;
+    }
+
+    public double getRho() {
+        return rho;
+    }
+}
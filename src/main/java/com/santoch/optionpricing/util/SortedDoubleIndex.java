@@ -0,0 +1,87 @@
+package com.santoch.optionpricing.util;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+// Sorted double[] (strikes, moneyness, ...) with floor, ceiling and nearest lookups that neither box nor
+// allocate. Lookups return indexes into the sorted values, -1 when there is none. Nearest breaks ties towards
+// the larger value, as Utils.findClosestValue does.
+public class SortedDoubleIndex {
+    private final double[] values;
+
+    // copies and sorts values, which must not contain NaN
+    public SortedDoubleIndex(double[] values) {
+        this.values = values.clone();
+        for (double value : this.values) {
+            if (Double.isNaN(value)) {
+                throw new InvalidParameterException("NaN value");
+            }
+        }
+        Arrays.sort(this.values);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    // largest value <= target
+    public int floorIndex(double target) {
+        final int found = Arrays.binarySearch(values, target);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    // smallest value >= target
+    public int ceilingIndex(double target) {
+        final int found = Arrays.binarySearch(values, target);
+        if (found >= 0) {
+            return found;
+        }
+        final int insertion = -found - 1;
+        return insertion < values.length ? insertion : -1;
+    }
+
+    public int nearestIndex(double target) {
+        return nearest(floorIndex(target), target);
+    }
+
+    // the nearest value, NaN when empty
+    public double nearest(double target) {
+        final int index = nearestIndex(target);
+        return index < 0 ? Double.NaN : values[index];
+    }
+
+    // out[i] = nearestIndex(targets[i]) for i in [offset, offset + length). With ascending targets this is a
+    // single merge walk over both arrays; a target smaller than the one before it is binary searched instead.
+    public void nearestIndices(double[] targets, int[] out, int offset, int length) {
+        final int end = offset + length;
+        int floor = -1;
+        double previous = Double.NEGATIVE_INFINITY;
+        for (int i = offset; i < end; i++) {
+            final double target = targets[i];
+            if (target < previous) {
+                floor = floorIndex(target);
+            } else {
+                while (floor + 1 < values.length && values[floor + 1] <= target) {
+                    floor++;
+                }
+            }
+            previous = target;
+            out[i] = nearest(floor, target);
+        }
+    }
+
+    // nearest of the floor and the value after it
+    private int nearest(int floor, double target) {
+        final int ceiling = floor + 1;
+        if (ceiling >= values.length) {
+            return floor;
+        } else if (floor < 0 || values[floor] == target) {
+            return floor < 0 ? ceiling : floor;
+        }
+        return target - values[floor] < values[ceiling] - target ? floor : ceiling;
+    }
+}
@@ -0,0 +1,75 @@
+package com.santoch.optionpricing.util;
+
+import java.util.Arrays;
+
+// Sorted long[] (expiries as epoch millis, as in OptionChainStore) with floor, ceiling and nearest lookups
+// that neither box nor allocate. Lookups return indexes into the sorted values, -1 when there is none.
+// Nearest breaks ties towards the later value, as Utils.findClosestExpiration does.
+public class SortedLongIndex {
+    private final long[] values;
+
+    // copies and sorts values
+    public SortedLongIndex(long[] values) {
+        this.values = values.clone();
+        Arrays.sort(this.values);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    // largest value <= target
+    public int floorIndex(long target) {
+        final int found = Arrays.binarySearch(values, target);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    // smallest value >= target
+    public int ceilingIndex(long target) {
+        final int found = Arrays.binarySearch(values, target);
+        if (found >= 0) {
+            return found;
+        }
+        final int insertion = -found - 1;
+        return insertion < values.length ? insertion : -1;
+    }
+
+    public int nearestIndex(long target) {
+        return nearest(floorIndex(target), target);
+    }
+
+    // out[i] = nearestIndex(targets[i]) for i in [offset, offset + length). With ascending targets this is a
+    // single merge walk over both arrays; a target smaller than the one before it is binary searched instead.
+    public void nearestIndices(long[] targets, int[] out, int offset, int length) {
+        final int end = offset + length;
+        int floor = -1;
+        long previous = Long.MIN_VALUE;
+        for (int i = offset; i < end; i++) {
+            final long target = targets[i];
+            if (target < previous) {
+                floor = floorIndex(target);
+            } else {
+                while (floor + 1 < values.length && values[floor + 1] <= target) {
+                    floor++;
+                }
+            }
+            previous = target;
+            out[i] = nearest(floor, target);
+        }
+    }
+
+    // nearest of the floor and the value after it
+    private int nearest(int floor, long target) {
+        final int ceiling = floor + 1;
+        if (ceiling >= values.length) {
+            return floor;
+        } else if (floor < 0 || values[floor] == target) {
+            return floor < 0 ? ceiling : floor;
+        }
+        return target - values[floor] < values[ceiling] - target ? floor : ceiling;
+    }
+}
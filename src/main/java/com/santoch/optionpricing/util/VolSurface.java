@@ -0,0 +1,207 @@
+package com.santoch.optionpricing.util;
+
+import com.santoch.optionpricing.common.IGreeks;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+// Implied volatility surface of one underlying, in log-moneyness ln(strike / underlyingPrice) and time
+// (annualized, like timeRemaining), held in primitive arrays.
+// Points are grouped into expiry slices, each with its own ascending moneyness grid, so the scattered
+// strikes of a real chain need no resampling. A lookup binary searches the expiry, interpolates linearly in
+// moneyness on the two neighbouring slices (flat beyond their first and last point), then in time:
+// BILINEAR on the volatility itself, TOTAL_VARIANCE on volatility^2 * time, which keeps the total variance
+// of a calendar monotone when the slices are. Before the first and after the last expiry the volatility of
+// the nearest slice is used.
+public class VolSurface {
+    public enum Interpolation {
+        BILINEAR,
+        TOTAL_VARIANCE
+    }
+
+    private final Interpolation interpolation;
+    private final double[] times;
+    // slice i holds points [sliceStart[i], sliceStart[i + 1])
+    private final int[] sliceStart;
+    private final double[] moneyness;
+    private final double[] volatilities;
+
+    // Builds the surface from length scattered points. Points that are not strictly positive and finite are
+    // skipped, points sharing a time and strike (a call and a put) are averaged.
+    public VolSurface(Interpolation interpolation, double underlyingPrice, double[] timeRemaining,
+                      double[] strikePrices, double[] volatilities, int length) {
+        if (length < 0 || timeRemaining.length < length || strikePrices.length < length
+            || volatilities.length < length) {
+            throw new InvalidParameterException("Invalid length: " + length);
+        } else if (!(underlyingPrice > 0)) {
+            throw new InvalidParameterException("Invalid underlyingPrice: " + underlyingPrice);
+        }
+        this.interpolation = interpolation;
+
+        // the usable points and their distinct times and strikes, ascending
+        final int[] usable = new int[length];
+        final double[] distinctTimes = new double[length];
+        final double[] distinctStrikes = new double[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            final double v = volatilities[i];
+            if (v > 0 && v < Double.POSITIVE_INFINITY && timeRemaining[i] > 0 && strikePrices[i] > 0) {
+                distinctTimes[count] = timeRemaining[i];
+                distinctStrikes[count] = strikePrices[i];
+                usable[count++] = i;
+            }
+        }
+        if (count == 0) {
+            throw new InvalidParameterException("No usable volatility");
+        }
+        final int timeCount = sortDistinct(distinctTimes, count);
+        final int strikeCount = sortDistinct(distinctStrikes, count);
+
+        // order the points by strike through packed (strike rank, index) keys, then stably by time rank
+        final long[] keys = new long[count];
+        for (int j = 0; j < count; j++) {
+            final int index = usable[j];
+            keys[j] = (long) Arrays.binarySearch(distinctStrikes, 0, strikeCount, strikePrices[index]) << 32 | index;
+        }
+        Arrays.sort(keys);
+        final int[] timeRank = new int[length];
+        final int[] bucket = new int[timeCount + 1];
+        for (int j = 0; j < count; j++) {
+            final int index = usable[j];
+            timeRank[index] = Arrays.binarySearch(distinctTimes, 0, timeCount, timeRemaining[index]);
+            bucket[timeRank[index] + 1]++;
+        }
+        for (int i = 0; i < timeCount; i++) {
+            bucket[i + 1] += bucket[i];
+        }
+        final int[] order = new int[count];
+        for (long key : keys) {
+            final int index = (int) key;
+            order[bucket[timeRank[index]]++] = index;
+        }
+
+        final double[] sortedTimes = new double[count];
+        final int[] starts = new int[count + 1];
+        final double[] points = new double[count];
+        final double[] vols = new double[count];
+        int slices = 0, size = 0, duplicates = 0;
+        double lastTime = Double.NaN, lastStrike = Double.NaN;
+        for (int index : order) {
+            final double t = timeRemaining[index], k = strikePrices[index];
+            if (t != lastTime) {
+                sortedTimes[slices] = t;
+                starts[slices++] = size;
+            } else if (k == lastStrike) {
+                // running mean of the points at the same strike
+                vols[size - 1] += (volatilities[index] - vols[size - 1]) / (++duplicates + 1);
+                continue;
+            }
+            duplicates = 0;
+            points[size] = Math.log(k / underlyingPrice);
+            vols[size++] = volatilities[index];
+            lastTime = t;
+            lastStrike = k;
+        }
+        starts[slices] = size;
+        this.times = Arrays.copyOf(sortedTimes, slices);
+        this.sliceStart = Arrays.copyOf(starts, slices + 1);
+        this.moneyness = Arrays.copyOf(points, size);
+        this.volatilities = Arrays.copyOf(vols, size);
+    }
+
+    // The surface of the smv volatilities of greeks, as filled by Utils.greeks, one per strikePrices and
+    // timeRemaining entry.
+    public static VolSurface fromGreeks(Interpolation interpolation, double underlyingPrice, double[] timeRemaining,
+                                        double[] strikePrices, IGreeks[] greeks) {
+        final double[] vols = new double[greeks.length];
+        for (int i = 0; i < greeks.length; i++) {
+            vols[i] = greeks[i].getSmvVol();
+        }
+        return new VolSurface(interpolation, underlyingPrice, timeRemaining, strikePrices, vols, greeks.length);
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    public int expiryCount() {
+        return times.length;
+    }
+
+    public int size() {
+        return moneyness.length;
+    }
+
+    public double volatility(double underlyingPrice, double strikePrice, double timeRemaining) {
+        final double k = Math.log(strikePrice / underlyingPrice);
+        return volatility(k, timeRemaining, timeIndex(timeRemaining));
+    }
+
+    // out[i] = volatility(underlyingPrice, strikePrices[i], timeRemaining[i]) for i in [offset, offset + length).
+    // Chains are usually grouped by expiry, so the expiry search is skipped while the time does not change.
+    public void volatilities(double underlyingPrice, double[] strikePrices, double[] timeRemaining, double[] out,
+                             int offset, int length) {
+        final double logUnderlying = Math.log(underlyingPrice);
+        double lastTime = Double.NaN;
+        int index = 0;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final double t = timeRemaining[i];
+            if (t != lastTime) {
+                index = timeIndex(t);
+                lastTime = t;
+            }
+            out[i] = volatility(Math.log(strikePrices[i]) - logUnderlying, t, index);
+        }
+    }
+
+    // last slice with a time <= t, -1 before the first
+    private int timeIndex(double t) {
+        final int found = Arrays.binarySearch(times, t);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private double volatility(double k, double t, int index) {
+        if (index < 0) {
+            return sliceVolatility(0, k);
+        } else if (index >= times.length - 1 || t == times[index]) {
+            return sliceVolatility(index, k);
+        }
+        final double t0 = times[index], t1 = times[index + 1];
+        final double v0 = sliceVolatility(index, k), v1 = sliceVolatility(index + 1, k);
+        final double weight = (t - t0) / (t1 - t0);
+        if (interpolation == Interpolation.BILINEAR) {
+            return v0 + (v1 - v0) * weight;
+        }
+        final double w0 = v0 * v0 * t0, w1 = v1 * v1 * t1;
+        return Math.sqrt((w0 + (w1 - w0) * weight) / t);
+    }
+
+    private double sliceVolatility(int slice, double k) {
+        final int from = sliceStart[slice], to = sliceStart[slice + 1];
+        if (k <= moneyness[from]) {
+            return volatilities[from];
+        } else if (k >= moneyness[to - 1]) {
+            return volatilities[to - 1];
+        }
+        final int found = Arrays.binarySearch(moneyness, from, to, k);
+        if (found >= 0) {
+            return volatilities[found];
+        }
+        final int upper = -found - 1, lower = upper - 1;
+        final double weight = (k - moneyness[lower]) / (moneyness[upper] - moneyness[lower]);
+        return volatilities[lower] + (volatilities[upper] - volatilities[lower]) * weight;
+    }
+
+    // sorts values[0, length) and moves its distinct values to the front, returning their number
+    private static int sortDistinct(double[] values, int length) {
+        Arrays.sort(values, 0, length);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinct == 0 || values[i] != values[distinct - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return distinct;
+    }
+}
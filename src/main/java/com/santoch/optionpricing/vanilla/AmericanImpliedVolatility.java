@@ -0,0 +1,74 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.util.Constants;
+
+// Safeguarded Newton/secant search for the implied volatility of an American model.
+// The early exercise premium is small, so the European (Black-Scholes) implied volatility of the same price
+// is a close starting point (not a bound: approximations such as Bjerksund-Stensland can price below the
+// European value). The first step uses the analytic European vega, later steps the secant slope of the last
+// two reprices; any step leaving the bracket is replaced by bisection, or by growing the volatility while
+// no price above the target has been seen.
+// Every call costs at most MAX_ITERATIONS reprices, NaN is returned when that does not converge.
+final class AmericanImpliedVolatility {
+    static final int MAX_ITERATIONS = 32;
+    private static final double MAX_VOLATILITY = 10d;
+    static final double TOLERANCE = Constants.IV_PRECISION / 100d;
+    private static final BlackScholes s_europeanModel = new BlackScholes(BlackScholes.IvSolver.LETS_BE_RATIONAL);
+
+    // cannot instantiate
+    private AmericanImpliedVolatility() {}
+
+    static double solve(IOptionModel model, OptionType type, double optionPrice, double underlyingPrice,
+                        double strikePrice, double timeRemaining, double initialVolatility, double interestRate,
+                        double dividendYield) {
+        if (!(timeRemaining > 0) || !(optionPrice > 0)) {
+            return Double.NaN;
+        }
+        double lower = 0d, upper = MAX_VOLATILITY;
+        boolean upperKnown = false;
+        double v = s_europeanModel.impliedVolatility(type, optionPrice, underlyingPrice, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield);
+        if (!(v > 0 && v < MAX_VOLATILITY)) {
+            v = initialVolatility > 0d && initialVolatility < MAX_VOLATILITY ? initialVolatility : 0.5d;
+        }
+        double slope = s_europeanModel.vega(type, underlyingPrice, strikePrice, timeRemaining, v, interestRate,
+                dividendYield) / 0.01;
+        double previousV = Double.NaN, previousDiff = Double.NaN;
+
+        for (int n = 0; n < MAX_ITERATIONS; n++) {
+            final double diff = model.priceOption(type, underlyingPrice, strikePrice, timeRemaining, v,
+                    interestRate, dividendYield) - optionPrice;
+            if (diff == 0d) {
+                return v;
+            } else if (diff > 0) {
+                upper = v;
+                upperKnown = true;
+            } else {
+                lower = v;
+            }
+            if (!Double.isNaN(previousV) && v != previousV) {
+                slope = (diff - previousDiff) / (v - previousV);
+            }
+            previousV = v;
+            previousDiff = diff;
+
+            double next = v - diff / slope;
+            if (slope > 0 && next > lower && next < upper) {
+                if (Math.abs(next - v) < TOLERANCE) {
+                    return next;
+                }
+            } else {
+                // without an upper bound yet, grow the search instead of bisecting towards MAX_VOLATILITY
+                next = upperKnown ? 0.5d * (lower + upper) : Math.min(2d * v, 0.5d * (v + MAX_VOLATILITY));
+            }
+            if (upper - lower < TOLERANCE) {
+                // the bracket collapsed onto a point with no solution, e.g. at the volatility floor or cap
+                return lower > 0d && upper < MAX_VOLATILITY ? next : Double.NaN;
+            }
+            v = next;
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,408 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.IFusedGreeksModel;
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+
+import java.security.InvalidParameterException;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.santoch.optionpricing.util.NormalDistribution.StandardNormal.cdf;
+import static com.santoch.optionpricing.util.NormalDistribution.StandardNormal.pdf;
+
+// Barone-Adesi and Whaley (1987) quadratic approximation of American options: the Black-Scholes price plus an
+// early exercise premium A (S / S*)^q below the critical price S* (above it for a put), the intrinsic value
+// beyond it. Cheaper than Bjerksund-Stensland once S* is known: one Black-Scholes price and one pow.
+//
+// S* comes from a Newton iteration, bisecting whenever a step leaves the bracket the residuals so far allow.
+// Prices are homogeneous in underlying and strike, so S* / K and A / K only depend on (type, time remaining,
+// volatility, rate, dividend yield) and are cached under that key: every strike of an expiry priced with the
+// same volatility shares one iteration, and a non-finite result is never cached. The cache is a fixed number of
+// slots holding one immutable entry each, as in ImpliedVolatilityCache, so a colliding key only costs an
+// iteration.
+// Delta and gamma are analytic, vega, theta and rho central bumps of the price.
+public class BaroneAdesiWhaley implements IOptionModel, IFusedGreeksModel {
+    private static final BlackScholes s_blackScholes = new BlackScholes();
+    private static final int MAX_ITERATIONS = 100;
+    // on the value matching condition, relative to the strike
+    private static final double CRITICAL_PRECISION = 1e-10d;
+    private static final double VOLATILITY_BUMP = 0.0001d;
+    private static final double RATE_BUMP = 0.0001d;
+    private static final double TIME_BUMP = 0.0001d;
+
+    private final AtomicReferenceArray<CriticalPrice> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public BaroneAdesiWhaley() {
+        this(1024);
+    }
+
+    // cacheCapacity is rounded up to a power of two, 0 solves for the critical price on every call
+    public BaroneAdesiWhaley(int cacheCapacity) {
+        if (cacheCapacity < 0 || cacheCapacity > (1 << 30)) {
+            throw new InvalidParameterException("Invalid cacheCapacity: " + cacheCapacity);
+        }
+        final int size = cacheCapacity <= 1 ? cacheCapacity : Integer.highestOneBit(cacheCapacity - 1) << 1;
+        this.slots = size == 0 ? null : new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public int getCacheCapacity() {
+        return slots == null ? 0 : slots.length();
+    }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    public double priceOption(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : priceOption(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0) {
+            return Math.max(type.getSign() * (underlyingPrice - strikePrice), 0d);
+        }
+        final double european = s_blackScholes.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+        if (isEuropean(type, interestRate, dividendYield)) {
+            return european;
+        }
+        final CriticalPrice critical = critical(type, timeRemaining, volatility, interestRate, dividendYield);
+        final double moneyness = underlyingPrice / (strikePrice * critical.ratio);
+        if (critical.isExercised(type, moneyness)) {
+            return type.getSign() * (underlyingPrice - strikePrice);
+        }
+        return european + strikePrice * critical.coefficient * Math.pow(moneyness, critical.exponent);
+    }
+
+    // early exercise is never optimal: a call without dividends, a put without interest
+    private static boolean isEuropean(OptionType type, double interestRate, double dividendYield) {
+        return type == OptionType.CALL ? dividendYield <= 0 : interestRate <= 0;
+    }
+
+    public double delta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : delta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double delta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final double delta = s_blackScholes.delta(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate, dividendYield);
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return delta;
+        }
+        final CriticalPrice critical = critical(type, timeRemaining, volatility, interestRate, dividendYield);
+        final double moneyness = underlyingPrice / (strikePrice * critical.ratio);
+        if (critical.isExercised(type, moneyness)) {
+            return type.getSign();
+        }
+        return delta + strikePrice * critical.coefficient * critical.exponent
+                       * Math.pow(moneyness, critical.exponent) / underlyingPrice;
+    }
+
+    // the interface gamma has no type, this is the gamma of the call, priceAndGreeks gives the put's as well
+    public double gamma(double underlyingPrice, double strikePrice, double timeRemaining, double volatility,
+                        double interestRate, double dividendYield) {
+        return gamma(OptionType.CALL, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    private double gamma(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                         double volatility, double interestRate, double dividendYield) {
+        final double gamma = s_blackScholes.gamma(underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate, dividendYield);
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return gamma;
+        }
+        final CriticalPrice critical = critical(type, timeRemaining, volatility, interestRate, dividendYield);
+        final double moneyness = underlyingPrice / (strikePrice * critical.ratio);
+        if (critical.isExercised(type, moneyness)) {
+            return 0d;
+        }
+        return gamma + strikePrice * critical.coefficient * critical.exponent * (critical.exponent - 1)
+                       * Math.pow(moneyness, critical.exponent) / (underlyingPrice * underlyingPrice);
+    }
+
+    public double vega(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : vega(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double vega(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.vega(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+        final double up = priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility + VOLATILITY_BUMP, interestRate, dividendYield);
+        final double down = priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility - VOLATILITY_BUMP, interestRate, dividendYield);
+        return (up - down) / (2 * VOLATILITY_BUMP) * 0.01;
+    }
+
+    public double theta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : theta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double theta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.theta(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+        // one sided close to expiry
+        final double bump = Math.min(TIME_BUMP, 0.5d * timeRemaining);
+        final double later = priceOption(type, underlyingPrice, strikePrice, timeRemaining + bump, volatility,
+                interestRate, dividendYield);
+        final double earlier = bump < TIME_BUMP
+                ? priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield)
+                : priceOption(type, underlyingPrice, strikePrice, timeRemaining - bump, volatility, interestRate,
+                dividendYield);
+        return -(later - earlier) / (bump < TIME_BUMP ? bump : 2 * bump) / 365;
+    }
+
+    public double rho(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : rho(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double rho(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.rho(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+        final double up = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate + RATE_BUMP, dividendYield);
+        final double down = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate - RATE_BUMP, dividendYield);
+        return (up - down) / (2 * RATE_BUMP) * 0.01;
+    }
+
+    @Override
+    public PriceAndGreeks priceAndGreeks(OptionType type, double underlyingPrice, double strikePrice,
+                                         double timeRemaining, double volatility, double interestRate,
+                                         double dividendYield, PriceAndGreeks result) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.priceAndGreeks(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield, result);
+        }
+        return result.set(
+                priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                        dividendYield),
+                delta(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield),
+                gamma(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield),
+                theta(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield),
+                vega(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield),
+                rho(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield));
+    }
+
+    public double impliedVolatility(String type, double optionPrice, double underlyingPrice, double strikePrice,
+                                    double timeRemaining, double initialVolatility, double interestRate,
+                                    double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? Double.NaN : impliedVolatility(optionType, optionPrice, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double impliedVolatility(OptionType type, double optionPrice, double underlyingPrice,
+                                    double strikePrice, double timeRemaining, double initialVolatility,
+                                    double interestRate, double dividendYield) {
+        return AmericanImpliedVolatility.solve(this, type, optionPrice, underlyingPrice, strikePrice,
+                timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double impliedVolatilityStep() {
+        return AmericanImpliedVolatility.TOLERANCE;
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, OptionType type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, String type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
+    private CriticalPrice critical(OptionType type, double timeRemaining, double volatility, double interestRate,
+                                   double dividendYield) {
+        if (slots == null) {
+            return solve(type, timeRemaining, volatility, interestRate, dividendYield);
+        }
+        final int slot = slot(type, timeRemaining, volatility, interestRate, dividendYield);
+        CriticalPrice critical = slots.get(slot);
+        if (critical != null && critical.matches(type, timeRemaining, volatility, interestRate, dividendYield)) {
+            hits.increment();
+            return critical;
+        }
+        misses.increment();
+        critical = solve(type, timeRemaining, volatility, interestRate, dividendYield);
+        if (critical.isFinite()) {
+            slots.set(slot, critical);
+        }
+        return critical;
+    }
+
+    private int slot(OptionType type, double timeRemaining, double volatility, double interestRate,
+                     double dividendYield) {
+        long h = Double.doubleToLongBits(timeRemaining) * 0x9E3779B97F4A7C15L;
+        h = (h ^ Double.doubleToLongBits(volatility)) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ Double.doubleToLongBits(interestRate)) * 0x165667B19E3779F9L;
+        h = (h ^ Double.doubleToLongBits(dividendYield)) * 0x9E3779B97F4A7C15L;
+        h ^= type.ordinal();
+        h ^= (h >>> 29);
+        return (int) h & mask;
+    }
+
+    // Newton iteration on the value matching condition at the critical price, for a strike of 1, from the
+    // starting point of Barone-Adesi and Whaley
+    private static CriticalPrice solve(OptionType type, double timeRemaining, double volatility,
+                                       double interestRate, double dividendYield) {
+        final double costOfCarry = interestRate - dividendYield;
+        final double v2 = volatility * volatility;
+        final double vt = volatility * Math.sqrt(timeRemaining);
+        final double carry = Math.exp(-dividendYield * timeRemaining);
+        final double m = 2 * interestRate / v2;
+        final double n1 = 2 * costOfCarry / v2 - 1;
+        // m / (1 - exp(-r t)) tends to 2 / (v^2 t) without interest
+        final double discounted = interestRate == 0 ? 2 / (v2 * timeRemaining)
+                : m / -Math.expm1(-interestRate * timeRemaining);
+        final double root = Math.sqrt(n1 * n1 + 4 * discounted);
+        final double rootInfinity = Math.sqrt(n1 * n1 + 4 * m);
+        final double drift = (costOfCarry + 0.5d * v2) * timeRemaining;
+
+        double s;
+        final double exponent;
+        if (type == OptionType.CALL) {
+            exponent = 0.5d * (-n1 + root);
+            final double infinity = 1 / (1 - 2 / (-n1 + rootInfinity));
+            s = 1 + (infinity - 1) * -Math.expm1(-(costOfCarry * timeRemaining + 2 * vt) / (infinity - 1));
+        } else {
+            exponent = 0.5d * (-n1 - root);
+            final double infinity = 1 / (1 - 2 / (-n1 - rootInfinity));
+            s = infinity + (1 - infinity) * Math.exp((costOfCarry * timeRemaining - 2 * vt) / (1 - infinity));
+        }
+        final double sign = type.getSign();
+        // S* lies in (0, 1] for a put and in [1, infinity) for a call, narrowed by the sign of every residual
+        double lower = type == OptionType.CALL ? 1d : 0d;
+        double upper = type == OptionType.CALL ? Double.POSITIVE_INFINITY : 1d;
+        if (!(s > lower && s < upper)) {
+            s = type == OptionType.CALL ? 2d : 0.5d;
+        }
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            final double d1 = (Math.log(s) + drift) / vt;
+            final double nd1 = cdf(sign * d1);
+            final double european = s_blackScholes.priceOption(type, s, 1d, timeRemaining, volatility,
+                    interestRate, dividendYield);
+            // intrinsic value = european + premium at the critical price
+            final double diff = sign * (s - 1) - european - sign * (1 - carry * nd1) * s / exponent;
+            if (Math.abs(diff) < CRITICAL_PRECISION) {
+                break;
+            }
+            if (sign * diff < 0) {
+                lower = s;
+            } else {
+                upper = s;
+            }
+            // derivative of the right hand side, european + premium
+            final double slope = sign * carry * nd1 * (1 - 1 / exponent) + (sign - carry * pdf(d1) / vt) / exponent;
+            final double next = (sign + european + sign * (1 - carry * nd1) * s / exponent - slope * s)
+                                / (sign - slope);
+            if (next > lower && next < upper) {
+                s = next;
+            } else {
+                // the step left the bracket, e.g. to a negative price at low volatility and high rates
+                s = upper == Double.POSITIVE_INFINITY ? 2d * s : 0.5d * (lower + upper);
+            }
+            if (upper - lower <= CRITICAL_PRECISION * s) {
+                break;
+            }
+        }
+        final double d1 = (Math.log(s) + drift) / vt;
+        final double coefficient = sign * (1 - carry * cdf(sign * d1)) * s / exponent;
+        return new CriticalPrice(type, timeRemaining, volatility, interestRate, dividendYield, s, coefficient,
+                exponent);
+    }
+
+    private static final class CriticalPrice {
+        private final OptionType type;
+        private final double timeRemaining;
+        private final double volatility;
+        private final double interestRate;
+        private final double dividendYield;
+        // S* / K, A / K and q
+        private final double ratio;
+        private final double coefficient;
+        private final double exponent;
+
+        CriticalPrice(OptionType type, double timeRemaining, double volatility, double interestRate,
+                      double dividendYield, double ratio, double coefficient, double exponent) {
+            this.type = type;
+            this.timeRemaining = timeRemaining;
+            this.volatility = volatility;
+            this.interestRate = interestRate;
+            this.dividendYield = dividendYield;
+            this.ratio = ratio;
+            this.coefficient = coefficient;
+            this.exponent = exponent;
+        }
+
+        boolean matches(OptionType type, double timeRemaining, double volatility, double interestRate,
+                        double dividendYield) {
+            return this.timeRemaining == timeRemaining && this.volatility == volatility
+                   && this.interestRate == interestRate && this.dividendYield == dividendYield && this.type == type;
+        }
+
+        boolean isFinite() {
+            return Double.isFinite(ratio) && Double.isFinite(coefficient) && Double.isFinite(exponent);
+        }
+
+        // moneyness is S / S*
+        boolean isExercised(OptionType type, double moneyness) {
+            return type == OptionType.CALL ? moneyness >= 1 : moneyness <= 1;
+        }
+    }
+}
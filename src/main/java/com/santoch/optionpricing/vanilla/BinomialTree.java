@@ -0,0 +1,342 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.IFusedGreeksModel;
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+
+import java.security.InvalidParameterException;
+import java.time.ZonedDateTime;
+
+// American options on a recombining binomial tree, as a reference for the Bjerksund-Stensland approximation.
+// COX_ROSS_RUBINSTEIN is the classic u = exp(v sqrt(dt)) lattice, LEISEN_REIMER centres the tree on the strike
+// through the Peizer-Pratt inversion and converges smoothly in O(1/n^2) (an even step count is raised by one,
+// the method needs odd ones).
+// With richardson the tree is also rolled back with about half the steps and the two results extrapolated,
+// (r^p P(n) - P(m)) / (r^p - 1) with r = n / m and p the order of the lattice, 1 for CRR and 2 for LR.
+// The error of plain CRR oscillates with the step count and where the strike falls between nodes, which
+// extrapolation amplifies, so with richardson CRR values its last step with Black-Scholes (the smoothed
+// binomial Black-Scholes tree), whose error is a smooth O(1/n).
+// CRR needs v sqrt(dt) > |r - q| dt for its probability to stay in (0, 1); at low volatility and high carry it
+// does not, and the tree is then centred on the forward instead, u and d = exp((r - q) dt +- v sqrt(dt)).
+// Delta, gamma and theta come from the nodes of the first two steps of the same rollback; vega and rho are
+// central bumps. The node values live in a per-thread buffer, so pricing allocates nothing.
+public class BinomialTree implements IOptionModel, IFusedGreeksModel {
+    private static final int MIN_STEPS = 4;
+    private static final double VOLATILITY_BUMP = 0.001d;
+    private static final double RATE_BUMP = 0.0001d;
+    private static final BlackScholes s_blackScholes = new BlackScholes();
+    private static final ThreadLocal<double[]> s_nodes = ThreadLocal.withInitial(() -> new double[0]);
+    private static final ThreadLocal<double[]> s_greeks = ThreadLocal.withInitial(() -> new double[4]);
+    // indexes into the rollback results
+    private static final int PRICE = 0;
+    private static final int DELTA = 1;
+    private static final int GAMMA = 2;
+    private static final int THETA = 3;
+
+    public enum Lattice {
+        COX_ROSS_RUBINSTEIN,
+        LEISEN_REIMER
+    }
+
+    private final Lattice lattice;
+    private final int steps;
+    private final boolean richardson;
+
+    public BinomialTree() {
+        this(Lattice.COX_ROSS_RUBINSTEIN, 500, false);
+    }
+
+    public BinomialTree(Lattice lattice, int steps, boolean richardson) {
+        // the coarse tree needs MIN_STEPS as well
+        if (steps < (richardson ? 2 * MIN_STEPS : MIN_STEPS)) {
+            throw new InvalidParameterException("Invalid steps: " + steps);
+        }
+        this.lattice = lattice;
+        this.steps = lattice == Lattice.LEISEN_REIMER ? steps | 1 : steps;
+        this.richardson = richardson;
+    }
+
+    public Lattice getLattice() {
+        return lattice;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public boolean isRichardson() {
+        return richardson;
+    }
+
+    public double priceOption(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : priceOption(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        return evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield)
+                [PRICE];
+    }
+
+    public double delta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : delta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double delta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        return evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield)
+                [DELTA];
+    }
+
+    // the interface gamma has no type, this is the gamma of the call, priceAndGreeks gives the put's as well
+    public double gamma(double underlyingPrice, double strikePrice, double timeRemaining, double volatility,
+                        double interestRate, double dividendYield) {
+        return evaluate(OptionType.CALL, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield)[GAMMA];
+    }
+
+    public double vega(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : vega(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double vega(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        final double up = priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility + VOLATILITY_BUMP, interestRate, dividendYield);
+        final double down = priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility - VOLATILITY_BUMP, interestRate, dividendYield);
+        return (up - down) / (2 * VOLATILITY_BUMP) * 0.01;
+    }
+
+    public double theta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : theta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double theta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        return evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield)
+                [THETA];
+    }
+
+    public double rho(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : rho(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double rho(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        final double up = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate + RATE_BUMP, dividendYield);
+        final double down = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate - RATE_BUMP, dividendYield);
+        return (up - down) / (2 * RATE_BUMP) * 0.01;
+    }
+
+    @Override
+    public PriceAndGreeks priceAndGreeks(OptionType type, double underlyingPrice, double strikePrice,
+                                         double timeRemaining, double volatility, double interestRate,
+                                         double dividendYield, PriceAndGreeks result) {
+        final double[] tree = evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+        final double price = tree[PRICE], delta = tree[DELTA], gamma = tree[GAMMA], theta = tree[THETA];
+        return result.set(price, delta, gamma, theta,
+                vega(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield),
+                rho(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield));
+    }
+
+    public double impliedVolatility(String type, double optionPrice, double underlyingPrice, double strikePrice,
+                                    double timeRemaining, double initialVolatility, double interestRate,
+                                    double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? Double.NaN : impliedVolatility(optionType, optionPrice, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    // every reprice is a full tree, so the search is the bounded one of AmericanImpliedVolatility
+    @Override
+    public double impliedVolatility(OptionType type, double optionPrice, double underlyingPrice,
+                                    double strikePrice, double timeRemaining, double initialVolatility,
+                                    double interestRate, double dividendYield) {
+        return AmericanImpliedVolatility.solve(this, type, optionPrice, underlyingPrice, strikePrice,
+                timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double impliedVolatilityStep() {
+        return AmericanImpliedVolatility.TOLERANCE;
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, OptionType type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, String type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
+    // price, delta, gamma and theta in the per-thread greeks buffer, extrapolated when richardson is set
+    private double[] evaluate(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        final double[] result = s_greeks.get();
+        if (!(timeRemaining > 0) || !(volatility > 0)) {
+            // the lattice has no steps to take
+            degenerate(type, underlyingPrice, strikePrice, timeRemaining, interestRate, dividendYield, result);
+            return result;
+        }
+        final int coarseSteps = lattice == Lattice.LEISEN_REIMER ? (steps / 2) | 1 : steps / 2;
+        // decided on the longest step taken, so that both trees of richardson share the lattice
+        final double longestStep = timeRemaining / (richardson ? coarseSteps : steps);
+        final boolean forwardCentred = lattice == Lattice.COX_ROSS_RUBINSTEIN
+                && !(volatility * Math.sqrt(longestStep) > Math.abs(interestRate - dividendYield) * longestStep);
+        rollback(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield,
+                steps, forwardCentred, result);
+        if (richardson) {
+            final double p0 = result[PRICE], d0 = result[DELTA], g0 = result[GAMMA], t0 = result[THETA];
+            rollback(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield,
+                    coarseSteps, forwardCentred, result);
+            final double ratio = (double) steps / coarseSteps;
+            final double weight = lattice == Lattice.LEISEN_REIMER ? ratio * ratio : ratio;
+            result[PRICE] = (weight * p0 - result[PRICE]) / (weight - 1);
+            result[DELTA] = (weight * d0 - result[DELTA]) / (weight - 1);
+            result[GAMMA] = (weight * g0 - result[GAMMA]) / (weight - 1);
+            result[THETA] = (weight * t0 - result[THETA]) / (weight - 1);
+        }
+        return result;
+    }
+
+    // no diffusion left: the larger of exercising now and holding the forward to expiry
+    private static void degenerate(OptionType type, double underlyingPrice, double strikePrice,
+                                   double timeRemaining, double interestRate, double dividendYield,
+                                   double[] result) {
+        final double sign = type.getSign();
+        final double t = Math.max(timeRemaining, 0d);
+        final double hold = sign * (underlyingPrice * Math.exp(-dividendYield * t)
+                                    - strikePrice * Math.exp(-interestRate * t));
+        final double exercise = sign * (underlyingPrice - strikePrice);
+        result[PRICE] = Math.max(Math.max(hold, exercise), 0d);
+        result[DELTA] = result[PRICE] > 0 ? (hold > exercise ? sign * Math.exp(-dividendYield * t) : sign) : 0d;
+        result[GAMMA] = 0d;
+        result[THETA] = 0d;
+    }
+
+    private void rollback(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                          double volatility, double interestRate, double dividendYield, int n,
+                          boolean forwardCentred, double[] result) {
+        final double sign = type.getSign();
+        final double dt = timeRemaining / n;
+        final double growth = Math.exp((interestRate - dividendYield) * dt);
+        final double discount = Math.exp(-interestRate * dt);
+        final double u, d, p;
+        if (lattice == Lattice.LEISEN_REIMER) {
+            final double vt = volatility * Math.sqrt(timeRemaining);
+            final double d1 = (Math.log(underlyingPrice / strikePrice)
+                               + (interestRate - dividendYield + 0.5d * volatility * volatility) * timeRemaining) / vt;
+            p = peizerPratt(d1 - vt, n);
+            u = growth * peizerPratt(d1, n) / p;
+            d = (growth - p * u) / (1 - p);
+        } else if (forwardCentred) {
+            final double spread = Math.exp(volatility * Math.sqrt(dt));
+            u = growth * spread;
+            d = growth / spread;
+            p = 1 / (1 + spread);
+        } else {
+            u = Math.exp(volatility * Math.sqrt(dt));
+            d = 1 / u;
+            p = (growth - d) / (u - d);
+        }
+        final double up = discount * p, down = discount * (1 - p), ratio = u / d;
+
+        double[] values = s_nodes.get();
+        if (values.length < n + 1) {
+            values = new double[n + 1];
+            s_nodes.set(values);
+        }
+        // lowest node of the last step, then up by u / d
+        double lowest = underlyingPrice * Math.pow(d, n);
+        double s = lowest;
+        int last = n;
+        if (richardson && lattice == Lattice.COX_ROSS_RUBINSTEIN) {
+            // the last step is the European price over dt, or exercise
+            last = n - 1;
+            lowest /= d;
+            s = lowest;
+            for (int j = 0; j <= last; j++) {
+                values[j] = Math.max(s_blackScholes.priceOption(type, s, strikePrice, dt, volatility, interestRate,
+                        dividendYield), sign * (s - strikePrice));
+                s *= ratio;
+            }
+        } else {
+            for (int j = 0; j <= n; j++) {
+                values[j] = Math.max(sign * (s - strikePrice), 0d);
+                s *= ratio;
+            }
+        }
+        double v20 = 0d, v21 = 0d, v22 = 0d, v10 = 0d, v11 = 0d;
+        for (int i = last - 1; i >= 0; i--) {
+            lowest /= d;
+            s = lowest;
+            for (int j = 0; j <= i; j++) {
+                final double hold = up * values[j + 1] + down * values[j];
+                values[j] = Math.max(hold, sign * (s - strikePrice));
+                s *= ratio;
+            }
+            if (i == 2) {
+                v20 = values[0];
+                v21 = values[1];
+                v22 = values[2];
+            } else if (i == 1) {
+                v10 = values[0];
+                v11 = values[1];
+            }
+        }
+        final double su = underlyingPrice * u, sd = underlyingPrice * d;
+        final double suu = su * u, sud = su * d, sdd = sd * d;
+        final double delta = (v11 - v10) / (su - sd);
+        final double gamma = ((v22 - v21) / (suu - sud) - (v21 - v20) / (sud - sdd)) / (0.5d * (suu - sdd));
+        // the middle node two steps on sits at underlying * u * d, the underlying itself only for plain CRR,
+        // it is moved back to the underlying with the delta and gamma
+        final double shift = underlyingPrice - sud;
+        final double later = v21 + delta * shift + 0.5d * gamma * shift * shift;
+        result[PRICE] = values[0];
+        result[DELTA] = delta;
+        result[GAMMA] = gamma;
+        result[THETA] = (later - values[0]) / (2 * dt) / 365;
+    }
+
+    // Peizer-Pratt method 2 inversion, the probability that a binomial with n steps matches N(z)
+    private static double peizerPratt(double z, int n) {
+        final double x = z / (n + 1d / 3d + 0.1d / (n + 1));
+        final double root = 0.5d * Math.sqrt(1 - Math.exp(-x * x * (n + 1d / 6d)));
+        return z >= 0 ? 0.5d + root : 0.5d - root;
+    }
+}
@@ -1,43 +1,89 @@
 package com.santoch.optionpricing.vanilla;
 
+import com.santoch.optionpricing.common.IBatchOptionModel;
+import com.santoch.optionpricing.common.IFusedGreeksModel;
 import com.santoch.optionpricing.common.IGreeks;
 import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
 import com.santoch.optionpricing.common.Utils;
 import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
 
 import java.time.ZonedDateTime;
 
 import static com.santoch.optionpricing.util.NormalDistribution.StandardNormal.cdf;
 
-public class BjerksundStensland implements IOptionModel {
+public class BjerksundStensland implements IOptionModel, IBatchOptionModel, IFusedGreeksModel {
     private static final BlackScholes s_blackScholes = new BlackScholes();
+    // per-thread scratch of the American greeks, so the fused Utils.greeks path does not allocate
+    private static final ThreadLocal<double[]> s_partials = ThreadLocal.withInitial(() -> new double[3]);
+
+    // NEWTON is the original bump-vega search, BRACKETED is the bounded search of AmericanImpliedVolatility
+    // seeded from the European implied volatility, returning NaN when it does not converge.
+    public enum IvSolver {
+        NEWTON,
+        BRACKETED
+    }
+
+    private final IvSolver ivSolver;
+
+    public BjerksundStensland() {
+        this(IvSolver.NEWTON);
+    }
+
+    public BjerksundStensland(IvSolver ivSolver) {
+        this.ivSolver = ivSolver;
+    }
+
+    public IvSolver getIvSolver() {
+        return ivSolver;
+    }
 
     public double priceOption(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                               double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : priceOption(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0) {
+            return Math.abs(underlyingPrice - strikePrice);
+        }
+        if (isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                    volatility, interestRate, dividendYield);
+        }
         final double costOfCarry = interestRate - dividendYield;
-        double price = 0.0d;
-        if ("P".equals(type)) {
-            if (timeRemaining <= 0) {
-                return Math.abs(strikePrice - underlyingPrice);
-            }
-            if (-costOfCarry > dividendYield || dividendYield == 0) {
-                return s_blackScholes.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
-                        volatility, interestRate, dividendYield);
-            }
-            price = priceImpl(strikePrice, underlyingPrice, timeRemaining, volatility, -costOfCarry,
+        if (type == OptionType.PUT) {
+            return priceImpl(strikePrice, underlyingPrice, timeRemaining, volatility, -costOfCarry,
                     interestRate - costOfCarry, dividendYield);
-        } else if ("C".equals(type)) {
-            if (timeRemaining <= 0) {
-                return Math.abs(underlyingPrice - strikePrice);
-            }
-            if (costOfCarry > interestRate || dividendYield == 0) {
-                return s_blackScholes.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
-                        volatility, interestRate, dividendYield);
-            }
-            price = priceImpl(underlyingPrice, strikePrice, timeRemaining, volatility,
+        } else {
+            return priceImpl(underlyingPrice, strikePrice, timeRemaining, volatility,
                     costOfCarry, interestRate, dividendYield);
         }
-        return price;
+    }
+
+    // early exercise is never optimal, the Black-Scholes price applies
+    private static boolean isEuropean(OptionType type, double interestRate, double dividendYield) {
+        final double costOfCarry = interestRate - dividendYield;
+        if (type == OptionType.PUT) {
+            return -costOfCarry > dividendYield || dividendYield == 0;
+        }
+        return costOfCarry > interestRate || dividendYield == 0;
+    }
+
+    @Override
+    public void priceOptions(boolean[] isCall, double[] underlyingPrice, double[] strikePrice,
+                             double[] timeRemaining, double[] volatility, double[] interestRate,
+                             double[] dividendYield, double[] prices, int offset, int length) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            prices[i] = priceOption(isCall[i] ? OptionType.CALL : OptionType.PUT, underlyingPrice[i], strikePrice[i], timeRemaining[i], volatility[i],
+                    interestRate[i], dividendYield[i]);
+        }
     }
 
     private double priceImpl(double underlyingPrice, double strikePrice, double timeRemaining, double volatility,
@@ -86,15 +132,165 @@ public class BjerksundStensland implements IOptionModel {
         return Math.exp(lambda * timeRemaining) * Math.pow(underlyingPrice, gamma) * (cdf(-tmp1) - (Math.pow(X / underlyingPrice, K)) * cdf(-tmp2));
     }
 
+    // Partial derivatives of priceImpl, in one pass with the price. Writes {dC/dS, dC/dT, dC/dvolatility} of the
+    // call form to partials and returns the price. X and alpha depend on the time and the volatility (beta on the
+    // volatility only), and both terms with h == X move with it, so those derivatives are chained through.
+    private double priceAndPartialsImpl(double underlyingPrice, double strikePrice, double timeRemaining,
+                                        double volatility, double costOfCarry, double interestRate,
+                                        double dividendYield, double[] partials) {
+        final double v2 = volatility * volatility;
+        final double u = costOfCarry / v2, w = 2 * interestRate / v2;
+        final double root = Math.sqrt((u - 0.5) * (u - 0.5) + w);
+        final double beta = (0.5 - u) + root;
+        final double dBeta = (2 * u - ((u - 0.5) * 2 * u + w) / root) / volatility;
+
+        final double betainfinity = (beta / (beta - 1)) * strikePrice;
+        final double dBetainfinity = -strikePrice * dBeta / ((beta - 1) * (beta - 1));
+        final double betazero = Math.max(strikePrice, (interestRate / dividendYield) * strikePrice);
+
+        final double sqrtT = Math.sqrt(timeRemaining);
+        final double spread = betainfinity - betazero;
+        final double g = (strikePrice * strikePrice) / (spread * betazero);
+        final double a = (costOfCarry * timeRemaining) + (2 * volatility * sqrtT);
+        final double h = -a * g;
+        final double dhdT = -(costOfCarry + volatility / sqrtT) * g;
+        final double dhdV = -2 * sqrtT * g + a * g * dBetainfinity / spread;
+        final double eh = Math.exp(h);
+        final double X = betazero + spread * (1 - eh);
+        final double dXdT = -spread * eh * dhdT;
+        final double dXdV = dBetainfinity * (1 - eh) - spread * eh * dhdV;
+
+        if (X < underlyingPrice) {
+            // price equals intrinsic value
+            partials[0] = 1d;
+            partials[1] = 0d;
+            partials[2] = 0d;
+            return Math.abs(underlyingPrice - strikePrice);
+        }
+        final double xPowBeta = Math.pow(X, -beta);
+        final double lnX = Math.log(X);
+        final double alpha = (X - strikePrice) * xPowBeta;
+        final double dAlphadT = xPowBeta * dXdT - alpha * beta * dXdT / X;
+        final double dAlphadV = xPowBeta * dXdV - alpha * (dBeta * lnX + beta * dXdV / X);
+        final double sPowBeta = Math.pow(underlyingPrice, beta);
+        final double lnS = Math.log(underlyingPrice);
+
+        final double[] d = s_phiPartials.get();
+        double price = alpha * sPowBeta;
+        double dS = alpha * beta * sPowBeta / underlyingPrice;
+        double dT = dAlphadT * sPowBeta;
+        double dV = dAlphadV * sPowBeta + alpha * sPowBeta * lnS * dBeta;
+
+        final double phiBeta = phiAndPartials(underlyingPrice, timeRemaining, beta, X, X, volatility, interestRate,
+                costOfCarry, d);
+        price -= alpha * phiBeta;
+        dS -= alpha * d[PHI_S];
+        dT -= dAlphadT * phiBeta + alpha * (d[PHI_T] + (d[PHI_H] + d[PHI_X]) * dXdT);
+        dV -= dAlphadV * phiBeta + alpha * (d[PHI_V] + d[PHI_GAMMA] * dBeta + (d[PHI_H] + d[PHI_X]) * dXdV);
+
+        price += phiAndPartials(underlyingPrice, timeRemaining, 1, X, X, volatility, interestRate, costOfCarry, d);
+        dS += d[PHI_S];
+        dT += d[PHI_T] + (d[PHI_H] + d[PHI_X]) * dXdT;
+        dV += d[PHI_V] + (d[PHI_H] + d[PHI_X]) * dXdV;
+
+        price -= phiAndPartials(underlyingPrice, timeRemaining, 1, strikePrice, X, volatility, interestRate,
+                costOfCarry, d);
+        dS -= d[PHI_S];
+        dT -= d[PHI_T] + d[PHI_X] * dXdT;
+        dV -= d[PHI_V] + d[PHI_X] * dXdV;
+
+        price -= strikePrice * phiAndPartials(underlyingPrice, timeRemaining, 0, X, X, volatility, interestRate,
+                costOfCarry, d);
+        dS -= strikePrice * d[PHI_S];
+        dT -= strikePrice * (d[PHI_T] + (d[PHI_H] + d[PHI_X]) * dXdT);
+        dV -= strikePrice * (d[PHI_V] + (d[PHI_H] + d[PHI_X]) * dXdV);
+
+        price += strikePrice * phiAndPartials(underlyingPrice, timeRemaining, 0, strikePrice, X, volatility,
+                interestRate, costOfCarry, d);
+        dS += strikePrice * d[PHI_S];
+        dT += strikePrice * (d[PHI_T] + d[PHI_X] * dXdT);
+        dV += strikePrice * (d[PHI_V] + d[PHI_X] * dXdV);
+
+        partials[0] = dS;
+        partials[1] = dT;
+        partials[2] = dV;
+        return price;
+    }
+
+    private static final int PHI_S = 0;
+    private static final int PHI_T = 1;
+    private static final int PHI_V = 2;
+    private static final int PHI_GAMMA = 3;
+    private static final int PHI_H = 4;
+    private static final int PHI_X = 5;
+    private static final int PHI_PARTIALS = 6;
+    private static final ThreadLocal<double[]> s_phiPartials =
+            ThreadLocal.withInitial(() -> new double[PHI_PARTIALS]);
+
+    // phi with its partial derivatives by each argument, the others held fixed
+    private double phiAndPartials(double underlyingPrice, double timeRemaining, double gamma, double h, double X,
+                                  double volatility, double interestRate, double b, double[] partials) {
+        final double v2 = volatility * volatility;
+        final double K = ((2 * b) / v2) + (2 * gamma - 1);
+        final double lambda = -interestRate + (gamma * b) + ((0.5 * gamma * (gamma - 1)) * v2);
+        final double sqrtT = Math.sqrt(timeRemaining);
+        final double vXsqrtT = volatility * sqrtT;
+
+        final double drift = b + (gamma - 0.5) * v2;
+        final double timeFactor = drift * timeRemaining;
+        final double lnXS = Math.log(X / underlyingPrice);
+        final double tmp1 = ((Math.log(underlyingPrice / h)) + timeFactor) / vXsqrtT;
+        final double tmp2 = tmp1 + 2 * lnXS / vXsqrtT;
+
+        final double e = Math.exp(lambda * timeRemaining);
+        final double p = Math.pow(underlyingPrice, gamma);
+        final double ratio = Math.exp(K * lnXS);
+        final double n1 = cdf(-tmp1), n2 = cdf(-tmp2);
+        final double pdf1 = Math.exp(-0.5 * tmp1 * tmp1) / Constants.SQRT_TWOPI;
+        final double pdf2 = Math.exp(-0.5 * tmp2 * tmp2) / Constants.SQRT_TWOPI;
+        final double m = n1 - ratio * n2;
+        final double ep = e * p;
+
+        // dM = -pdf1 dtmp1 - dratio n2 + ratio pdf2 dtmp2
+        final double mS = -pdf1 / (underlyingPrice * vXsqrtT) + K * ratio * n2 / underlyingPrice
+                          - ratio * pdf2 / (underlyingPrice * vXsqrtT);
+        partials[PHI_S] = ep * (gamma * m / underlyingPrice + mS);
+
+        final double dVt = volatility / (2 * sqrtT);
+        final double mT = -pdf1 * (drift - tmp1 * dVt) / vXsqrtT + ratio * pdf2 * (drift - tmp2 * dVt) / vXsqrtT;
+        partials[PHI_T] = ep * (lambda * m + mT);
+
+        final double dTf = 2 * (gamma - 0.5) * volatility * timeRemaining;
+        final double mV = -pdf1 * (dTf - tmp1 * sqrtT) / vXsqrtT
+                          + 4 * b / (v2 * volatility) * lnXS * ratio * n2
+                          + ratio * pdf2 * (dTf - tmp2 * sqrtT) / vXsqrtT;
+        partials[PHI_V] = ep * (gamma * (gamma - 1) * volatility * timeRemaining * m + mV);
+
+        final double mGamma = -pdf1 * vXsqrtT - 2 * lnXS * ratio * n2 + ratio * pdf2 * vXsqrtT;
+        partials[PHI_GAMMA] = ep * ((drift * timeRemaining + Math.log(underlyingPrice)) * m + mGamma);
+
+        partials[PHI_H] = ep * (pdf1 - ratio * pdf2) / (h * vXsqrtT);
+        partials[PHI_X] = ep * (-K * ratio * n2 / X + ratio * pdf2 * 2 / (X * vXsqrtT));
+        return ep * m;
+    }
+
     public double delta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                         double volatility, double interestRate, double dividendYield) {
-        final double umove = 1.01;
-        final double dmove = 1 / umove;
-        final double uval = priceOption(type, underlyingPrice * umove, strikePrice, timeRemaining, volatility, interestRate
-                , dividendYield);
-        final double dval = priceOption(type, underlyingPrice * dmove, strikePrice, timeRemaining, volatility, interestRate
-                , dividendYield);
-        return (uval - dval) / (underlyingPrice * (umove - dmove));
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : delta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double delta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.delta(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+        final double[] partials = s_partials.get();
+        return americanPartials(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield, partials);
     }
 
     public double gamma(double underlyingPrice, double strikePrice, double timeRemaining, double volatility,
@@ -105,25 +301,86 @@ public class BjerksundStensland implements IOptionModel {
 
     public double vega(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                        double volatility, double interestRate, double dividendYield) {
-        final double onePercent = 0.01;
-        final double val1 = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
-                dividendYield);
-        final double val2 = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility + onePercent,
-                interestRate,
-                dividendYield);
-        return (val2 - val1) / onePercent / 100d;
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : vega(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double vega(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.vega(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+        final double[] partials = s_partials.get();
+        americanPartials(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield, partials);
+        return partials[2] * 0.01;
     }
 
     public double theta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                         double volatility,
                         double interestRate, double dividendYield) {
-        double tomorrow = timeRemaining - Constants.ONE_DAY;
-        tomorrow = (tomorrow < 0) ? 0 : tomorrow;
-        final double val = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
-                dividendYield);
-        final double valt = priceOption(type, underlyingPrice, strikePrice, tomorrow, volatility, interestRate,
-                dividendYield);
-        return valt - val;
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : theta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double theta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.theta(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+        final double[] partials = s_partials.get();
+        americanPartials(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield, partials);
+        return -partials[1] / 365;
+    }
+
+    // Gamma and rho are the Black-Scholes ones, as in gamma() and rho().
+    @Override
+    public PriceAndGreeks priceAndGreeks(OptionType type, double underlyingPrice, double strikePrice,
+                                         double timeRemaining, double volatility, double interestRate,
+                                         double dividendYield, PriceAndGreeks result) {
+        if (timeRemaining <= 0 || isEuropean(type, interestRate, dividendYield)) {
+            return s_blackScholes.priceAndGreeks(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield, result);
+        }
+        final double[] partials = s_partials.get();
+        final double delta = americanPartials(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate, dividendYield, partials);
+        return result.set(partials[0], delta,
+                s_blackScholes.gamma(underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                        dividendYield),
+                -partials[1] / 365,
+                partials[2] * 0.01,
+                s_blackScholes.rho(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                        dividendYield));
+    }
+
+    // Returns delta and writes {price, dV/dt, dV/dvolatility} to partials. The put is priced as a call with the
+    // underlying and strike swapped, so its delta is the derivative by the call's strike, which follows from
+    // the price being homogeneous of degree one in (underlying, strike): dC/dK = (C - S dC/dS) / K.
+    private double americanPartials(OptionType type, double underlyingPrice, double strikePrice,
+                                    double timeRemaining, double volatility, double interestRate,
+                                    double dividendYield, double[] partials) {
+        final double costOfCarry = interestRate - dividendYield;
+        final double price;
+        final double delta;
+        if (type == OptionType.PUT) {
+            price = priceAndPartialsImpl(strikePrice, underlyingPrice, timeRemaining, volatility, -costOfCarry,
+                    interestRate - costOfCarry, dividendYield, partials);
+            delta = (price - strikePrice * partials[0]) / underlyingPrice;
+        } else {
+            price = priceAndPartialsImpl(underlyingPrice, strikePrice, timeRemaining, volatility, costOfCarry,
+                    interestRate, dividendYield, partials);
+            delta = partials[0];
+        }
+        partials[0] = price;
+        return delta;
     }
 
     public double rho(String type, double underlyingPrice, double strikePrice, double timeRemaining,
@@ -132,9 +389,29 @@ public class BjerksundStensland implements IOptionModel {
                 dividendYield);
     }
 
+    @Override
+    public double rho(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        return s_blackScholes.rho(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
     public double impliedVolatility(String type, double optionPrice, double underlyingPrice, double strikePrice,
                                     double timeRemaining, double initialVolatility, double interestRate,
                                     double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? Double.NaN : impliedVolatility(optionType, optionPrice, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double impliedVolatility(OptionType type, double optionPrice, double underlyingPrice,
+                                    double strikePrice, double timeRemaining, double initialVolatility,
+                                    double interestRate, double dividendYield) {
+        if (ivSolver == IvSolver.BRACKETED) {
+            return AmericanImpliedVolatility.solve(this, type, optionPrice, underlyingPrice, strikePrice,
+                    timeRemaining, initialVolatility, interestRate, dividendYield);
+        }
         initialVolatility = initialVolatility > 0d ? initialVolatility : 0.5;
         final int maxloops = 1000;
         int n = 0;
@@ -151,6 +428,16 @@ public class BjerksundStensland implements IOptionModel {
                 upper = initialVolatility;
             } else if (diffVal < 0) {
                 lower = initialVolatility;
+            }
+
+            double v1 = vega(type, underlyingPrice, strikePrice, timeRemaining, initialVolatility, interestRate,
+                    dividendYield) / 0.01;
+            if (v1 > Constants.IV_PRECISION / 1000.d) {
+                dv = diffVal / v1;
+                initialVolatility = initialVolatility - dv;
+            } else {
+                // the upper bound is only needed to bisect, so it is searched for here rather than on every
+                // step from below, which keeps a warm-started search at one reprice per Newton step
                 if (upper == Double.MAX_VALUE) {
                     double diffVal2;
                     double upper2 = lower;
@@ -168,14 +455,6 @@ public class BjerksundStensland implements IOptionModel {
                     }
                     upper = upper2;
                 }
-            }
-
-            double v1 = vega(type, underlyingPrice, strikePrice, timeRemaining, initialVolatility, interestRate,
-                    dividendYield) / 0.01;
-            if (v1 > Constants.IV_PRECISION / 1000.d) {
-                dv = diffVal / v1;
-                initialVolatility = initialVolatility - dv;
-            } else {
                 initialVolatility = (upper + lower) / 2.0d;
                 dv = upper - lower;
             }
@@ -186,6 +465,19 @@ public class BjerksundStensland implements IOptionModel {
         return initialVolatility;
     }
 
+    @Override
+    public double impliedVolatilityStep() {
+        return ivSolver == IvSolver.NEWTON ? Constants.IV_PRECISION : AmericanImpliedVolatility.TOLERANCE;
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, OptionType type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
     @Override
     public IGreeks greeks(ZonedDateTime updateTime, String type, double bid, double ask, double smvPrice,
                           double s, double strikePrice, double timeRemaining, double initialVolatility,
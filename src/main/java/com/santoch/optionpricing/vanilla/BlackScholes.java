@@ -1,38 +1,79 @@
 package com.santoch.optionpricing.vanilla;
 
+import com.santoch.optionpricing.common.IBatchOptionModel;
+import com.santoch.optionpricing.common.IFusedGreeksModel;
 import com.santoch.optionpricing.common.IGreeks;
 import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
 import com.santoch.optionpricing.common.Utils;
 import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
 
 import java.time.ZonedDateTime;
 
 import static com.santoch.optionpricing.util.NormalDistribution.StandardNormal.cdf;
 
-public class BlackScholes implements IOptionModel {
+public class BlackScholes implements IOptionModel, IBatchOptionModel, IFusedGreeksModel {
+    // The SIMD kernel needs the incubating jdk.incubator.vector module (--add-modules jdk.incubator.vector),
+    // without it, or with -Doptionpricing.vector=false, the scalar loops below are used.
+    private static final boolean VECTOR_KERNEL = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && Boolean.parseBoolean(System.getProperty("optionpricing.vector", "true"))
+            && BlackScholesVectorKernel.isUseful();
+
+    // NEWTON is the original vega-driven search, LETS_BE_RATIONAL is Jaeckel's rational guess followed by
+    // LetsBeRational.DEFAULT_ITERATIONS Householder steps, so every call costs the same few CDF evaluations.
+    public enum IvSolver {
+        NEWTON,
+        LETS_BE_RATIONAL
+    }
+
+    private final IvSolver ivSolver;
+
+    public BlackScholes() {
+        this(IvSolver.NEWTON);
+    }
+
+    public BlackScholes(IvSolver ivSolver) {
+        this.ivSolver = ivSolver;
+    }
+
+    public IvSolver getIvSolver() {
+        return ivSolver;
+    }
+
     // type == C(all) or P(ut)
     // s = stock price (current), k = strike price
     // t = expiry time (annualized where 1 = one year), v = volatility, r = risk-free rate
     // q = dividend yield
     public double priceOption(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                               double volatility, double interestRate, double dividendYield) {
-        double sign;
-        if ("C".equals(type)) {
-            if (timeRemaining <= 0) {
-                return Math.abs(underlyingPrice - strikePrice);
-            }
-            sign = 1;
-        } else if ("P".equals(type)) {
-            if (timeRemaining <= 0) {
-                return Math.abs(strikePrice - underlyingPrice);
-            }
-            sign = -1;
-        } else {
-            return 0.0d;
-        }
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : priceOption(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        return priceImpl(type.getSign(), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
 
+    // sign == 1 for a call, -1 for a put
+    private double priceImpl(double sign, double underlyingPrice, double strikePrice, double timeRemaining,
+                             double volatility, double interestRate, double dividendYield) {
+        if (timeRemaining <= 0) {
+            return Math.abs(underlyingPrice - strikePrice);
+        }
         final double dr = Math.exp(-interestRate * timeRemaining), drq = Math.exp(-dividendYield * timeRemaining);
         final double vt = volatility * Math.sqrt(timeRemaining);
+        return priceImpl(sign, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield,
+                dr, drq, vt);
+    }
+
+    private double priceImpl(double sign, double underlyingPrice, double strikePrice, double timeRemaining,
+                             double volatility, double interestRate, double dividendYield,
+                             double dr, double drq, double vt) {
         double d1 = d1(underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield, vt);
         double d2 = d1 - vt;
         double nd1, nd2;
@@ -45,6 +86,68 @@ public class BlackScholes implements IOptionModel {
         return sign * ((underlyingPrice * drq * nd1) - (strikePrice * dr * nd2));
     }
 
+    // Chains are usually grouped by expiry, so the discount factors and sqrt(t) are only
+    // recomputed when the time, rate or dividend yield differ from the previous row.
+    @Override
+    public void priceOptions(boolean[] isCall, double[] underlyingPrice, double[] strikePrice,
+                             double[] timeRemaining, double[] volatility, double[] interestRate,
+                             double[] dividendYield, double[] prices, int offset, int length) {
+        priceAndDelta(isCall, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield,
+                prices, null, offset, length);
+    }
+
+    // Same as priceOptions, also writing delta to deltas when it is not null.
+    public void priceAndDelta(boolean[] isCall, double[] underlyingPrice, double[] strikePrice,
+                              double[] timeRemaining, double[] volatility, double[] interestRate,
+                              double[] dividendYield, double[] prices, double[] deltas, int offset, int length) {
+        int done = offset;
+        if (VECTOR_KERNEL && length >= BlackScholesVectorKernel.lanes()) {
+            done = BlackScholesVectorKernel.priceAndDelta(isCall, underlyingPrice, strikePrice, timeRemaining,
+                    volatility, interestRate, dividendYield, prices, deltas, offset, length);
+        }
+        priceAndDeltaScalar(isCall, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield, prices, deltas, done, offset + length - done);
+    }
+
+    private void priceAndDeltaScalar(boolean[] isCall, double[] underlyingPrice, double[] strikePrice,
+                                     double[] timeRemaining, double[] volatility, double[] interestRate,
+                                     double[] dividendYield, double[] prices, double[] deltas,
+                                     int offset, int length) {
+        double lastT = Double.NaN, lastR = Double.NaN, lastQ = Double.NaN;
+        double sqt = 0d, dr = 0d, drq = 0d;
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            final double t = timeRemaining[i];
+            if (t <= 0) {
+                prices[i] = Math.abs(underlyingPrice[i] - strikePrice[i]);
+                if (deltas != null) {
+                    deltas[i] = isCall[i] ? (underlyingPrice[i] > strikePrice[i] ? 1d : 0d)
+                            : (underlyingPrice[i] < strikePrice[i] ? -1d : 0d);
+                }
+                continue;
+            }
+            final double r = interestRate[i], q = dividendYield[i];
+            if (t != lastT) {
+                sqt = Math.sqrt(t);
+            }
+            if (t != lastT || r != lastR) {
+                dr = Math.exp(-r * t);
+            }
+            if (t != lastT || q != lastQ) {
+                drq = Math.exp(-q * t);
+            }
+            lastT = t;
+            lastR = r;
+            lastQ = q;
+            final double v = volatility[i], sign = isCall[i] ? 1d : -1d;
+            prices[i] = priceImpl(sign, underlyingPrice[i], strikePrice[i], t, v, r, q, dr, drq, v * sqt);
+            if (deltas != null) {
+                final double d1 = d1(underlyingPrice[i], strikePrice[i], t, v, r, q, v * sqt);
+                deltas[i] = sign * drq * cdf(sign * d1);
+            }
+        }
+    }
+
     double d1(double s, double k, double t, double v, double r, double q, double vt) {
         double d1 = Math.log(s / k) + (t * (r - q + ((v * v) * 0.5d)));
         d1 = d1 / vt;
@@ -58,10 +161,22 @@ public class BlackScholes implements IOptionModel {
         return (Math.exp(-(d1 * d1) * 0.5)) / Constants.SQRT_TWOPI;
     }
 
+    // the greeks treat any type other than "P" as a call
+    private static OptionType greeksType(String type) {
+        return ("P".equals(type)) ? OptionType.PUT : OptionType.CALL;
+    }
+
     public double delta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                         double volatility, double interestRate, double dividendYield) {
+        return delta(greeksType(type), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    @Override
+    public double delta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
         final double drq = Math.exp(-dividendYield * timeRemaining);
-        final double zo = ("P".equals(type)) ? -1d : 0d;
+        final double zo = (type == OptionType.PUT) ? -1d : 0d;
         final double vt = (volatility * (Math.sqrt(timeRemaining)));
         final double d2 = d1(underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield, vt);
         final double cdfd2 = cdf(d2);
@@ -79,6 +194,13 @@ public class BlackScholes implements IOptionModel {
     // Greeks (generally follows the macroption.com spreadsheet formula)
     public double vega(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                        double volatility, double interestRate, double dividendYield) {
+        return vega(greeksType(type), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    @Override
+    public double vega(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
         final double d1pdf = d1pdf(underlyingPrice, strikePrice, volatility, timeRemaining, interestRate, dividendYield);
         final double drq = Math.exp(-dividendYield * timeRemaining);
         final double sqt = Math.sqrt(timeRemaining);
@@ -88,7 +210,14 @@ public class BlackScholes implements IOptionModel {
     public double theta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
                         double volatility,
                         double interestRate, double dividendYield) {
-        final double sign = ("P".equals(type)) ? -1d : 1d;
+        return theta(greeksType(type), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    @Override
+    public double theta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final double sign = type.getSign();
         final double drq = Math.exp(-dividendYield * timeRemaining);
         final double dr = Math.exp(-interestRate * timeRemaining);
         final double d1pdf = d1pdf(underlyingPrice, strikePrice, volatility, timeRemaining, interestRate, dividendYield);
@@ -112,7 +241,14 @@ public class BlackScholes implements IOptionModel {
 
     public double rho(String type, double underlyingPrice, double strikePrice, double timeRemaining, double volatility,
                       double interestRate, double dividendYield) {
-        final double sign = ("P".equals(type)) ? -1d : 1d;
+        return rho(greeksType(type), underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield);
+    }
+
+    @Override
+    public double rho(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        final double sign = type.getSign();
         final double dr = Math.exp(-interestRate * timeRemaining);
         final double p1 = sign * (strikePrice * timeRemaining * dr) / 100;
 
@@ -123,11 +259,56 @@ public class BlackScholes implements IOptionModel {
         return p1 * nd2;
     }
 
+    @Override
+    public PriceAndGreeks priceAndGreeks(OptionType type, double underlyingPrice, double strikePrice,
+                                         double timeRemaining, double volatility, double interestRate,
+                                         double dividendYield, PriceAndGreeks result) {
+        final double sign = type.getSign();
+        final double sqt = Math.sqrt(timeRemaining);
+        final double vt = volatility * sqt;
+        final double dr = Math.exp(-interestRate * timeRemaining);
+        final double drq = Math.exp(-dividendYield * timeRemaining);
+        final double d1 = d1(underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield, vt);
+        final double d1pdf = (Math.exp(-(d1 * d1) * 0.5)) / Constants.SQRT_TWOPI;
+        final double nd1 = cdf(sign * d1);
+        final double nd2 = cdf(sign * (d1 - vt));
+
+        final double price;
+        if (timeRemaining <= 0) {
+            price = Math.abs(underlyingPrice - strikePrice);
+        } else {
+            price = sign * ((underlyingPrice * drq * nd1) - (strikePrice * dr * nd2));
+        }
+        final double delta = sign * drq * nd1;
+        final double gamma = (drq / (underlyingPrice * vt)) * d1pdf;
+        final double vega = d1pdf * drq * underlyingPrice * sqt * 0.01;
+        final double theta = (-1 * ((underlyingPrice * volatility * drq) / (2 * sqt)) * d1pdf
+                              - sign * interestRate * strikePrice * dr * nd2
+                              + sign * dividendYield * underlyingPrice * drq * nd1) / 365;
+        final double rho = sign * (strikePrice * timeRemaining * dr) / 100 * nd2;
+        return result.set(price, delta, gamma, theta, vega, rho);
+    }
 
     // Implied vol
     public double impliedVolatility(String type, double optionPrice, double underlyingPrice,
                                     double strikePrice, double timeRemaining, double initialVolatility,
                                     double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? Double.NaN : impliedVolatility(optionType, optionPrice, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double impliedVolatility(OptionType type, double optionPrice, double underlyingPrice,
+                                    double strikePrice, double timeRemaining, double initialVolatility,
+                                    double interestRate, double dividendYield) {
+        if (ivSolver == IvSolver.LETS_BE_RATIONAL) {
+            // NaN when the price is outside (intrinsic, maximum) or the option has expired
+            final double dr = Math.exp(-interestRate * timeRemaining);
+            final double forward = underlyingPrice * Math.exp((interestRate - dividendYield) * timeRemaining);
+            return LetsBeRational.impliedVolatility(optionPrice / dr, forward, strikePrice, timeRemaining,
+                    type.getSign(), LetsBeRational.DEFAULT_ITERATIONS);
+        }
         initialVolatility = initialVolatility > 0d ? initialVolatility : 0.5;
         final int maxloops = 1000;
         int n = 0;
@@ -144,6 +325,16 @@ public class BlackScholes implements IOptionModel {
                 upper = initialVolatility;
             } else if (diffVal < 0) {
                 lower = initialVolatility;
+            }
+
+            double v1 = vega(type, underlyingPrice, strikePrice, timeRemaining, initialVolatility, interestRate,
+                    dividendYield) / 0.01;
+            if (v1 > Constants.IV_PRECISION / 1000.d) {
+                dv = diffVal / v1;
+                initialVolatility = initialVolatility - dv;
+            } else {
+                // the upper bound is only needed to bisect, so it is searched for here rather than on every
+                // step from below, which keeps a warm-started search at one reprice per Newton step
                 if (upper == Double.MAX_VALUE) {
                     double diffVal2;
                     double upper2 = lower;
@@ -155,17 +346,9 @@ public class BlackScholes implements IOptionModel {
                             lower = upper2;
                             ++n;
                         }
-                    } while (diffVal2 < 0);
+                    } while (diffVal2 < 0 && n < maxloops);
                     upper = upper2;
                 }
-            }
-
-            double v1 = vega(type, underlyingPrice, strikePrice, timeRemaining, initialVolatility, interestRate,
-                    dividendYield) / 0.01;
-            if (v1 > Constants.IV_PRECISION / 1000.d) {
-                dv = diffVal / v1;
-                initialVolatility = initialVolatility - dv;
-            } else {
                 initialVolatility = (upper + lower) / 2.0d;
                 dv = upper - lower;
             }
@@ -176,6 +359,20 @@ public class BlackScholes implements IOptionModel {
         return initialVolatility;
     }
 
+    // Let's Be Rational does not stop on a step
+    @Override
+    public double impliedVolatilityStep() {
+        return ivSolver == IvSolver.NEWTON ? Constants.IV_PRECISION : 0d;
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, OptionType type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
     @Override
     public IGreeks greeks(ZonedDateTime updateTime, String type, double bid, double ask, double smvPrice,
                           double s, double strikePrice, double timeRemaining, double initialVolatility,
@@ -0,0 +1,130 @@
+package com.santoch.optionpricing.vanilla;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD version of the BlackScholes price and delta, SPECIES.length() contracts per iteration.
+// Only touched by BlackScholes when the jdk.incubator.vector module is in the boot layer,
+// otherwise this class is never loaded and the scalar code is used.
+final class BlackScholesVectorKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double TOO_MANY_DEVIATIONS = 38d;
+    private static final double SQRT32 = Math.sqrt(32d);
+    private static final double ONE_OVER_SQRT_TWO_PI = 1d / Math.sqrt(2d * Math.PI);
+
+    private BlackScholesVectorKernel() {}
+
+    // a one lane "vector" would only add overhead
+    static boolean isUseful() {
+        return SPECIES.length() > 1;
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    // Processes whole vectors starting at offset and returns the index of the first row it did not
+    // price, the caller finishes the tail with the scalar code. deltas may be null.
+    static int priceAndDelta(boolean[] isCall, double[] underlyingPrice, double[] strikePrice,
+                             double[] timeRemaining, double[] volatility, double[] interestRate,
+                             double[] dividendYield, double[] prices, double[] deltas, int offset, int length) {
+        final int upper = offset + SPECIES.loopBound(length);
+        int i = offset;
+        for (; i < upper; i += SPECIES.length()) {
+            final DoubleVector s = DoubleVector.fromArray(SPECIES, underlyingPrice, i);
+            final DoubleVector k = DoubleVector.fromArray(SPECIES, strikePrice, i);
+            final DoubleVector t = DoubleVector.fromArray(SPECIES, timeRemaining, i);
+            final DoubleVector v = DoubleVector.fromArray(SPECIES, volatility, i);
+            final DoubleVector r = DoubleVector.fromArray(SPECIES, interestRate, i);
+            final DoubleVector q = DoubleVector.fromArray(SPECIES, dividendYield, i);
+            final VectorMask<Double> call = VectorMask.fromArray(SPECIES, isCall, i);
+            final VectorMask<Double> expired = t.compare(VectorOperators.LE, 0d);
+            final DoubleVector sign = DoubleVector.broadcast(SPECIES, -1d).blend(1d, call);
+
+            final DoubleVector dr = r.mul(t).neg().lanewise(VectorOperators.EXP);
+            final DoubleVector drq = q.mul(t).neg().lanewise(VectorOperators.EXP);
+            final DoubleVector vt = v.mul(t.sqrt());
+            final DoubleVector d1 = s.div(k).lanewise(VectorOperators.LOG)
+                    .add(t.mul(r.sub(q).add(v.mul(v).mul(0.5d))))
+                    .div(vt);
+            final DoubleVector d2 = d1.sub(vt);
+            final DoubleVector drqnd1 = drq.mul(cdf(sign.mul(d1)));
+            final DoubleVector price = sign.mul(s.mul(drqnd1).sub(k.mul(dr).mul(cdf(sign.mul(d2)))));
+            price.blend(s.sub(k).abs(), expired).intoArray(prices, i);
+
+            if (deltas != null) {
+                // call: drq * N(d1), put: drq * (N(d1) - 1) == -drq * N(-d1)
+                final DoubleVector delta = sign.mul(drqnd1);
+                final DoubleVector intrinsicDelta = DoubleVector.zero(SPECIES)
+                        .blend(1d, call.and(s.compare(VectorOperators.GT, k)))
+                        .blend(-1d, call.not().and(s.compare(VectorOperators.LT, k)));
+                delta.blend(intrinsicDelta, expired).intoArray(deltas, i);
+            }
+        }
+        return i;
+    }
+
+    // lane-wise NormalDistribution.StandardNormal.cdf, same Cody coefficients and Horner order. The middle
+    // and far tail rationals are only evaluated when some lane needs them.
+    static DoubleVector cdf(DoubleVector x) {
+        final DoubleVector y = x.abs();
+        final VectorMask<Double> central = y.compare(VectorOperators.LE, 0.67448975);
+        DoubleVector result = DoubleVector.zero(SPECIES);
+        if (central.anyTrue()) {
+            final DoubleVector xsq = x.mul(x);
+            final DoubleVector num = xsq.mul(0.065682337918207449113).add(2.2352520354606839287)
+                    .mul(xsq).add(161.02823106855587881)
+                    .mul(xsq).add(1067.6894854603709582)
+                    .mul(xsq).add(18154.981253343561249);
+            final DoubleVector den = xsq.add(47.20258190468824187)
+                    .mul(xsq).add(976.09855173777669322)
+                    .mul(xsq).add(10260.932208618978205)
+                    .mul(xsq).add(45507.789335026729956);
+            result = result.blend(x.mul(num.div(den)).add(0.5d), central);
+        }
+        if (!central.allTrue()) {
+            final VectorMask<Double> far = y.compare(VectorOperators.GT, SQRT32);
+            DoubleVector tail = DoubleVector.zero(SPECIES);
+            if (!far.allTrue()) {
+                final DoubleVector num = y.mul(1.0765576773720192317e-8).add(0.39894151208813466764)
+                        .mul(y).add(8.8831497943883759412)
+                        .mul(y).add(93.506656132177855979)
+                        .mul(y).add(597.27027639480026226)
+                        .mul(y).add(2494.5375852903726711)
+                        .mul(y).add(6848.1904505362823326)
+                        .mul(y).add(11602.651437647350124)
+                        .mul(y).add(9842.7148383839780218);
+                final DoubleVector den = y.add(22.266688044328115691)
+                        .mul(y).add(235.38790178262499861)
+                        .mul(y).add(1519.377599407554805)
+                        .mul(y).add(6485.558298266760755)
+                        .mul(y).add(18615.571640885098091)
+                        .mul(y).add(34900.952721145977266)
+                        .mul(y).add(38912.003286093271411)
+                        .mul(y).add(19685.429676859990727);
+                tail = num.div(den);
+            }
+            if (far.anyTrue()) {
+                final DoubleVector ysq = DoubleVector.broadcast(SPECIES, 1d).div(y.mul(y));
+                final DoubleVector num = ysq.mul(0.02307344176494017303).add(0.21589853405795699)
+                        .mul(ysq).add(0.1274011611602473639)
+                        .mul(ysq).add(0.022235277870649807)
+                        .mul(ysq).add(0.001421619193227893466)
+                        .mul(ysq).add(2.9112874951168792e-5);
+                final DoubleVector den = ysq.add(1.28426009614491121)
+                        .mul(ysq).add(0.468238212480865118)
+                        .mul(ysq).add(0.0659881378689285515)
+                        .mul(ysq).add(0.00378239633202758244)
+                        .mul(ysq).add(7.29751555083966205e-5);
+                tail = tail.blend(ysq.mul(num.div(den)).neg().add(ONE_OVER_SQRT_TWO_PI).div(y), far);
+            }
+            tail = tail.mul(y.mul(y).mul(-0.5d).lanewise(VectorOperators.EXP));
+            tail = tail.blend(tail.neg().add(1d), x.compare(VectorOperators.GT, 0d));
+            result = result.blend(tail, central.not());
+        }
+        final VectorMask<Double> tooFar = y.compare(VectorOperators.GT, TOO_MANY_DEVIATIONS);
+        return result.blend(DoubleVector.zero(SPECIES).blend(1d, x.compare(VectorOperators.GT, 0d)), tooFar);
+    }
+}
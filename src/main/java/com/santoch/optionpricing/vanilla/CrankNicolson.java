@@ -0,0 +1,380 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.IFusedGreeksModel;
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+
+import java.security.InvalidParameterException;
+import java.time.ZonedDateTime;
+
+// American options from the Black-Scholes PDE, Crank-Nicolson in time on a uniform log-moneyness grid.
+// The price is homogeneous in underlying and strike, V(S, K) = K u(ln(S / K)) with u the price of an option
+// struck at 1, so a single solve for u prices every strike of an expiry: priceStrikes() sizes one grid to cover
+// the whole strip and reads each strike's price, delta and gamma off it.
+// Early exercise is a projection inside the tridiagonal solve (Brennan-Schwartz), the first two steps are
+// replaced by four implicit half steps (Rannacher) so the payoff kink does not leave oscillations in gamma.
+// The grid spans STD_DEVIATIONS standard deviations of ln(S) either side of the strikes with spaceSteps nodes
+// per 2 * STD_DEVIATIONS, the node arrays and solvers are per-thread and reused, so a solve allocates nothing.
+public class CrankNicolson implements IOptionModel, IFusedGreeksModel {
+    private static final double STD_DEVIATIONS = 5d;
+    private static final int SMOOTHING_STEPS = 2;
+    private static final double VOLATILITY_BUMP = 0.001d;
+    private static final double RATE_BUMP = 0.0001d;
+    private static final ThreadLocal<Grid> s_grid = ThreadLocal.withInitial(Grid::new);
+    private static final ThreadLocal<double[]> s_values = ThreadLocal.withInitial(() -> new double[4]);
+    // indexes into the values read off the grid
+    private static final int PRICE = 0;
+    private static final int DELTA = 1;
+    private static final int GAMMA = 2;
+    private static final int THETA = 3;
+
+    private final int spaceSteps;
+    private final int timeSteps;
+
+    public CrankNicolson() {
+        this(200, 100);
+    }
+
+    public CrankNicolson(int spaceSteps, int timeSteps) {
+        if (spaceSteps < 4) {
+            throw new InvalidParameterException("Invalid spaceSteps: " + spaceSteps);
+        }
+        if (timeSteps < SMOOTHING_STEPS + 1) {
+            throw new InvalidParameterException("Invalid timeSteps: " + timeSteps);
+        }
+        this.spaceSteps = spaceSteps;
+        this.timeSteps = timeSteps;
+    }
+
+    public int getSpaceSteps() {
+        return spaceSteps;
+    }
+
+    public int getTimeSteps() {
+        return timeSteps;
+    }
+
+    // Prices and, when the arrays are not null, deltas and gammas of rows [offset, offset + length) of
+    // strikePrice, all with the same expiry and volatility, from one solve.
+    public void priceStrikes(OptionType type, double underlyingPrice, double[] strikePrice, double timeRemaining,
+                             double volatility, double interestRate, double dividendYield, double[] prices,
+                             double[] deltas, double[] gammas, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        if (!(timeRemaining > 0) || !(volatility > 0)) {
+            final double[] values = s_values.get();
+            for (int i = offset; i < offset + length; i++) {
+                degenerate(type, underlyingPrice, strikePrice[i], timeRemaining, interestRate, dividendYield,
+                        values);
+                write(values, i, prices, deltas, gammas);
+            }
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        for (int i = offset; i < offset + length; i++) {
+            final double x = Math.log(underlyingPrice / strikePrice[i]);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+        }
+        final Grid grid = solve(type, minX, maxX, timeRemaining, volatility, interestRate, dividendYield);
+        final double[] values = s_values.get();
+        for (int i = offset; i < offset + length; i++) {
+            grid.read(underlyingPrice, strikePrice[i], values);
+            write(values, i, prices, deltas, gammas);
+        }
+    }
+
+    private static void write(double[] values, int i, double[] prices, double[] deltas, double[] gammas) {
+        prices[i] = values[PRICE];
+        if (deltas != null) {
+            deltas[i] = values[DELTA];
+        }
+        if (gammas != null) {
+            gammas[i] = values[GAMMA];
+        }
+    }
+
+    public double priceOption(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : priceOption(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        return evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield)
+                [PRICE];
+    }
+
+    public double delta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : delta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double delta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        return evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield)
+                [DELTA];
+    }
+
+    // the interface gamma has no type, this is the gamma of the call, priceAndGreeks gives the put's as well
+    public double gamma(double underlyingPrice, double strikePrice, double timeRemaining, double volatility,
+                        double interestRate, double dividendYield) {
+        return evaluate(OptionType.CALL, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield)[GAMMA];
+    }
+
+    public double vega(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : vega(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double vega(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                       double volatility, double interestRate, double dividendYield) {
+        final double up = priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility + VOLATILITY_BUMP, interestRate, dividendYield);
+        final double down = priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                volatility - VOLATILITY_BUMP, interestRate, dividendYield);
+        return (up - down) / (2 * VOLATILITY_BUMP) * 0.01;
+    }
+
+    public double theta(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : theta(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double theta(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                        double volatility, double interestRate, double dividendYield) {
+        return evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield)
+                [THETA];
+    }
+
+    public double rho(String type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? 0.0d : rho(optionType, underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double rho(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                      double volatility, double interestRate, double dividendYield) {
+        final double up = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate + RATE_BUMP, dividendYield);
+        final double down = priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate - RATE_BUMP, dividendYield);
+        return (up - down) / (2 * RATE_BUMP) * 0.01;
+    }
+
+    @Override
+    public PriceAndGreeks priceAndGreeks(OptionType type, double underlyingPrice, double strikePrice,
+                                         double timeRemaining, double volatility, double interestRate,
+                                         double dividendYield, PriceAndGreeks result) {
+        final double[] values = evaluate(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate, dividendYield);
+        final double price = values[PRICE], delta = values[DELTA], gamma = values[GAMMA], theta = values[THETA];
+        return result.set(price, delta, gamma, theta,
+                vega(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield),
+                rho(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield));
+    }
+
+    public double impliedVolatility(String type, double optionPrice, double underlyingPrice, double strikePrice,
+                                    double timeRemaining, double initialVolatility, double interestRate,
+                                    double dividendYield) {
+        final OptionType optionType = OptionType.fromCode(type);
+        return optionType == null ? Double.NaN : impliedVolatility(optionType, optionPrice, underlyingPrice,
+                strikePrice, timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double impliedVolatility(OptionType type, double optionPrice, double underlyingPrice,
+                                    double strikePrice, double timeRemaining, double initialVolatility,
+                                    double interestRate, double dividendYield) {
+        return AmericanImpliedVolatility.solve(this, type, optionPrice, underlyingPrice, strikePrice,
+                timeRemaining, initialVolatility, interestRate, dividendYield);
+    }
+
+    @Override
+    public double impliedVolatilityStep() {
+        return AmericanImpliedVolatility.TOLERANCE;
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, OptionType type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
+    @Override
+    public IGreeks greeks(ZonedDateTime updateTime, String type, double bid, double ask, double smvPrice,
+                          double s, double strikePrice, double timeRemaining, double initialVolatility,
+                          double interestRate, double dividendYield) {
+        return Utils.greeks(this, updateTime, type, bid, ask, smvPrice, s, strikePrice, timeRemaining,
+                initialVolatility, interestRate, dividendYield, true);
+    }
+
+    // price, delta, gamma and theta of one contract in the per-thread values buffer
+    private double[] evaluate(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                              double volatility, double interestRate, double dividendYield) {
+        final double[] values = s_values.get();
+        if (!(timeRemaining > 0) || !(volatility > 0)) {
+            degenerate(type, underlyingPrice, strikePrice, timeRemaining, interestRate, dividendYield, values);
+            return values;
+        }
+        final double x = Math.log(underlyingPrice / strikePrice);
+        solve(type, x, x, timeRemaining, volatility, interestRate, dividendYield)
+                .read(underlyingPrice, strikePrice, values);
+        return values;
+    }
+
+    // no diffusion left: the larger of exercising now and holding the forward to expiry
+    private static void degenerate(OptionType type, double underlyingPrice, double strikePrice,
+                                   double timeRemaining, double interestRate, double dividendYield,
+                                   double[] values) {
+        final double sign = type.getSign();
+        final double t = Math.max(timeRemaining, 0d);
+        final double hold = sign * (underlyingPrice * Math.exp(-dividendYield * t)
+                                    - strikePrice * Math.exp(-interestRate * t));
+        final double exercise = sign * (underlyingPrice - strikePrice);
+        values[PRICE] = Math.max(Math.max(hold, exercise), 0d);
+        values[DELTA] = values[PRICE] > 0 ? (hold > exercise ? sign * Math.exp(-dividendYield * t) : sign) : 0d;
+        values[GAMMA] = 0d;
+        values[THETA] = 0d;
+    }
+
+    // u at time to expiry timeRemaining (and one step before) on a grid covering log-moneyness [minX, maxX]
+    private Grid solve(OptionType type, double minX, double maxX, double timeRemaining, double volatility,
+                       double interestRate, double dividendYield) {
+        final double deviation = volatility * Math.sqrt(timeRemaining);
+        final double dx = 2 * STD_DEVIATIONS * deviation / spaceSteps;
+        final double low = minX - STD_DEVIATIONS * deviation;
+        final int nodes = (int) Math.ceil((maxX - minX) / dx) + spaceSteps + 1;
+        final Grid grid = s_grid.get();
+        grid.reset(type, low, dx, nodes);
+
+        // u_t = a u_{j-1} + b u_j + c u_{j+1}
+        final double diffusion = 0.5d * volatility * volatility / (dx * dx);
+        final double convection = (interestRate - dividendYield - 0.5d * volatility * volatility) / (2 * dx);
+        final double a = diffusion - convection;
+        final double b = -2 * diffusion - interestRate;
+        final double c = diffusion + convection;
+        final double dt = timeRemaining / timeSteps;
+        // a Crank-Nicolson step of dt and an implicit step of dt / 2 solve the same (I - dt / 2 L) system
+        final double half = 0.5d * dt;
+        grid.solver.factor(-half * a, 1 - half * b, -half * c, nodes - 2, type == OptionType.PUT);
+        for (int n = 0; n < timeSteps; n++) {
+            final double tau = n == timeSteps - 1 ? timeRemaining : (n + 1) * dt;
+            if (n < SMOOTHING_STEPS) {
+                grid.step(false, half, a, b, c, tau - half, interestRate, dividendYield);
+                grid.step(false, half, a, b, c, tau, interestRate, dividendYield);
+            } else {
+                grid.step(true, half, a, b, c, tau, interestRate, dividendYield);
+            }
+        }
+        grid.dt = dt;
+        return grid;
+    }
+
+    // per-thread nodes and solvers, grown to the largest grid seen
+    private static final class Grid {
+        private final TridiagonalSolver solver = new TridiagonalSolver();
+        private double[] values = new double[0];
+        private double[] previous = new double[0];
+        private double[] rhs = new double[0];
+        private double[] exercise = new double[0];
+        private OptionType type;
+        private double low;
+        private double dx;
+        private double dt;
+        private int nodes;
+
+        void reset(OptionType type, double low, double dx, int nodes) {
+            if (values.length < nodes) {
+                values = new double[nodes];
+                previous = new double[nodes];
+                rhs = new double[nodes];
+                exercise = new double[nodes];
+            }
+            this.type = type;
+            this.low = low;
+            this.dx = dx;
+            this.nodes = nodes;
+            final double sign = type.getSign();
+            for (int j = 0; j < nodes; j++) {
+                exercise[j] = Math.max(sign * (Math.exp(low + j * dx) - 1d), 0d);
+                values[j] = exercise[j];
+            }
+        }
+
+        // one step to time to expiry tau, the explicit half of the operator is applied for Crank-Nicolson only,
+        // then the factored implicit solve with the exercise projection
+        void step(boolean crankNicolson, double half, double a, double b, double c, double tau,
+                  double interestRate, double dividendYield) {
+            final int last = nodes - 1;
+            if (crankNicolson) {
+                for (int j = 1; j < last; j++) {
+                    rhs[j] = values[j] + half * (a * values[j - 1] + b * values[j] + c * values[j + 1]);
+                }
+            } else {
+                System.arraycopy(values, 1, rhs, 1, last - 1);
+            }
+            final double lowBoundary = boundary(low, tau, interestRate, dividendYield);
+            final double highBoundary = boundary(low + last * dx, tau, interestRate, dividendYield);
+            rhs[1] += half * a * lowBoundary;
+            rhs[last - 1] += half * c * highBoundary;
+            final double[] swap = previous;
+            previous = values;
+            values = swap;
+            solver.solve(rhs, values, exercise, 1);
+            values[0] = lowBoundary;
+            values[last] = highBoundary;
+        }
+
+        // far from the strike: the larger of exercising and holding the discounted forward
+        private double boundary(double x, double tau, double interestRate, double dividendYield) {
+            final double sign = type.getSign();
+            final double s = Math.exp(x);
+            return Math.max(Math.max(sign * (s * Math.exp(-dividendYield * tau) - Math.exp(-interestRate * tau)),
+                    sign * (s - 1d)), 0d);
+        }
+
+        // price, delta, gamma and theta at ln(S / K) from the cubic through the four nearest nodes, whose second
+        // derivative moves linearly between the nodes instead of jumping from one node's to the next
+        void read(double underlyingPrice, double strikePrice, double[] out) {
+            final double position = (Math.log(underlyingPrice / strikePrice) - low) / dx;
+            final int j = Math.max(1, Math.min(nodes - 3, (int) Math.floor(position)));
+            final double g = position - j;
+            final double g2 = g * g;
+            final double w0 = -g * (g - 1) * (g - 2) / 6, w1 = (g + 1) * (g - 1) * (g - 2) / 2;
+            final double w2 = -(g + 1) * g * (g - 2) / 2, w3 = (g + 1) * g * (g - 1) / 6;
+            final double u = w0 * values[j - 1] + w1 * values[j] + w2 * values[j + 1] + w3 * values[j + 2];
+            final double ux = (-(3 * g2 - 6 * g + 2) / 6 * values[j - 1] + (3 * g2 - 4 * g - 1) / 2 * values[j]
+                               - (3 * g2 - 2 * g - 2) / 2 * values[j + 1] + (3 * g2 - 1) / 6 * values[j + 2]) / dx;
+            final double uxx = ((1 - g) * values[j - 1] + (3 * g - 2) * values[j] + (1 - 3 * g) * values[j + 1]
+                                + g * values[j + 2]) / (dx * dx);
+            final double earlier = w0 * previous[j - 1] + w1 * previous[j] + w2 * previous[j + 1]
+                                   + w3 * previous[j + 2];
+            out[PRICE] = strikePrice * u;
+            out[DELTA] = strikePrice * ux / underlyingPrice;
+            out[GAMMA] = strikePrice * (uxx - ux) / (underlyingPrice * underlyingPrice);
+            out[THETA] = -strikePrice * (u - earlier) / dt / 365;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+
+import static com.santoch.optionpricing.util.NormalDistribution.StandardNormal.cdf;
+
+// Black-Scholes price and greeks of one contract that keeps its intermediates between evaluations.
+// Every setter marks the inputs that changed, and the next evaluation recomputes only what depends on them:
+// a spot tick keeps sqrt(t), the discount factors and the drift and redoes log(S/K) and the CDFs, a rate
+// update keeps log(S/K) and sqrt(t). Setting an input to its current value marks nothing, so an unchanged
+// contract costs a flag check.
+// Values match BlackScholes.priceOption and BlackScholes.priceAndGreeks for the same inputs.
+// Not thread safe, meant to be owned by whatever holds the contract.
+public class IncrementalBlackScholes {
+    private static final int SPOT = 1;
+    private static final int TIME = 1 << 1;
+    private static final int VOLATILITY = 1 << 2;
+    private static final int RATE = 1 << 3;
+    private static final int DIVIDEND = 1 << 4;
+    private static final int ALL = SPOT | TIME | VOLATILITY | RATE | DIVIDEND;
+
+    private final OptionType type;
+    private final double sign;
+    private final double strikePrice;
+    private double underlyingPrice;
+    private double timeRemaining;
+    private double volatility;
+    private double interestRate;
+    private double dividendYield;
+    private int dirty = ALL;
+    private boolean densityValid;
+
+    // depends on S
+    private double logMoneyness;
+    // depend on t and one of v, r, q
+    private double sqt;
+    private double vt;
+    private double dr;
+    private double drq;
+    private double drift;
+    // depend on everything
+    private double d1;
+    private double nd1;
+    private double nd2;
+    private double d1pdf;
+    private double price;
+
+    public IncrementalBlackScholes(OptionType type, double underlyingPrice, double strikePrice,
+                                   double timeRemaining, double volatility, double interestRate,
+                                   double dividendYield) {
+        this.type = type;
+        this.sign = type.getSign();
+        this.strikePrice = strikePrice;
+        this.underlyingPrice = underlyingPrice;
+        this.timeRemaining = timeRemaining;
+        this.volatility = volatility;
+        this.interestRate = interestRate;
+        this.dividendYield = dividendYield;
+    }
+
+    public OptionType getType() {
+        return type;
+    }
+
+    public double getStrikePrice() {
+        return strikePrice;
+    }
+
+    public double getUnderlyingPrice() {
+        return underlyingPrice;
+    }
+
+    public void setUnderlyingPrice(double underlyingPrice) {
+        if (underlyingPrice != this.underlyingPrice) {
+            this.underlyingPrice = underlyingPrice;
+            dirty |= SPOT;
+        }
+    }
+
+    public double getTimeRemaining() {
+        return timeRemaining;
+    }
+
+    public void setTimeRemaining(double timeRemaining) {
+        if (timeRemaining != this.timeRemaining) {
+            this.timeRemaining = timeRemaining;
+            dirty |= TIME;
+        }
+    }
+
+    public double getVolatility() {
+        return volatility;
+    }
+
+    public void setVolatility(double volatility) {
+        if (volatility != this.volatility) {
+            this.volatility = volatility;
+            dirty |= VOLATILITY;
+        }
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public void setInterestRate(double interestRate) {
+        if (interestRate != this.interestRate) {
+            this.interestRate = interestRate;
+            dirty |= RATE;
+        }
+    }
+
+    public double getDividendYield() {
+        return dividendYield;
+    }
+
+    public void setDividendYield(double dividendYield) {
+        if (dividendYield != this.dividendYield) {
+            this.dividendYield = dividendYield;
+            dirty |= DIVIDEND;
+        }
+    }
+
+    public double price() {
+        update();
+        return price;
+    }
+
+    public double delta() {
+        update();
+        return sign * drq * nd1;
+    }
+
+    public double gamma() {
+        update();
+        return (drq / (underlyingPrice * vt)) * density();
+    }
+
+    public double vega() {
+        update();
+        return density() * drq * underlyingPrice * sqt * 0.01;
+    }
+
+    public double theta() {
+        update();
+        return (-1 * ((underlyingPrice * volatility * drq) / (2 * sqt)) * density()
+                - sign * interestRate * strikePrice * dr * nd2
+                + sign * dividendYield * underlyingPrice * drq * nd1) / 365;
+    }
+
+    public double rho() {
+        update();
+        return sign * (strikePrice * timeRemaining * dr) / 100 * nd2;
+    }
+
+    public PriceAndGreeks priceAndGreeks(PriceAndGreeks result) {
+        return result.set(price(), delta(), gamma(), theta(), vega(), rho());
+    }
+
+    private double density() {
+        if (!densityValid) {
+            d1pdf = (Math.exp(-(d1 * d1) * 0.5)) / Constants.SQRT_TWOPI;
+            densityValid = true;
+        }
+        return d1pdf;
+    }
+
+    private void update() {
+        final int changed = dirty;
+        if (changed == 0) {
+            return;
+        }
+        dirty = 0;
+        densityValid = false;
+        final double t = timeRemaining;
+        if ((changed & SPOT) != 0) {
+            logMoneyness = Math.log(underlyingPrice / strikePrice);
+        }
+        if ((changed & TIME) != 0) {
+            sqt = Math.sqrt(t);
+        }
+        if ((changed & (TIME | VOLATILITY)) != 0) {
+            vt = volatility * sqt;
+        }
+        if ((changed & (TIME | RATE)) != 0) {
+            dr = Math.exp(-interestRate * t);
+        }
+        if ((changed & (TIME | DIVIDEND)) != 0) {
+            drq = Math.exp(-dividendYield * t);
+        }
+        if ((changed & (TIME | VOLATILITY | RATE | DIVIDEND)) != 0) {
+            drift = t * (interestRate - dividendYield + ((volatility * volatility) * 0.5d));
+        }
+        d1 = (logMoneyness + drift) / vt;
+        nd1 = cdf(sign * d1);
+        nd2 = cdf(sign * (d1 - vt));
+        if (t <= 0) {
+            price = Math.abs(underlyingPrice - strikePrice);
+        } else {
+            price = sign * ((underlyingPrice * drq * nd1) - (strikePrice * dr * nd2));
+        }
+    }
+}
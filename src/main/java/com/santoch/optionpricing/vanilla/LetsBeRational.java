@@ -0,0 +1,375 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.util.Constants;
+
+import static com.santoch.optionpricing.util.NormalDistribution.StandardNormal.cdf;
+import static com.santoch.optionpricing.util.NormalDistribution.StandardNormal.inverseCdf;
+
+// references:
+// P. Jaeckel, "Let's Be Rational", Wilmott (2015), http://www.jaeckel.org/LetsBeRational.pdf
+// P. Jaeckel, "By Implication", Wilmott (2006)
+//
+// Implied Black volatility from a rational initial guess followed by a fixed number of Householder (third order)
+// steps on the normalised Black function b(x, s) = exp(x/2) N(x/s + s/2) - exp(-x/2) N(x/s - s/2),
+// x = ln(F/K), s = volatility * sqrt(t). Each step costs one b and one vega evaluation, so the cost of a call
+// is bounded by the iteration count (two is enough for machine precision).
+public final class LetsBeRational {
+    public static final int DEFAULT_ITERATIONS = 2;
+
+    private static final double DBL_EPSILON = Math.ulp(1.0d);
+    private static final double DBL_MIN = Double.MIN_NORMAL;
+    private static final double DBL_MAX = Double.MAX_VALUE;
+    private static final double SQRT_DBL_MAX = Math.sqrt(DBL_MAX);
+    private static final double ONE_OVER_SQRT_TWO_PI = 1d / Constants.SQRT_TWOPI;
+    private static final double SQRT_THREE = Math.sqrt(3d);
+    private static final double TWO_PI_OVER_SQRT_TWENTY_SEVEN = 2d * Math.PI / Math.sqrt(27d);
+    private static final double MINIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER = -(1 - Math.sqrt(DBL_EPSILON));
+    private static final double MAXIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER = 2 / (DBL_EPSILON * DBL_EPSILON);
+    // per-thread {f, df/dbeta, d2f/dbeta2} of the lower and upper maps, so no call allocates
+    private static final ThreadLocal<double[]> s_map = ThreadLocal.withInitial(() -> new double[3]);
+
+    // cannot instantiate
+    private LetsBeRational() {}
+
+    // price = undiscounted (forward) option price, q = 1 for a call, -1 for a put.
+    // Returns NaN when the price is below the intrinsic value or not below the maximum (F for a call,
+    // K for a put), 0 when it equals the intrinsic value (to within rounding).
+    public static double impliedVolatility(double price, double forward, double strikePrice, double timeRemaining,
+                                           double q, int iterations) {
+        if (!(timeRemaining > 0) || !(forward > 0) || !(strikePrice > 0)) {
+            return Double.NaN;
+        }
+        final double intrinsic = Math.max(q < 0 ? strikePrice - forward : forward - strikePrice, 0d);
+        if (price < intrinsic - 4 * DBL_EPSILON * Math.max(forward, strikePrice)
+            || price >= (q < 0 ? strikePrice : forward)) {
+            return Double.NaN;
+        }
+        final double x = Math.log(forward / strikePrice);
+        final double beta = price / Math.sqrt(forward * strikePrice);
+        return normalisedImpliedVolatility(beta, x, q, iterations) / Math.sqrt(timeRemaining);
+    }
+
+    // s = volatility * sqrt(t) for the normalised price beta
+    public static double normalisedImpliedVolatility(double beta, double x, double q, int iterations) {
+        // map in-the-money to out-of-the-money
+        if (q * x > 0) {
+            beta = Math.abs(Math.max(beta - normalisedIntrinsic(x, q), 0d));
+            q = -q;
+        }
+        // map puts to calls, from here on x <= 0
+        if (q < 0) {
+            x = -x;
+        }
+        if (beta <= 0) {
+            return 0d;
+        }
+        final double bMax = Math.exp(0.5 * x);
+        if (beta >= bMax) {
+            return Double.NaN;
+        }
+        if (x == 0) {
+            // b(0, s) = 1 - 2 N(-s/2)
+            return -2d * inverseCdf(0.5d * (1d - beta));
+        }
+
+        double s;
+        double sLeft = DBL_MIN, sRight = DBL_MAX;
+        int objective;
+        final double sC = Math.sqrt(Math.abs(2 * x));
+        final double bC = normalisedBlackCall(x, sC);
+        final double vC = normalisedVega(x, sC);
+        if (beta < bC) {
+            final double sL = sC - bC / vC;
+            final double bL = normalisedBlackCall(x, sL);
+            if (beta < bL) {
+                final double[] fLower = lowerMap(x, sL, s_map.get());
+                final double rLl = convexRationalCubicControlParameterToFitSecondDerivativeAtRightSide(0d, bL, 0d,
+                        fLower[0], 1d, fLower[1], fLower[2], true);
+                double f = rationalCubicInterpolation(beta, 0d, bL, 0d, fLower[0], 1d, fLower[1], rLl);
+                if (!(f > 0)) {
+                    // fall back to a quadratic that matches the end points
+                    final double t = beta / bL;
+                    f = (fLower[0] * t + bL * (1 - t)) * t;
+                }
+                s = inverseLowerMap(x, f);
+                sRight = sL;
+                objective = LOWER;
+            } else {
+                final double vL = normalisedVega(x, sL);
+                final double rLm = convexRationalCubicControlParameterToFitSecondDerivativeAtRightSide(bL, bC, sL,
+                        sC, 1 / vL, 1 / vC, 0d, false);
+                s = rationalCubicInterpolation(beta, bL, bC, sL, sC, 1 / vL, 1 / vC, rLm);
+                sLeft = sL;
+                sRight = sC;
+                objective = CENTRAL;
+            }
+        } else {
+            final double sH = vC > DBL_MIN ? sC + (bMax - bC) / vC : sC;
+            final double bH = normalisedBlackCall(x, sH);
+            if (beta <= bH) {
+                final double vH = normalisedVega(x, sH);
+                final double rHm = convexRationalCubicControlParameterToFitSecondDerivativeAtLeftSide(bC, bH, sC,
+                        sH, 1 / vC, 1 / vH, 0d, false);
+                s = rationalCubicInterpolation(beta, bC, bH, sC, sH, 1 / vC, 1 / vH, rHm);
+                sLeft = sC;
+                sRight = sH;
+                objective = CENTRAL;
+            } else {
+                final double[] fUpper = upperMap(x, sH, s_map.get());
+                double f = 0d;
+                if (fUpper[2] > -SQRT_DBL_MAX && fUpper[2] < SQRT_DBL_MAX) {
+                    final double rHh = convexRationalCubicControlParameterToFitSecondDerivativeAtLeftSide(bH, bMax,
+                            fUpper[0], 0d, fUpper[1], -0.5d, fUpper[2], true);
+                    f = rationalCubicInterpolation(beta, bH, bMax, fUpper[0], 0d, fUpper[1], -0.5d, rHh);
+                }
+                if (f <= 0) {
+                    final double h = bMax - bH;
+                    final double t = (beta - bH) / h;
+                    f = (fUpper[0] * (1 - t) + 0.5 * h * t) * (1 - t);
+                }
+                s = -2d * inverseCdf(f);
+                sLeft = sH;
+                objective = beta > 0.5 * bMax ? UPPER : CENTRAL;
+            }
+        }
+        return householder(beta, x, bMax, s, sLeft, sRight, objective, iterations);
+    }
+
+    private static final int LOWER = 0;
+    private static final int CENTRAL = 1;
+    private static final int UPPER = 2;
+
+    // Householder steps on g(s) = 1/ln(b) - 1/ln(beta) (LOWER), b - beta (CENTRAL)
+    // or ln(bMax - beta) - ln(bMax - b) (UPPER), safeguarded by the bracket [sLeft, sRight]
+    private static double householder(double beta, double x, double bMax, double s, double sLeft, double sRight,
+                                      int objective, int iterations) {
+        double ds = s, dsPrevious = 0d;
+        int directionReversals = 0;
+        final double lnBeta = Math.log(beta);
+        final double lnBMaxMinusBeta = Math.log(bMax - beta);
+        for (int n = 0; n < iterations && Math.abs(ds) > DBL_EPSILON * s; n++) {
+            if (ds * dsPrevious < 0) {
+                ++directionReversals;
+            }
+            if (n > 0 && (directionReversals == 3 || !(s > sLeft && s < sRight))) {
+                // bisect when the steps oscillate or leave the bracket
+                s = 0.5 * (sLeft + sRight);
+                if (sRight - sLeft <= DBL_EPSILON * s) {
+                    break;
+                }
+                directionReversals = 0;
+                ds = 0d;
+            }
+            dsPrevious = ds;
+
+            final double b = normalisedBlackCall(x, s);
+            final double bp = normalisedVega(x, s);
+            if (b > beta && s < sRight) {
+                sRight = s;
+            } else if (b < beta && s > sLeft) {
+                sLeft = s;
+            }
+            if (b <= 0 || bp <= 0 || (objective == UPPER && b >= bMax)) {
+                ds = 0.5 * (sLeft + sRight) - s;
+            } else {
+                // b''/b' and b'''/b'
+                final double h = x / s;
+                final double r2 = h * h / s - s / 4;
+                final double r3 = r2 * r2 - 3 * (h / s) * (h / s) - 0.25;
+                final double newton, halley, hh3;
+                if (objective == LOWER) {
+                    final double lnB = Math.log(b);
+                    final double l1 = bp / b;
+                    final double l2 = bp * r2 / b - l1 * l1;
+                    final double l3 = bp * r3 / b - 3 * l1 * bp * r2 / b + 2 * l1 * l1 * l1;
+                    newton = (1 / lnB - 1 / lnBeta) * lnB * lnB / l1;
+                    halley = l2 / l1 - 2 * l1 / lnB;
+                    hh3 = l3 / l1 - 6 * l2 / lnB + 6 * l1 * l1 / (lnB * lnB);
+                } else if (objective == UPPER) {
+                    final double c = bMax - b;
+                    final double bpOverC = bp / c;
+                    newton = (Math.log(c) - lnBMaxMinusBeta) / bpOverC;
+                    halley = r2 + bpOverC;
+                    hh3 = r3 + 3 * r2 * bpOverC + 2 * bpOverC * bpOverC;
+                } else {
+                    newton = (beta - b) / bp;
+                    halley = r2;
+                    hh3 = r3;
+                }
+                ds = Math.max(-0.5 * s, newton * householderFactor(newton, halley, hh3));
+            }
+            s += ds;
+        }
+        return s;
+    }
+
+    private static double householderFactor(double newton, double halley, double hh3) {
+        return (1 + 0.5 * halley * newton) / (1 + newton * (halley + hh3 * newton / 6));
+    }
+
+    static double normalisedIntrinsic(double x, double q) {
+        if (q * x <= 0) {
+            return 0d;
+        }
+        return Math.abs(2 * Math.sinh(0.5 * x));
+    }
+
+    public static double normalisedBlackCall(double x, double s) {
+        if (x > 0) {
+            return normalisedIntrinsic(x, 1d) + normalisedBlackCall(-x, s);
+        }
+        if (s <= 0) {
+            return 0d;
+        }
+        final double h = x / s, t = 0.5 * s;
+        return Math.max(Math.exp(0.5 * x) * cdf(h + t) - Math.exp(-0.5 * x) * cdf(h - t), 0d);
+    }
+
+    // db/ds
+    public static double normalisedVega(double x, double s) {
+        if (s <= 0) {
+            return 0d;
+        }
+        final double h = x / s, t = 0.5 * s;
+        return ONE_OVER_SQRT_TWO_PI * Math.exp(-0.5 * (h * h + t * t));
+    }
+
+    // f(s) = 2 pi |x| / sqrt(27) * N(-|x| / (sqrt(3) s))^3 with df/dbeta and d2f/dbeta2, written to out
+    private static double[] lowerMap(double x, double s, double[] out) {
+        final double ax = Math.abs(x);
+        final double z = -ax / (SQRT_THREE * s);
+        final double phi = cdf(z);
+        final double pdf = ONE_OVER_SQRT_TWO_PI * Math.exp(-0.5 * z * z);
+        final double a = TWO_PI_OVER_SQRT_TWENTY_SEVEN * ax;
+        final double f = a * phi * phi * phi;
+        final double dz = -z / s, d2z = 2 * z / (s * s);
+        final double fp = 3 * a * phi * phi * pdf * dz;
+        final double fpp = 3 * a * (2 * phi * pdf * pdf * dz * dz - phi * phi * z * pdf * dz * dz
+                                    + phi * phi * pdf * d2z);
+        return mapDerivatives(x, s, f, fp, fpp, out);
+    }
+
+    private static double inverseLowerMap(double x, double f) {
+        if (f <= 0) {
+            return 0d;
+        }
+        final double ax = Math.abs(x);
+        return Math.abs(ax / (SQRT_THREE * inverseCdf(Math.cbrt(f / (TWO_PI_OVER_SQRT_TWENTY_SEVEN * ax)))));
+    }
+
+    // f(s) = N(-s/2) with df/dbeta and d2f/dbeta2, written to out
+    private static double[] upperMap(double x, double s, double[] out) {
+        final double t = 0.5 * s;
+        final double pdf = ONE_OVER_SQRT_TWO_PI * Math.exp(-0.5 * t * t);
+        return mapDerivatives(x, s, cdf(-t), -0.5 * pdf, 0.25 * t * pdf, out);
+    }
+
+    // turns f(s), f'(s), f''(s) into f, df/dbeta, d2f/dbeta2 along beta = b(x, s)
+    private static double[] mapDerivatives(double x, double s, double f, double fp, double fpp, double[] out) {
+        final double bp = normalisedVega(x, s);
+        final double h = x / s;
+        final double bpp = bp * (h * h / s - s / 4);
+        final double dfdb = fp / bp;
+        final double d2fdb2 = (fpp - dfdb * bpp) / (bp * bp);
+        out[0] = f;
+        out[1] = dfdb;
+        out[2] = d2fdb2;
+        return out;
+    }
+
+    // rational cubic interpolation (Delbourgo & Gregory) with control parameter r
+    private static double rationalCubicInterpolation(double x, double xL, double xR, double yL, double yR,
+                                                     double dL, double dR, double r) {
+        final double h = xR - xL;
+        if (Math.abs(h) <= 0) {
+            return 0.5 * (yL + yR);
+        }
+        final double t = (x - xL) / h;
+        if (!(r >= MAXIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER)) {
+            final double omt = 1 - t, t2 = t * t, omt2 = omt * omt;
+            return (yR * t2 * t + (r * yR - h * dR) * t2 * omt + (r * yL + h * dL) * t * omt2 + yL * omt2 * omt)
+                   / (1 + (r - 3) * t * omt);
+        }
+        // r = infinity, the interpolation is linear
+        return yR * t + yL * (1 - t);
+    }
+
+    private static boolean isZero(double x) {
+        return Math.abs(x) < DBL_MIN;
+    }
+
+    private static double rationalCubicControlParameterToFitSecondDerivativeAtLeftSide(
+            double xL, double xR, double yL, double yR, double dL, double dR, double secondDerivativeL) {
+        final double h = xR - xL, numerator = 0.5 * h * secondDerivativeL + (dR - dL);
+        if (isZero(numerator)) {
+            return 0d;
+        }
+        final double denominator = (yR - yL) / h - dL;
+        if (isZero(denominator)) {
+            return numerator > 0 ? MAXIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER : MINIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER;
+        }
+        return numerator / denominator;
+    }
+
+    private static double rationalCubicControlParameterToFitSecondDerivativeAtRightSide(
+            double xL, double xR, double yL, double yR, double dL, double dR, double secondDerivativeR) {
+        final double h = xR - xL, numerator = 0.5 * h * secondDerivativeR + (dR - dL);
+        if (isZero(numerator)) {
+            return 0d;
+        }
+        final double denominator = dR - (yR - yL) / h;
+        if (isZero(denominator)) {
+            return numerator > 0 ? MAXIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER : MINIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER;
+        }
+        return numerator / denominator;
+    }
+
+    private static double minimumRationalCubicControlParameter(double dL, double dR, double s,
+                                                               boolean preferShapePreservationOverSmoothness) {
+        final boolean monotonic = dL * s >= 0 && dR * s >= 0;
+        final boolean convex = dL <= s && s <= dR;
+        final boolean concave = dL >= s && s >= dR;
+        if (!monotonic && !convex && !concave) {
+            return MINIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER;
+        }
+        final double dRMinusDL = dR - dL, dRMinusS = dR - s, sMinusDL = s - dL;
+        double r1 = -DBL_MAX, r2 = r1;
+        if (monotonic) {
+            if (!isZero(s)) {
+                r1 = (dR + dL) / s;
+            } else if (preferShapePreservationOverSmoothness) {
+                r1 = MAXIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER;
+            }
+        }
+        if (convex || concave) {
+            if (!(isZero(sMinusDL) || isZero(dRMinusS))) {
+                r2 = Math.max(Math.abs(dRMinusDL / dRMinusS), Math.abs(dRMinusDL / sMinusDL));
+            } else if (preferShapePreservationOverSmoothness) {
+                r2 = MAXIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER;
+            }
+        } else if (monotonic && preferShapePreservationOverSmoothness) {
+            r2 = MAXIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER;
+        }
+        return Math.max(MINIMUM_RATIONAL_CUBIC_CONTROL_PARAMETER, Math.max(r1, r2));
+    }
+
+    private static double convexRationalCubicControlParameterToFitSecondDerivativeAtLeftSide(
+            double xL, double xR, double yL, double yR, double dL, double dR, double secondDerivativeL,
+            boolean preferShapePreservationOverSmoothness) {
+        final double r = rationalCubicControlParameterToFitSecondDerivativeAtLeftSide(xL, xR, yL, yR, dL, dR,
+                secondDerivativeL);
+        final double rMin = minimumRationalCubicControlParameter(dL, dR, (yR - yL) / (xR - xL),
+                preferShapePreservationOverSmoothness);
+        return Math.max(r, rMin);
+    }
+
+    private static double convexRationalCubicControlParameterToFitSecondDerivativeAtRightSide(
+            double xL, double xR, double yL, double yR, double dL, double dR, double secondDerivativeR,
+            boolean preferShapePreservationOverSmoothness) {
+        final double r = rationalCubicControlParameterToFitSecondDerivativeAtRightSide(xL, xR, yL, yR, dL, dR,
+                secondDerivativeR);
+        final double rMin = minimumRationalCubicControlParameter(dL, dR, (yR - yL) / (xR - xL),
+                preferShapePreservationOverSmoothness);
+        return Math.max(r, rMin);
+    }
+}
@@ -0,0 +1,74 @@
+package com.santoch.optionpricing.vanilla;
+
+// Thomas algorithm for a tridiagonal system with constant diagonals, as left by a finite-difference operator
+// with constant coefficients: the elimination factors depend on the matrix only, so factor() computes them once
+// and every solve() is a single forward and backward pass over the right hand side.
+// solve() optionally projects onto an obstacle during the backward pass (Brennan-Schwartz): exact for an American
+// option when the early exercise region lies at the end the backward pass starts from. upward eliminates from
+// the last row to the first and substitutes back from the first, for puts exercised at the low end of the grid.
+final class TridiagonalSolver {
+    private double lower;
+    private double upper;
+    private int size;
+    private boolean upward;
+    // 1 / pivot and the eliminated off-diagonal factor of every row
+    private double[] inversePivot = new double[0];
+    private double[] factor = new double[0];
+
+    // lower multiplies x[i - 1], diag x[i] and upper x[i + 1] in row i
+    void factor(double lower, double diag, double upper, int size, boolean upward) {
+        if (inversePivot.length < size) {
+            inversePivot = new double[size];
+            factor = new double[size];
+        }
+        this.lower = lower;
+        this.upper = upper;
+        this.size = size;
+        this.upward = upward;
+        if (upward) {
+            double previous = 0d;
+            for (int i = size - 1; i >= 0; i--) {
+                inversePivot[i] = 1d / (diag - upper * previous);
+                previous = factor[i] = lower * inversePivot[i];
+            }
+        } else {
+            double previous = 0d;
+            for (int i = 0; i < size; i++) {
+                inversePivot[i] = 1d / (diag - lower * previous);
+                previous = factor[i] = upper * inversePivot[i];
+            }
+        }
+    }
+
+    // Solves rows [0, size) for rhs[offset + i] into out[offset + i], out[offset + i] >= obstacle[offset + i]
+    // when obstacle is not null. rhs and out may be the same array.
+    void solve(double[] rhs, double[] out, double[] obstacle, int offset) {
+        if (upward) {
+            double previous = 0d;
+            for (int i = size - 1; i >= 0; i--) {
+                previous = out[offset + i] = (rhs[offset + i] - upper * previous) * inversePivot[i];
+            }
+            previous = 0d;
+            for (int i = 0; i < size; i++) {
+                double x = out[offset + i] - factor[i] * previous;
+                if (obstacle != null && x < obstacle[offset + i]) {
+                    x = obstacle[offset + i];
+                }
+                previous = out[offset + i] = x;
+            }
+        } else {
+            double previous = 0d;
+            for (int i = 0; i < size; i++) {
+                previous = out[offset + i] = (rhs[offset + i] - lower * previous) * inversePivot[i];
+            }
+            previous = 0d;
+            for (int i = size - 1; i >= 0; i--) {
+                double x = out[offset + i] - factor[i] * previous;
+                if (obstacle != null && x < obstacle[offset + i]) {
+                    x = obstacle[offset + i];
+                }
+                previous = out[offset + i] = x;
+            }
+        }
+    }
+}
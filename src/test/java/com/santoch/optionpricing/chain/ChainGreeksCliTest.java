@@ -0,0 +1,194 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.GreeksImpl;
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChainGreeksCliTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+    private static final double INTEREST_RATE = 0.0135d;
+    private static final String[] UNDERLYINGS = {"AAPL", "SPX"};
+    private static final double[] UNDERLYING_PRICES = {214.76d, 1177.62d};
+    private static final double[] DIVIDEND_YIELDS = {0.01d, 0.03d};
+
+    private static final class Quote {
+        String underlying;
+        long expiry;
+        double strike;
+        OptionType type;
+        double underlyingPrice, bid, ask, smv, dividendYield;
+    }
+
+    private static Quote[] quotes(IOptionModel model) {
+        final Quote[] quotes = new Quote[UNDERLYINGS.length * 3 * 17 * 2];
+        int n = 0;
+        for (int u = 0; u < UNDERLYINGS.length; u++) {
+            for (long days : new long[]{3L, 31L, 94L}) {
+                for (int step = -8; step <= 8; step++) {
+                    for (OptionType type : OptionType.values()) {
+                        final Quote quote = new Quote();
+                        quote.underlying = UNDERLYINGS[u];
+                        quote.expiry = NOW + days * DAY;
+                        quote.strike = Math.round(UNDERLYING_PRICES[u] * (1d + 0.025d * step));
+                        quote.type = type;
+                        quote.underlyingPrice = UNDERLYING_PRICES[u];
+                        quote.dividendYield = DIVIDEND_YIELDS[u];
+                        final double price = model.priceOption(type, quote.underlyingPrice, quote.strike,
+                                days / 365d, 0.25d, INTEREST_RATE, quote.dividendYield);
+                        quote.bid = price * 0.97d;
+                        quote.ask = price * 1.03d;
+                        quote.smv = price;
+                        quotes[n++] = quote;
+                    }
+                }
+            }
+        }
+        return quotes;
+    }
+
+    private static IGreeks expected(IOptionModel model, Quote quote) {
+        return Utils.greeks(model, new GreeksImpl(), quote.type, quote.bid, quote.ask, quote.smv,
+                quote.underlyingPrice, quote.strike, (quote.expiry - NOW) / (365d * 24d * 60d * 60d * 1000d), 0.5d,
+                INTEREST_RATE, quote.dividendYield, true);
+    }
+
+    private static void writeCsv(Path path, Quote[] quotes) throws IOException {
+        final StringBuilder text = new StringBuilder("underlying,expiry,strike,type,underlyingPrice,bid,ask,smv,"
+                                                     + "interestRate,dividendYield\n# end of day\n\n");
+        for (Quote quote : quotes) {
+            text.append(quote.underlying).append(',').append(quote.expiry).append(',').append(quote.strike)
+                    .append(',').append(quote.type.getCode()).append(',').append(quote.underlyingPrice)
+                    .append(',').append(quote.bid).append(',').append(quote.ask).append(',').append(quote.smv)
+                    .append(',').append(INTEREST_RATE).append(',').append(quote.dividendYield).append('\n');
+        }
+        Files.writeString(path, text, StandardCharsets.US_ASCII);
+    }
+
+    private static void writeBinary(Path path, Quote[] quotes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(quotes.length * QuoteFormat.QUOTE_RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (Quote quote : quotes) {
+            final byte[] symbol = quote.underlying.getBytes(StandardCharsets.US_ASCII);
+            buffer.put(symbol).put(new byte[QuoteFormat.SYMBOL_SIZE - symbol.length]);
+            buffer.putLong(quote.expiry).putDouble(quote.strike).putLong(quote.type.ordinal());
+            buffer.putDouble(quote.underlyingPrice).putDouble(quote.bid).putDouble(quote.ask).putDouble(quote.smv);
+            buffer.putDouble(INTEREST_RATE).putDouble(quote.dividendYield);
+        }
+        Files.write(path, buffer.array());
+    }
+
+    private static ChainGreeksCli cli(IOptionModel model, QuoteFormat format, ForkJoinPool pool, int batchRows,
+                                      long windowSize) {
+        final ChainGreeksCli cli = new ChainGreeksCli(model, format, NOW, pool, batchRows);
+        cli.setWindowSize(windowSize);
+        return cli;
+    }
+
+    private static void assertCsvMatchesSequential(IOptionModel model, int batchRows, long windowSize)
+            throws IOException {
+        final Quote[] quotes = quotes(model);
+        final Path dir = Files.createTempDirectory("chain");
+        final Path in = dir.resolve("quotes.csv"), out = dir.resolve("results.csv");
+        writeCsv(in, quotes);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(quotes.length, cli(model, QuoteFormat.CSV, pool, batchRows, windowSize).run(in, out));
+        } finally {
+            pool.shutdown();
+        }
+        final List<String> lines = Files.readAllLines(out, StandardCharsets.US_ASCII);
+        assertEquals(quotes.length + 1, lines.size());
+        assertEquals(QuoteFormat.CSV_HEADER, lines.get(0));
+        for (int i = 0; i < quotes.length; i++) {
+            final Quote quote = quotes[i];
+            final IGreeks expected = expected(model, quote);
+            // Double.toString both ways, so the parsed inputs and the printed results are exact
+            assertEquals(String.join(",", quote.underlying, Long.toString(quote.expiry),
+                    Double.toString(quote.strike), quote.type.getCode(), Double.toString(expected.getSmvVol()),
+                    Double.toString(expected.getBidIv()), Double.toString(expected.getAskIv()),
+                    Double.toString(expected.getMidIv()), Double.toString(expected.getDelta()),
+                    Double.toString(expected.getGamma()), Double.toString(expected.getTheta()),
+                    Double.toString(expected.getVega()), Double.toString(expected.getRho())),
+                    lines.get(i + 1));
+        }
+    }
+
+    @Test
+    public void testBlackScholesCsvMatchesSequential() throws IOException {
+        assertCsvMatchesSequential(new BlackScholes(), ChainGreeksCli.DEFAULT_BATCH_ROWS,
+                QuoteFileReader.DEFAULT_WINDOW_SIZE);
+    }
+
+    @Test
+    public void testBjerksundStenslandCsvMatchesSequential() throws IOException {
+        assertCsvMatchesSequential(new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED),
+                ChainGreeksCli.DEFAULT_BATCH_ROWS, QuoteFileReader.DEFAULT_WINDOW_SIZE);
+    }
+
+    @Test
+    public void testCsvSmallBatchesAndWindows() throws IOException {
+        // lines cross window ends and batches end mid window
+        assertCsvMatchesSequential(new BlackScholes(), 37, 1000L);
+    }
+
+    @Test
+    public void testBinaryMatchesSequential() throws IOException {
+        final IOptionModel model = new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED);
+        final Quote[] quotes = quotes(model);
+        final Path dir = Files.createTempDirectory("chain");
+        final Path in = dir.resolve("quotes.bin"), out = dir.resolve("results.bin");
+        writeBinary(in, quotes);
+        // a window of 3 records and a half
+        assertEquals(quotes.length, cli(model, QuoteFormat.BINARY, ForkJoinPool.commonPool(), 50,
+                3L * QuoteFormat.QUOTE_RECORD_SIZE + 40L).run(in, out));
+
+        final ByteBuffer results = ByteBuffer.wrap(Files.readAllBytes(out)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals((long) quotes.length * QuoteFormat.RESULT_RECORD_SIZE, results.remaining());
+        final byte[] symbol = new byte[QuoteFormat.SYMBOL_SIZE];
+        for (Quote quote : quotes) {
+            final IGreeks expected = expected(model, quote);
+            results.get(symbol);
+            assertEquals(quote.underlying, new String(symbol, StandardCharsets.US_ASCII).trim());
+            assertEquals(quote.expiry, results.getLong());
+            assertEquals(quote.strike, results.getDouble(), 0d);
+            assertEquals(quote.type.ordinal(), results.getLong());
+            assertEquals(expected.getSmvVol(), results.getDouble(), 0d);
+            assertEquals(expected.getBidIv(), results.getDouble(), 0d);
+            assertEquals(expected.getAskIv(), results.getDouble(), 0d);
+            assertEquals(expected.getMidIv(), results.getDouble(), 0d);
+            assertEquals(expected.getDelta(), results.getDouble(), 0d);
+            assertEquals(expected.getGamma(), results.getDouble(), 0d);
+            assertEquals(expected.getTheta(), results.getDouble(), 0d);
+            assertEquals(expected.getVega(), results.getDouble(), 0d);
+            assertEquals(expected.getRho(), results.getDouble(), 0d);
+        }
+    }
+
+    @Test
+    public void testMalformedLine() throws IOException {
+        final Path dir = Files.createTempDirectory("chain");
+        final Path in = dir.resolve("quotes.csv");
+        Files.writeString(in, "AAPL,1700000000000,200,C,214.76,15.1,15.3,15.2,0.0135\n");
+        assertThrows(InvalidParameterException.class, () -> new ChainGreeksCli(new BlackScholes(),
+                QuoteFormat.CSV, NOW).run(in, dir.resolve("results.csv")));
+    }
+}
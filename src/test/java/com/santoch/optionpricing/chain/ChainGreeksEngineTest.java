@@ -0,0 +1,91 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.GreeksBlock;
+import com.santoch.optionpricing.util.GreeksImpl;
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChainGreeksEngineTest {
+    private static final long NOW = 0L;
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+    private static final double INTEREST_RATE = 0.0135d;
+    private static final double[] UNDERLYING_PRICES = {214.76d, 1177.62d};
+    private static final double[] DIVIDEND_YIELDS = {0.01d, 0.03d};
+
+    private static OptionChainStore chain(IOptionModel model) {
+        final OptionChainStore chain = new OptionChainStore(400);
+        final String[] underlyings = {"AAPL", "SPX"};
+        for (int u = 0; u < underlyings.length; u++) {
+            for (long days : new long[]{3L, 31L, 94L}) {
+                for (int step = -8; step <= 8; step++) {
+                    final double strike = Math.round(UNDERLYING_PRICES[u] * (1d + 0.025d * step));
+                    for (String type : new String[]{"C", "P"}) {
+                        final int index = chain.add(underlyings[u], days * DAY, strike, type);
+                        final double price = model.priceOption(type, UNDERLYING_PRICES[u], strike,
+                                chain.getTimeRemaining(index, NOW), 0.25d, INTEREST_RATE, DIVIDEND_YIELDS[u]);
+                        chain.setQuote(index, price * 0.97d, price * 1.03d, price);
+                    }
+                }
+            }
+        }
+        return chain;
+    }
+
+    private static void assertMatchesSequential(IOptionModel model) {
+        final OptionChainStore chain = chain(model);
+        final GreeksBlock block = new GreeksBlock(chain.size());
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new ChainGreeksEngine(pool).compute(model, chain, UNDERLYING_PRICES, DIVIDEND_YIELDS, INTEREST_RATE,
+                    NOW, block);
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < chain.size(); i++) {
+            final int id = chain.getUnderlyingId(i);
+            final IGreeks expected = Utils.greeks(model, new GreeksImpl(), chain.getOptionType(i), chain.getBid(i),
+                    chain.getAsk(i), chain.getSmv(i), UNDERLYING_PRICES[id], chain.getStrike(i),
+                    chain.getTimeRemaining(i, NOW), 0.5d, INTEREST_RATE, DIVIDEND_YIELDS[id], true);
+            final GreeksBlock.Row row = block.row(i);
+            // same calls in the same order per contract, so bit for bit the same values
+            assertEquals(expected.getSmvVol(), row.getSmvVol(), 0d);
+            assertEquals(expected.getBidIv(), row.getBidIv(), 0d);
+            assertEquals(expected.getAskIv(), row.getAskIv(), 0d);
+            assertEquals(expected.getMidIv(), row.getMidIv(), 0d);
+            assertEquals(expected.getDelta(), row.getDelta(), 0d);
+            assertEquals(expected.getGamma(), row.getGamma(), 0d);
+            assertEquals(expected.getTheta(), row.getTheta(), 0d);
+            assertEquals(expected.getVega(), row.getVega(), 0d);
+            assertEquals(expected.getRho(), row.getRho(), 0d);
+            assertEquals(NOW, row.getUpdateTimeNanos());
+        }
+    }
+
+    @Test
+    public void testBlackScholesChainMatchesSequential() {
+        assertMatchesSequential(new BlackScholes());
+    }
+
+    @Test
+    public void testBjerksundStenslandChainMatchesSequential() {
+        assertMatchesSequential(new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED));
+    }
+
+    @Test
+    public void testBlockTooSmall() {
+        final BlackScholes model = new BlackScholes();
+        final OptionChainStore chain = chain(model);
+        assertThrows(InvalidParameterException.class, () -> new ChainGreeksEngine().compute(model, chain,
+                UNDERLYING_PRICES, DIVIDEND_YIELDS, INTEREST_RATE, NOW, new GreeksBlock(chain.size() - 1)));
+    }
+}
@@ -0,0 +1,93 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IOptionModel;
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OptionChainStoreTest {
+
+    @Test
+    public void testAddFindAndQuotes() {
+        final OptionChainStore store = new OptionChainStore(1000);
+        final long expiry = ZonedDateTime.of(2018, 1, 19, 16, 0, 0, 0, ZoneId.of("America/New_York"))
+                .toInstant().toEpochMilli();
+        for (String underlying : new String[]{"SPX", "AAPL"}) {
+            for (int strike = 100; strike < 300; strike += 5) {
+                store.add(underlying, expiry, strike, "C");
+                store.add(underlying, expiry, strike, "P");
+            }
+        }
+        assertEquals(160, store.size());
+        assertEquals(2, store.getUnderlyingCount());
+
+        final int index = store.find("AAPL", expiry, 190d, "P");
+        assertTrue(index >= 0);
+        assertEquals("AAPL", store.getUnderlyingName(store.getUnderlyingId(index)));
+        assertEquals(190d, store.getStrike(index), 0d);
+        assertEquals(expiry, store.getExpiry(index));
+        assertEquals("P", store.getType(index));
+        assertEquals(-1, store.find("AAPL", expiry, 191d, "P"));
+        assertEquals(-1, store.find("MSFT", expiry, 190d, "P"));
+
+        store.setQuote(index, 0.26d, 0.28d, 0.2708d);
+        store.setLastIv(index, 0.25d);
+        assertEquals(0.26d, store.getBid(index), 0d);
+        assertEquals(0.28d, store.getAsk(index), 0d);
+        assertEquals(0.2708d, store.getSmv(index), 0d);
+        assertEquals(0.25d, store.getLastIv(index), 0d);
+
+        assertThrows(InvalidParameterException.class, () -> store.add("AAPL", expiry, 190d, "P"));
+        assertThrows(InvalidParameterException.class, () -> store.add("AAPL", expiry, 190d, "X"));
+    }
+
+    @Test
+    public void testPriceOptionsFromStore() {
+        final BlackScholes model = new BlackScholes();
+        final OptionChainStore store = new OptionChainStore(4);
+        final long now = 0L;
+        final long expiry = 31L * 24L * 60L * 60L * 1000L; // 31 days
+        final int put = store.add("AAPL", expiry, 190.00d, "P");
+        store.setLastIv(put, 0.25d);
+
+        final double[] prices = new double[store.size()];
+        store.priceOptions(model, new double[]{214.76d}, new double[]{0.0d}, 0.0135d, now, prices, 0, store.size());
+        System.out.println("testPriceOptionsFromStore price=" + prices[put]);
+        assertEquals(0.2707906395245452d, prices[put], Constants.PRICE_PRECISION);
+        assertEquals(0.084931506849315d, store.getTimeRemaining(put, now), 1e-12);
+    }
+
+    @Test
+    public void testBatchPricingMatchesScalar() {
+        for (IOptionModel model : new IOptionModel[]{new BlackScholes(), new BjerksundStensland()}) {
+            final OptionChainStore store = new OptionChainStore(1500);
+            final long day = 24L * 60L * 60L * 1000L;
+            for (int i = 0; i < 1500; i++) {
+                // spans several gathered ranges, a partial one at the end
+                final int index = store.add(i % 3 == 0 ? "SPX" : "AAPL", (1 + i % 7) * 30L * day,
+                        100d + 0.25d * (i >> 1), (i & 1) == 0 ? "C" : "P");
+                store.setLastIv(index, 0.15d + 0.001d * (i % 200));
+            }
+            final double[] underlyingPrices = {2650.5d, 200.25d}, dividendYields = {0.018d, 0.01d};
+            final double[] prices = new double[store.size()];
+            store.priceOptions(model, underlyingPrices, dividendYields, 0.0135d, 0L, prices, 3, store.size() - 2);
+            assertEquals(0d, prices[0], 0d);
+            assertEquals(0d, prices[store.size() - 1], 0d);
+            for (int i = 3; i < store.size() - 2; i++) {
+                final int id = store.getUnderlyingId(i);
+                assertEquals(model.priceOption(store.getOptionType(i), underlyingPrices[id], store.getStrike(i),
+                        store.getTimeRemaining(i, 0L), store.getLastIv(i), 0.0135d, dividendYields[id]),
+                        prices[i], 1e-9 * Math.max(1d, prices[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.santoch.optionpricing.chain;
+
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.util.GreeksImpl;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QuoteGreeksProcessorTest {
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2024, 1, 2, 15, 30, 0, 0, ZoneOffset.UTC);
+
+    // runs tasks only when asked, so the tests decide what is pending
+    private static final class ManualExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        int pending() {
+            return tasks.size();
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static final class CollectingSubscriber implements Flow.Subscriber<ContractGreeks> {
+        private final long demand;
+        private final List<ContractGreeks> items = new ArrayList<>();
+        private boolean complete;
+
+        CollectingSubscriber(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (demand > 0) {
+                subscription.request(demand);
+            }
+        }
+
+        @Override
+        public void onNext(ContractGreeks item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+
+    private static OptionQuote quote(String contractId, double bid, double ask) {
+        return new OptionQuote(contractId, OptionType.CALL, 214.76d, 215d, 0.1d, bid, ask, 0d, 0.0135d, 0.01d, NOW);
+    }
+
+    @Test
+    public void testConflatesPerContract() {
+        final ManualExecutor executor = new ManualExecutor();
+        final QuoteGreeksProcessor processor = new QuoteGreeksProcessor(new BlackScholes(), executor, 16, 0L);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        executor.runAll();
+
+        for (int i = 0; i < 5; i++) {
+            processor.onNext(quote("AAPL C215", 5.00d + 0.01d * i, 5.10d + 0.01d * i));
+        }
+        processor.onNext(quote("AAPL C220", 3.00d, 3.10d));
+        // one task per contract, whatever the number of quotes
+        assertEquals(2, executor.pending());
+        executor.runAll();
+
+        assertEquals(6, processor.getReceivedCount());
+        assertEquals(4, processor.getConflatedCount());
+        assertEquals(0, processor.getDroppedCount());
+        assertEquals(2, processor.getPublishedCount());
+        assertEquals(2, subscriber.items.size());
+
+        final ContractGreeks greeks = subscriber.items.get(0);
+        assertEquals("AAPL C215", greeks.getContractId());
+        assertEquals(NOW, greeks.getUpdateTime());
+        // computed from the latest quote only
+        final IGreeks expected = Utils.greeks(new BlackScholes(), new GreeksImpl(), OptionType.CALL, 5.04d, 5.14d,
+                0d, 214.76d, 215d, 0.1d, 0.5d, 0.0135d, 0.01d, true);
+        assertEquals(expected.getSmvVol(), greeks.getSmvVol(), 0d);
+        assertEquals(expected.getDelta(), greeks.getDelta(), 0d);
+        assertEquals(expected.getVega(), greeks.getVega(), 0d);
+        assertEquals("AAPL C220", subscriber.items.get(1).getContractId());
+    }
+
+    @Test
+    public void testCompletesAfterPendingQuotes() {
+        final ManualExecutor executor = new ManualExecutor();
+        final QuoteGreeksProcessor processor = new QuoteGreeksProcessor(new BlackScholes(), executor, 16, 0L);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        executor.runAll();
+
+        processor.onNext(quote("AAPL C215", 5.00d, 5.10d));
+        processor.onComplete();
+        processor.onNext(quote("AAPL C215", 5.01d, 5.11d));
+        executor.runAll();
+
+        assertEquals(1, subscriber.items.size());
+        assertEquals(1, processor.getDroppedCount());
+        assertTrue(subscriber.complete);
+    }
+
+    @Test
+    public void testDropsWhenSubscriberFallsBehind() {
+        final ManualExecutor executor = new ManualExecutor();
+        final QuoteGreeksProcessor processor = new QuoteGreeksProcessor(new BlackScholes(), executor, 1, 0L);
+        // never requests anything
+        final CollectingSubscriber subscriber = new CollectingSubscriber(0L);
+        processor.subscribe(subscriber);
+        executor.runAll();
+
+        final int contracts = 64;
+        for (int i = 0; i < contracts; i++) {
+            processor.onNext(quote("AAPL C" + (200 + i), 5.00d, 5.10d));
+        }
+        executor.runAll();
+
+        assertEquals(0, subscriber.items.size());
+        assertTrue(processor.getDroppedCount() > 0);
+        assertEquals(contracts, processor.getPublishedCount() + processor.getDroppedCount());
+    }
+
+    @Test
+    public void testEvictsIdleContracts() {
+        final ManualExecutor executor = new ManualExecutor();
+        final QuoteGreeksProcessor processor = new QuoteGreeksProcessor(new BlackScholes(), executor, 16, 0L);
+        final CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        executor.runAll();
+
+        processor.onNext(quote("AAPL C215", 5.00d, 5.10d));
+        processor.onNext(quote("AAPL C220", 3.00d, 3.10d));
+        assertEquals(2, processor.getContractCount());
+        // a pending quote keeps its contract
+        assertFalse(processor.evict("AAPL C215"));
+        executor.runAll();
+
+        assertTrue(processor.evict("AAPL C215"));
+        assertFalse(processor.evict("AAPL C215"));
+        assertEquals(1, processor.getContractCount());
+
+        // an evicted contract comes back with its next quote
+        processor.onNext(quote("AAPL C215", 5.01d, 5.11d));
+        assertEquals(2, processor.getContractCount());
+        executor.runAll();
+        assertEquals(3, subscriber.items.size());
+        assertEquals("AAPL C215", subscriber.items.get(2).getContractId());
+    }
+}
@@ -0,0 +1,116 @@
+package com.santoch.optionpricing.common;
+
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.GreeksImpl;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImpliedVolatilityCacheTest {
+    private static final long EXPIRY = 1_700_000_000_000L;
+
+    // counts the reprices of the implied volatility searches
+    private static final class CountingBlackScholes extends BlackScholes {
+        private int reprices;
+
+        @Override
+        public double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                                  double volatility, double interestRate, double dividendYield) {
+            reprices++;
+            return super.priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+    }
+
+    @Test
+    public void testGetAndPut() {
+        final ImpliedVolatilityCache cache = new ImpliedVolatilityCache(1000);
+        assertEquals(1024, cache.capacity());
+        assertEquals(0.5d, cache.get("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.BID, 0.5d));
+        cache.put("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.BID, 0.21d);
+        assertEquals(0.21d, cache.get("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.BID, 0.5d));
+        assertEquals(0.5d, cache.get("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.ASK, 0.5d));
+        assertEquals(0.5d, cache.get("SPX", EXPIRY, 1200d, OptionType.PUT, ImpliedVolatilityCache.Side.BID, 0.5d));
+        // unconverged searches are not cached
+        cache.put("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.BID, Double.NaN);
+        cache.put("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.BID, 0d);
+        assertEquals(0.21d, cache.get("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.BID, 0.5d));
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        cache.clear();
+        assertEquals(0.5d, cache.get("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.BID, 0.5d));
+    }
+
+    @Test
+    public void testCollisionReplaces() {
+        final ImpliedVolatilityCache cache = new ImpliedVolatilityCache(1);
+        cache.put("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.MID, 0.21d);
+        cache.put("AAPL", EXPIRY, 215d, OptionType.PUT, ImpliedVolatilityCache.Side.MID, 0.31d);
+        assertEquals(0.5d, cache.get("SPX", EXPIRY, 1200d, OptionType.CALL, ImpliedVolatilityCache.Side.MID, 0.5d));
+        assertEquals(0.31d, cache.get("AAPL", EXPIRY, 215d, OptionType.PUT, ImpliedVolatilityCache.Side.MID, 0.5d));
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(InvalidParameterException.class, () -> new ImpliedVolatilityCache(0));
+    }
+
+    @Test
+    public void testGreeksWarmStart() {
+        final CountingBlackScholes model = new CountingBlackScholes();
+        final ImpliedVolatilityCache cache = new ImpliedVolatilityCache(64);
+        final OptionType type = OptionType.CALL;
+        final double strike = 1260d, time = 0.084931506849315d, rate = 0.0135d, yield = 0d;
+        double spot = 1177.62d;
+
+        final double price = new BlackScholes().priceOption(type, spot, strike, time, 0.2d, rate, yield);
+        final IGreeks first = Utils.greeks(model, new GreeksImpl(), cache, "SPX", EXPIRY, type, price - 0.1d,
+                price + 0.1d, price, spot, strike, time, 0.5d, rate, yield, true);
+        assertEquals(0.2d, first.getSmvVol(), 1e-6d);
+
+        // next tick, a few basis points of volatility away
+        spot += 0.5d;
+        final double nextPrice = new BlackScholes().priceOption(type, spot, strike, time, 0.2005d, rate, yield);
+        model.reprices = 0;
+        final IGreeks cold = Utils.greeks(model, new GreeksImpl(), type, nextPrice - 0.1d, nextPrice + 0.1d,
+                nextPrice, spot, strike, time, 0.5d, rate, yield, true);
+        final int coldReprices = model.reprices;
+        model.reprices = 0;
+        final IGreeks warm = Utils.greeks(model, new GreeksImpl(), cache, "SPX", EXPIRY, type, nextPrice - 0.1d,
+                nextPrice + 0.1d, nextPrice, spot, strike, time, 0.5d, rate, yield, true);
+
+        assertEquals(0.2005d, warm.getSmvVol(), 1e-6d);
+        assertEquals(cold.getSmvVol(), warm.getSmvVol(), 1e-6d);
+        assertEquals(cold.getBidIv(), warm.getBidIv(), 1e-6d);
+        assertEquals(cold.getAskIv(), warm.getAskIv(), 1e-6d);
+        assertEquals(cold.getMidIv(), warm.getMidIv(), 1e-6d);
+        // at most two Newton steps, one reprice each, for smv, the sides then start from the smv solution and
+        // may take one more reprice to confirm their last step within PRICE_PRECISION
+        assertTrue(model.reprices <= 7, "warm start took " + model.reprices + " reprices");
+        assertTrue(model.reprices < coldReprices, model.reprices + " vs " + coldReprices);
+        assertEquals(1, cache.getHits());
+        assertEquals(warm.getBidIv(), cache.get("SPX", EXPIRY, strike, type, ImpliedVolatilityCache.Side.BID, 0d));
+    }
+
+    @Test
+    public void testUnconvergedSearchNotCached() {
+        final BlackScholes model = new BlackScholes();
+        final ImpliedVolatilityCache cache = new ImpliedVolatilityCache(64);
+        final OptionType type = OptionType.CALL;
+        final double spot = 100d, strike = 60d, time = 0.01d, rate = 0.0135d, yield = 0d;
+        cache.put("XYZ", EXPIRY, strike, type, ImpliedVolatilityCache.Side.SMV, 0.3d);
+        cache.put("XYZ", EXPIRY, strike, type, ImpliedVolatilityCache.Side.BID, 0.3d);
+
+        // below intrinsic there is no solution, the Newton search stops on whatever it last tried
+        final double smv = 39.6d;
+        assertTrue(Math.abs(model.priceOption(type, spot, strike, time, model.impliedVolatility(type, smv, spot,
+                strike, time, 0.3d, rate, yield), rate, yield) - smv) > Constants.PRICE_PRECISION);
+        Utils.greeks(model, new GreeksImpl(), cache, "XYZ", EXPIRY, type, smv - 0.1d, smv + 0.1d, smv, spot,
+                strike, time, 0.5d, rate, yield, true);
+        assertEquals(0.3d, cache.get("XYZ", EXPIRY, strike, type, ImpliedVolatilityCache.Side.SMV, 0d));
+        assertEquals(0.3d, cache.get("XYZ", EXPIRY, strike, type, ImpliedVolatilityCache.Side.BID, 0d));
+    }
+}
@@ -0,0 +1,194 @@
+package com.santoch.optionpricing.common;
+
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.GreeksImpl;
+import com.santoch.optionpricing.vanilla.BinomialTree;
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JointImpliedVolatilityTest {
+
+    // counts reprices, the cost unit of every implied volatility search
+    private static final class CountingBlackScholes extends BlackScholes {
+        private int reprices;
+
+        @Override
+        public double priceOption(OptionType type, double underlyingPrice, double strikePrice, double timeRemaining,
+                                  double volatility, double interestRate, double dividendYield) {
+            reprices++;
+            return super.priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield);
+        }
+    }
+
+    private static void assertMatchesSeparateSolves(IOptionModel model, IOptionModel reference) {
+        final Random random = new Random(11L);
+        final double[] sides = new double[3];
+        final double rate = 0.0135d, yield = 0.01d, spot = 214.76d;
+        int solved = 0;
+        for (int i = 0; i < 200; i++) {
+            final OptionType type = random.nextBoolean() ? OptionType.CALL : OptionType.PUT;
+            final double strike = Math.round(spot * (0.85d + 0.3d * random.nextDouble()));
+            final double time = (1 + random.nextInt(180)) / 365d;
+            final double volatility = 0.15d + 0.3d * random.nextDouble();
+            final double smv = reference.priceOption(type, spot, strike, time, volatility, rate, yield);
+            final double halfSpread = Math.min(0.05d + 0.02d * smv, 0.5d * smv);
+            final double bid = smv - halfSpread, ask = smv + halfSpread * 1.3d, mid = 0.5d * (bid + ask);
+            final double smvVol = model.impliedVolatility(type, smv, spot, strike, time, 0.5d, rate, yield);
+            if (!JointImpliedVolatility.solve(model, type, smv, smvVol, ask, bid, mid, spot, strike, time, rate,
+                    yield, sides)) {
+                // no smv volatility or vega to start from, e.g. worthless or at intrinsic
+                continue;
+            }
+            final double[] prices = {ask, bid, mid};
+            for (int side = 0; side < 3; side++) {
+                final double expected = reference.impliedVolatility(type, prices[side], spot, strike, time, smvVol,
+                        rate, yield);
+                if (!(Math.abs(reference.priceOption(type, spot, strike, time, expected, rate, yield) - prices[side])
+                      < Constants.PRICE_PRECISION)) {
+                    // no solution, e.g. a bid below the lowest price the model reaches
+                    continue;
+                }
+                // the price the volatility reproduces, flat vega makes the volatility itself loose
+                final double repriced = reference.priceOption(type, spot, strike, time, sides[side], rate, yield);
+                assertEquals(prices[side], repriced, Constants.PRICE_PRECISION,
+                        "side " + side + " of " + type + " " + strike + " " + time);
+                solved++;
+            }
+        }
+        assertTrue(solved > 400);
+    }
+
+    @Test
+    public void testBlackScholesMatchesSeparateSolves() {
+        assertMatchesSeparateSolves(new BlackScholes(), new BlackScholes(BlackScholes.IvSolver.LETS_BE_RATIONAL));
+    }
+
+    @Test
+    public void testBjerksundStenslandMatchesSeparateSolves() {
+        final BjerksundStensland model = new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED);
+        assertMatchesSeparateSolves(model, model);
+    }
+
+    @Test
+    public void testSharedSearchesCostLess() {
+        final CountingBlackScholes model = new CountingBlackScholes();
+        final OptionType type = OptionType.CALL;
+        final double spot = 1177.62d, strike = 1260d, time = 0.084931506849315d, rate = 0.0135d, yield = 0d;
+        final double smv = new BlackScholes().priceOption(type, spot, strike, time, 0.2d, rate, yield);
+        final double bid = smv - 0.4d, ask = smv + 0.5d, mid = 0.5d * (bid + ask);
+        final double smvVol = model.impliedVolatility(type, smv, spot, strike, time, 0.5d, rate, yield);
+
+        model.reprices = 0;
+        final double[] separate = {
+                model.impliedVolatility(type, ask, spot, strike, time, smvVol, rate, yield),
+                model.impliedVolatility(type, bid, spot, strike, time, smvVol, rate, yield),
+                model.impliedVolatility(type, mid, spot, strike, time, smvVol, rate, yield)};
+        final int separateReprices = model.reprices;
+
+        model.reprices = 0;
+        final double[] joint = new double[3];
+        assertTrue(JointImpliedVolatility.solve(model, type, smv, smvVol, ask, bid, mid, spot, strike, time, rate,
+                yield, joint));
+        assertTrue(model.reprices < separateReprices, model.reprices + " vs " + separateReprices);
+        for (int side = 0; side < 3; side++) {
+            assertEquals(separate[side], joint[side], Constants.IV_PRECISION);
+        }
+        // a side equal to smv is free
+        model.reprices = 0;
+        assertTrue(JointImpliedVolatility.solve(model, type, smv, smvVol, smv, smv, smv, spot, strike, time, rate,
+                yield, joint));
+        assertEquals(0, model.reprices);
+        assertEquals(smvVol, joint[JointImpliedVolatility.BID], 0d);
+    }
+
+    @Test
+    public void testNoStartingPoint() {
+        final double[] sides = new double[3];
+        assertFalse(JointImpliedVolatility.solve(new BlackScholes(), OptionType.CALL, 1d, Double.NaN, 1.1d, 0.9d, 1d,
+                100d, 100d, 0.1d, 0.01d, 0d, sides));
+        assertFalse(JointImpliedVolatility.solve(new BlackScholes(), OptionType.CALL, 1d, 0.2d, 1.1d, 0.9d, 1d,
+                100d, 100d, 0d, 0.01d, 0d, sides));
+    }
+
+    @Test
+    public void testUnsolvedSideFallsBack() {
+        // a deep in the money call at low volatility whose mid side the joint search leaves unsolved
+        final BjerksundStensland model = new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED);
+        final OptionType type = OptionType.CALL;
+        final double spot = 100d, strike = 60d, time = 2d, rate = 0.02d, yield = 0.01d;
+        final double smv = model.priceOption(type, spot, strike, time, 0.05d, rate, yield);
+        final double bid = smv, ask = smv * 1.001d, mid = 0.5d * (bid + ask);
+        final double smvVol = model.impliedVolatility(type, smv, spot, strike, time, 0.5d, rate, yield);
+        final double[] joint = new double[3];
+        assertTrue(JointImpliedVolatility.solve(model, type, smv, smvVol, ask, bid, mid, spot, strike, time, rate,
+                yield, joint));
+        assertTrue(Double.isNaN(joint[JointImpliedVolatility.MID]));
+
+        final IGreeks greeks = Utils.greeks(model, new GreeksImpl(), type, bid, ask, smv, spot, strike, time, 0.5d,
+                rate, yield, true);
+        final double[] prices = {ask, bid, mid};
+        final double[] volatilities = {greeks.getAskIv(), greeks.getBidIv(), greeks.getMidIv()};
+        for (int side = 0; side < 3; side++) {
+            assertEquals(prices[side], model.priceOption(type, spot, strike, time, volatilities[side], rate, yield),
+                    Constants.PRICE_PRECISION, "side " + side);
+        }
+    }
+
+    @Test
+    public void testFlatVegaSidesAreVerified() {
+        // a deep in the money American call a few days out: price barely moves with volatility below 0.8
+        final BinomialTree model = new BinomialTree();
+        final OptionType type = OptionType.CALL;
+        final double spot = 100d, strike = 60d, time = 0.02d, rate = 0.03d, yield = 0.01d;
+        final double smv = model.priceOption(type, spot, strike, time, 0.8d, rate, yield);
+        final double bid = smv * 0.97d, ask = smv * 1.03d, mid = 0.5d * (bid + ask);
+        final double smvVol = model.impliedVolatility(type, smv, spot, strike, time, 0.5d, rate, yield);
+        final double[] joint = new double[3];
+        assertTrue(JointImpliedVolatility.solve(model, type, smv, smvVol, ask, bid, mid, spot, strike, time, rate,
+                yield, joint));
+        // the bid is below intrinsic, no volatility reaches it
+        assertTrue(Double.isNaN(joint[JointImpliedVolatility.BID]));
+        final double[] prices = {ask, bid, mid};
+        for (int side : new int[] {JointImpliedVolatility.ASK, JointImpliedVolatility.MID}) {
+            if (!Double.isNaN(joint[side])) {
+                assertEquals(prices[side], model.priceOption(type, spot, strike, time, joint[side], rate, yield),
+                        Constants.PRICE_PRECISION, "side " + side);
+            }
+        }
+
+        final IGreeks greeks = Utils.greeks(model, new GreeksImpl(), type, bid, ask, smv, spot, strike, time, 0.5d,
+                rate, yield, true);
+        assertEquals(ask, model.priceOption(type, spot, strike, time, greeks.getAskIv(), rate, yield),
+                Constants.PRICE_PRECISION);
+        assertTrue(greeks.getAskIv() > 2d, "ask " + greeks.getAskIv());
+    }
+
+    @Test
+    public void testSolverWithoutStepKeepsItsPrecision() {
+        final BlackScholes model = new BlackScholes(BlackScholes.IvSolver.LETS_BE_RATIONAL);
+        final OptionType type = OptionType.PUT;
+        final double spot = 214.76d, strike = 220d, time = 0.25d, rate = 0.0135d, yield = 0.01d;
+        final double smv = model.priceOption(type, spot, strike, time, 0.27d, rate, yield);
+        final double bid = smv - 0.15d, ask = smv + 0.2d, mid = 0.5d * (bid + ask);
+        final double smvVol = model.impliedVolatility(type, smv, spot, strike, time, 0.5d, rate, yield);
+        assertFalse(JointImpliedVolatility.solve(model, type, smv, smvVol, ask, bid, mid, spot, strike, time, rate,
+                yield, new double[3]));
+
+        // the sides are Let's Be Rational's own solutions, not a joint search stopped at a looser step
+        final IGreeks greeks = Utils.greeks(model, new GreeksImpl(), type, bid, ask, smv, spot, strike, time, 0.5d,
+                rate, yield, true);
+        assertEquals(model.impliedVolatility(type, ask, spot, strike, time, smvVol, rate, yield), greeks.getAskIv(),
+                0d);
+        assertEquals(model.impliedVolatility(type, bid, spot, strike, time, smvVol, rate, yield), greeks.getBidIv(),
+                0d);
+        assertEquals(model.impliedVolatility(type, mid, spot, strike, time, smvVol, rate, yield), greeks.getMidIv(),
+                0d);
+        assertEquals(bid, model.priceOption(type, spot, strike, time, greeks.getBidIv(), rate, yield), 1e-12d);
+    }
+}
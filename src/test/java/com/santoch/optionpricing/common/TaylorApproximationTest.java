@@ -0,0 +1,95 @@
+package com.santoch.optionpricing.common;
+
+import com.santoch.optionpricing.vanilla.BjerksundStensland;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaylorApproximationTest {
+    private static final double STRIKE = 215d;
+    private static final double SPOT = 214.76d;
+    private static final double TIME = 31d / 365d;
+    private static final double VOLATILITY = 0.25d;
+    private static final double INTEREST_RATE = 0.0135d;
+    private static final double DIVIDEND_YIELD = 0.01d;
+    private static final double MINUTE = 1d / (365d * 24d * 60d);
+
+    private static void assertWithinBound(IOptionModel model, OptionType type) {
+        final double maxPriceError = 0.005d;
+        final TaylorApproximation approximation = new TaylorApproximation(model, maxPriceError, 5 * MINUTE);
+        final TaylorApproximation.Contract contract = approximation.contract(type, STRIKE);
+        // full reprices go through priceAndGreeks, which may round differently from priceOption
+        assertEquals(model.priceOption(type, SPOT, STRIKE, TIME, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD),
+                contract.price(SPOT, TIME, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD), 1e-10d);
+        assertFalse(contract.isApproximate());
+
+        for (int tick = 1; tick <= 200; tick++) {
+            final double spot = SPOT + 0.02d * tick * (tick % 2 == 0 ? 1 : -1);
+            final double time = TIME - tick * MINUTE / 20;
+            final double price = contract.price(spot, time, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD);
+            final double exact = model.priceOption(type, spot, STRIKE, time, VOLATILITY, INTEREST_RATE,
+                    DIVIDEND_YIELD);
+            if (contract.isApproximate()) {
+                // the bound is an estimate, allow for the terms it leaves out
+                assertEquals(exact, price, 2 * maxPriceError);
+            } else {
+                assertEquals(exact, price, 1e-10d);
+            }
+        }
+        assertTrue(approximation.getHits() > 0);
+        assertTrue(approximation.getMisses() > 1);
+        assertEquals(201, approximation.getHits() + approximation.getMisses());
+    }
+
+    @Test
+    public void testBlackScholesWithinBound() {
+        assertWithinBound(new BlackScholes(), OptionType.CALL);
+        assertWithinBound(new BlackScholes(), OptionType.PUT);
+    }
+
+    @Test
+    public void testBjerksundStenslandWithinBound() {
+        assertWithinBound(new BjerksundStensland(), OptionType.CALL);
+        assertWithinBound(new BjerksundStensland(), OptionType.PUT);
+    }
+
+    @Test
+    public void testFullRepriceTriggers() {
+        final IOptionModel model = new BlackScholes();
+        final TaylorApproximation approximation = new TaylorApproximation(model, 0.01d, MINUTE);
+        final TaylorApproximation.Contract contract = approximation.contract(OptionType.CALL, STRIKE);
+        contract.price(SPOT, TIME, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD);
+
+        final double delta = contract.delta(SPOT + 0.01d, TIME, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD);
+        assertTrue(contract.isApproximate());
+        assertEquals(model.delta(OptionType.CALL, SPOT + 0.01d, STRIKE, TIME, VOLATILITY, INTEREST_RATE,
+                DIVIDEND_YIELD), delta, 1e-6d);
+
+        // large move
+        contract.price(SPOT * 1.05d, TIME, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD);
+        assertFalse(contract.isApproximate());
+        // volatility change
+        contract.price(SPOT * 1.05d, TIME, VOLATILITY + 0.01d, INTEREST_RATE, DIVIDEND_YIELD);
+        assertFalse(contract.isApproximate());
+        // time budget
+        contract.price(SPOT * 1.05d, TIME - 2 * MINUTE, VOLATILITY + 0.01d, INTEREST_RATE, DIVIDEND_YIELD);
+        assertFalse(contract.isApproximate());
+        contract.invalidate();
+        contract.price(SPOT * 1.05d, TIME - 2 * MINUTE, VOLATILITY + 0.01d, INTEREST_RATE, DIVIDEND_YIELD);
+        assertFalse(contract.isApproximate());
+
+        assertEquals(1, approximation.getHits());
+        assertEquals(5, approximation.getMisses());
+        assertEquals(1d / 6d, approximation.getHitRatio(), 1e-15d);
+        approximation.resetStatistics();
+        assertEquals(0, approximation.getHits() + approximation.getMisses());
+    }
+
+    @Test
+    public void testInvalidBound() {
+        assertThrows(InvalidParameterException.class, () -> new TaylorApproximation(new BlackScholes(), -1d, 0d));
+    }
+}
@@ -0,0 +1,118 @@
+package com.santoch.optionpricing.montecarlo;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MonteCarloEngineTest {
+    private static final long SEED = 20171219L;
+    private static final double UNDERLYING_PRICE = 100d;
+    private static final double TIME_REMAINING = 0.5d;
+    private static final double VOLATILITY = 0.25d;
+    private static final double INTEREST_RATE = 0.03d;
+    private static final double DIVIDEND_YIELD = 0.01d;
+    private static final int STEPS = 26;
+    private static final long PATHS = 16L * MonteCarloEngine.BLOCK_PATHS;
+
+    private static MonteCarloResult price(MonteCarloEngine engine, IPathPayoff payoff, long paths) {
+        return engine.price(payoff, UNDERLYING_PRICE, TIME_REMAINING, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD,
+                STEPS, paths, 0d);
+    }
+
+    private static double blackScholes(OptionType type, double strike) {
+        return new BlackScholes().priceOption(type, UNDERLYING_PRICE, strike, TIME_REMAINING, VOLATILITY,
+                INTEREST_RATE, DIVIDEND_YIELD);
+    }
+
+    @Test
+    public void testEuropeanMatchesBlackScholes() {
+        for (OptionType type : OptionType.values()) {
+            final MonteCarloResult result = price(new MonteCarloEngine(ForkJoinPool.commonPool(), SEED, true,
+                    false), new EuropeanPayoff(type, 105d), PATHS);
+            assertEquals(blackScholes(type, 105d), result.getPrice(), 4d * result.getStandardError());
+            assertEquals(PATHS, result.getPaths());
+            // the payoff is its own control, nothing is left to estimate
+            final MonteCarloResult controlled = price(new MonteCarloEngine(SEED), new EuropeanPayoff(type, 105d),
+                    PATHS);
+            assertEquals(blackScholes(type, 105d), controlled.getPrice(), 1e-9d);
+            assertEquals(0d, controlled.getStandardError(), 1e-9d);
+        }
+    }
+
+    @Test
+    public void testReproducibleAcrossThreadCounts() {
+        final IPathPayoff payoff = new AsianPayoff(OptionType.CALL, 100d);
+        final ForkJoinPool single = new ForkJoinPool(1);
+        final ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            final MonteCarloResult one = price(new MonteCarloEngine(single, SEED, true, true), payoff, PATHS);
+            final MonteCarloResult many = price(new MonteCarloEngine(four, SEED, true, true), payoff, PATHS);
+            assertEquals(one.getPrice(), many.getPrice(), 0d);
+            assertEquals(one.getStandardError(), many.getStandardError(), 0d);
+        } finally {
+            single.shutdown();
+            four.shutdown();
+        }
+        final MonteCarloResult other = price(new MonteCarloEngine(SEED + 1), payoff, PATHS);
+        assertTrue(other.getPrice() != price(new MonteCarloEngine(SEED), payoff, PATHS).getPrice());
+    }
+
+    @Test
+    public void testVarianceReduction() {
+        final IPathPayoff payoff = new AsianPayoff(OptionType.CALL, 100d);
+        final MonteCarloResult plain = price(new MonteCarloEngine(ForkJoinPool.commonPool(), SEED, false, false),
+                payoff, PATHS);
+        final MonteCarloResult antithetic = price(new MonteCarloEngine(ForkJoinPool.commonPool(), SEED, true,
+                false), payoff, PATHS);
+        final MonteCarloResult both = price(new MonteCarloEngine(SEED), payoff, PATHS);
+        assertTrue(antithetic.getStandardError() < plain.getStandardError());
+        assertTrue(both.getStandardError() < antithetic.getStandardError());
+        assertEquals(plain.getPrice(), both.getPrice(), 4d * plain.getStandardError());
+        // averaging lowers the volatility, so the Asian is cheaper than the European
+        assertTrue(both.getPrice() < blackScholes(OptionType.CALL, 100d));
+    }
+
+    @Test
+    public void testBarrierParity() {
+        final MonteCarloEngine engine = new MonteCarloEngine(ForkJoinPool.commonPool(), SEED, true, false);
+        final double vanilla = price(engine, new EuropeanPayoff(OptionType.PUT, 100d), PATHS).getPrice();
+        for (BarrierPayoff.Barrier[] pair : new BarrierPayoff.Barrier[][]{
+                {BarrierPayoff.Barrier.DOWN_AND_IN, BarrierPayoff.Barrier.DOWN_AND_OUT},
+                {BarrierPayoff.Barrier.UP_AND_IN, BarrierPayoff.Barrier.UP_AND_OUT}}) {
+            final double level = pair[0].isUp() ? 110d : 90d;
+            final double in = price(engine, new BarrierPayoff(OptionType.PUT, 100d, pair[0], level), PATHS)
+                    .getPrice();
+            final double out = price(engine, new BarrierPayoff(OptionType.PUT, 100d, pair[1], level), PATHS)
+                    .getPrice();
+            assertTrue(in > 0 && out > 0);
+            // the same paths, so in + out is the vanilla price up to rounding
+            assertEquals(vanilla, in + out, 1e-9d);
+        }
+    }
+
+    @Test
+    public void testStopsAtTargetError() {
+        final MonteCarloResult result = new MonteCarloEngine(SEED).price(new AsianPayoff(OptionType.PUT, 100d),
+                UNDERLYING_PRICE, TIME_REMAINING, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD, STEPS, 1L << 30, 0.01d);
+        assertTrue(result.getStandardError() <= 0.01d);
+        assertTrue(result.getPaths() < 1L << 30);
+        assertEquals(0L, result.getPaths() % ((long) MonteCarloEngine.ROUND_BLOCKS * MonteCarloEngine.BLOCK_PATHS));
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        final MonteCarloEngine engine = new MonteCarloEngine(SEED);
+        final IPathPayoff payoff = new AsianPayoff(OptionType.CALL, 100d);
+        assertThrows(InvalidParameterException.class, () -> engine.price(payoff, UNDERLYING_PRICE, TIME_REMAINING,
+                VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD, 0, PATHS, 0d));
+        assertThrows(InvalidParameterException.class, () -> engine.price(payoff, UNDERLYING_PRICE, TIME_REMAINING,
+                VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD, STEPS, 0L, 0d));
+    }
+}
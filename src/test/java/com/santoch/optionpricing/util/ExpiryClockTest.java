@@ -0,0 +1,120 @@
+package com.santoch.optionpricing.util;
+
+import com.santoch.optionpricing.common.Utils;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.time.InstantSource;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiryClockTest {
+    private static final long SECOND = 1_000_000_000L;
+    private static final long HOUR = 3600L * SECOND;
+    private static final long DAY = 24L * HOUR;
+
+    // a clock the test moves by hand
+    private static final class ManualSource implements InstantSource {
+        private Instant now;
+
+        ManualSource(ZonedDateTime now) {
+            this.now = now.toInstant();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        void advance(long nanos) {
+            now = now.plusNanos(nanos);
+        }
+    }
+
+    @Test
+    public void testCalendarDaysMatchTimeBetween() {
+        final ZonedDateTime now = ZonedDateTime.of(2017, 12, 19, 10, 30, 0, 0, ZoneOffset.UTC);
+        final ManualSource source = new ManualSource(now);
+        final ExpiryClock clock = new ExpiryClock(source, SECOND, ExpiryClock.Convention.CALENDAR_DAYS,
+                ZoneOffset.UTC, null);
+        final ZonedDateTime expiry = ZonedDateTime.of(2018, 1, 19, 21, 0, 0, 0, ZoneOffset.UTC);
+        final int id = clock.addExpiry(GreeksBlock.toEpochNanos(expiry));
+        assertEquals(0, id);
+        assertEquals(Utils.timeBetween(expiry, now), clock.timeRemaining(id), 1e-15d);
+
+        // exact between refreshes
+        final ZonedDateTime later = now.plusHours(5);
+        assertEquals(Utils.timeBetween(expiry, later), clock.timeRemaining(id, GreeksBlock.toEpochNanos(later)),
+                1e-15d);
+        assertEquals(GreeksBlock.toEpochNanos(now), clock.getNowEpochNanos());
+    }
+
+    @Test
+    public void testTick() {
+        final ManualSource source = new ManualSource(ZonedDateTime.of(2024, 3, 4, 9, 0, 0, 0, ZoneOffset.UTC));
+        final ExpiryClock clock = new ExpiryClock(source, 10 * SECOND, ExpiryClock.Convention.CALENDAR_DAYS,
+                ZoneOffset.UTC, null);
+        final int id = clock.addExpiry(clock.getNowEpochNanos() + 365 * DAY);
+        assertEquals(1d, clock.timeRemaining(id), 1e-15d);
+
+        source.advance(5 * SECOND);
+        assertFalse(clock.tick());
+        assertEquals(1d, clock.timeRemaining(id), 1e-15d);
+        source.advance(5 * SECOND);
+        assertTrue(clock.tick());
+        assertEquals(1d - 10d / (365d * 86400d), clock.timeRemaining(id), 1e-15d);
+    }
+
+    @Test
+    public void testRefreshNeverGoesBack() {
+        final ManualSource source = new ManualSource(ZonedDateTime.of(2024, 3, 4, 9, 0, 0, 0, ZoneOffset.UTC));
+        final ExpiryClock clock = new ExpiryClock(source, SECOND, ExpiryClock.Convention.CALENDAR_DAYS,
+                ZoneOffset.UTC, null);
+        final int id = clock.addExpiry(clock.getNowEpochNanos() + 365 * DAY);
+        source.advance(HOUR);
+        clock.refresh();
+        final long now = clock.getNowEpochNanos();
+
+        // an instant read before the last refresh, as by a tick that lost the race for the lock
+        source.advance(-HOUR / 2);
+        clock.refresh();
+        assertEquals(now, clock.getNowEpochNanos());
+        assertEquals(1d - 1d / (365d * 24d), clock.timeRemaining(id), 1e-15d);
+    }
+
+    @Test
+    public void testTradingDays() {
+        // Friday 16:00 to Monday 16:00 is 8 + 16 trading hours, one trading day
+        final ZonedDateTime friday = ZonedDateTime.of(2024, 3, 1, 16, 0, 0, 0, ZoneOffset.UTC);
+        final ManualSource source = new ManualSource(friday);
+        final ExpiryClock clock = new ExpiryClock(source, SECOND, ExpiryClock.Convention.TRADING_DAYS,
+                ZoneOffset.UTC, List.of(LocalDate.of(2024, 3, 12)));
+        final int monday = clock.addExpiry(GreeksBlock.toEpochNanos(friday.plusDays(3)));
+        final int tuesday = clock.addExpiry(GreeksBlock.toEpochNanos(friday.plusDays(11)));
+        final int wednesday = clock.addExpiry(GreeksBlock.toEpochNanos(friday.plusDays(12)));
+        assertEquals(1d / 252d, clock.timeRemaining(monday), 1e-15d);
+        // Friday evening, a full week and Monday 11 March, Tuesday 12 March is a holiday
+        assertEquals((6d + 8d / 24d) / 252d, clock.timeRemaining(tuesday), 1e-15d);
+        assertEquals(clock.timeRemaining(tuesday) + 16d / 24d / 252d, clock.timeRemaining(wednesday), 1e-15d);
+        assertEquals(clock.timeRemaining(monday), clock.timeRemaining(monday, clock.getNowEpochNanos()), 1e-15d);
+
+        // the weekend does not count
+        source.advance(DAY + 8 * HOUR);
+        clock.refresh();
+        assertEquals(16d / 24d / 252d, clock.timeRemaining(monday), 1e-15d);
+        // expired
+        source.advance(2 * DAY);
+        clock.refresh();
+        assertEquals(-8d / 24d / 252d, clock.timeRemaining(monday), 1e-15d);
+    }
+
+    @Test
+    public void testUnknownExpiry() {
+        final ExpiryClock clock = new ExpiryClock(SECOND);
+        assertThrows(IndexOutOfBoundsException.class, () -> clock.getExpiry(0));
+    }
+}
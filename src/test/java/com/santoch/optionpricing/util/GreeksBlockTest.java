@@ -0,0 +1,63 @@
+package com.santoch.optionpricing.util;
+
+import com.santoch.optionpricing.common.IGreeks;
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.common.Utils;
+import com.santoch.optionpricing.vanilla.BlackScholes;
+import org.junit.jupiter.api.*;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GreeksBlockTest {
+
+    @Test
+    public void testRowsMatchGreeksImpl() {
+        final BlackScholes model = new BlackScholes();
+        final ZonedDateTime updateTime = ZonedDateTime.of(2017, 12, 19, 15, 30, 0, 123456789,
+                ZoneId.of("America/New_York"));
+        final GreeksBlock block = new GreeksBlock(2, updateTime.getZone());
+        final GreeksBlock.Row row = block.newRow();
+
+        Utils.greeks(model, row.moveTo(0), GreeksBlock.toEpochNanos(updateTime), OptionType.CALL, 20.29616, 20.29616,
+                20.29616, 1177.62d, 1195.00d, 0.084931506849315d, 0.20d, 0.0135d, 0.0d, true);
+        Utils.greeks(model, row.moveTo(1), GreeksBlock.toEpochNanos(updateTime), OptionType.PUT, 0.2708d, 0.2708d,
+                0.2708d, 214.76d, 190.00d, 0.084931506849315d, 0.25d, 0.0135d, 0.0d, true);
+
+        IGreeks call = model.greeks(updateTime, "C", 20.29616, 20.29616, 20.29616, 1177.62d, 1195.00d,
+                0.084931506849315d, 0.20d, 0.0135d, 0.0d);
+        IGreeks put = model.greeks(updateTime, "P", 0.2708d, 0.2708d, 0.2708d, 214.76d, 190.00d,
+                0.084931506849315d, 0.25d, 0.0135d, 0.0d);
+
+        assertSameGreeks(call, row.moveTo(0));
+        assertSameGreeks(put, row.moveTo(1));
+        assertEquals(0.20d, block.getSmvVol()[0], Constants.IV_PRECISION);
+        assertEquals(0.25d, block.getSmvVol()[1], Constants.IV_PRECISION);
+    }
+
+    @Test
+    public void testRowBounds() {
+        final GreeksBlock block = new GreeksBlock(3);
+        assertThrows(IndexOutOfBoundsException.class, () -> block.row(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> block.row(-1));
+    }
+
+    private static void assertSameGreeks(IGreeks expected, IGreeks actual) {
+        System.out.println("delta=" + actual.getDelta() + ", gamma=" + actual.getGamma()
+                + ", theta=" + actual.getTheta() + ", vega=" + actual.getVega() + ", rho=" + actual.getRho()
+                + ", updateTime=" + actual.getUpdateTime());
+        assertEquals(expected.getDelta(), actual.getDelta(), 0d);
+        assertEquals(expected.getGamma(), actual.getGamma(), 0d);
+        assertEquals(expected.getTheta(), actual.getTheta(), 0d);
+        assertEquals(expected.getVega(), actual.getVega(), 0d);
+        assertEquals(expected.getRho(), actual.getRho(), 0d);
+        assertEquals(expected.getBidIv(), actual.getBidIv(), 0d);
+        assertEquals(expected.getMidIv(), actual.getMidIv(), 0d);
+        assertEquals(expected.getAskIv(), actual.getAskIv(), 0d);
+        assertEquals(expected.getSmvVol(), actual.getSmvVol(), 0d);
+        assertEquals(expected.getUpdateTime(), actual.getUpdateTime());
+    }
+}
@@ -102,7 +102,7 @@ public class NormalDistributionTest {
         NormalDistribution nd = NormalDistribution.Standard();
         double x = 0.56d;
         double cdf = nd.cdf(x);
-        double expectedCdf = 0.7122603051006894d;
+        double expectedCdf = 0.712260281150973d;
         double ulp = Math.ulp(expectedCdf);
         System.out.println("for x=" + x + " the cdf=" + cdf + " expected=" + expectedCdf + " within " + ulp);
         assertEquals(expectedCdf, cdf, ulp);
@@ -113,7 +113,7 @@ public class NormalDistributionTest {
         NormalDistribution nd = new NormalDistribution(34.3d, 3.22d);
         double x = 37.8d;
         double cdf = nd.cdf(x);
-        double expectedCdf = 0.8614719786451529d;
+        double expectedCdf = 0.8614719874836898d;
         double ulp = Math.ulp(expectedCdf);
         System.out.println("for mean/stdev 34.3d, 3.22d, x=" + x + " the cdf=" + cdf +
                 " expected=" + expectedCdf + " within " + ulp);
@@ -152,7 +152,7 @@ public class NormalDistributionTest {
     public void testStdNormalCdf() {
         double x = 0.56d;
         double cdf = NormalDistribution.StandardNormal.cdf(x);
-        double expectedCdf = 0.7122603051006894d;
+        double expectedCdf = 0.712260281150973d;
         double ulp = Math.ulp(expectedCdf);
         System.out.println("stdnormal, for x=" + x + " the cdf=" + cdf + " expected=" + expectedCdf + " within " + ulp);
         assertEquals(expectedCdf, cdf, ulp);
@@ -229,4 +229,38 @@ public class NormalDistributionTest {
         System.out.println("stdnormal StdDev, expected= " + expectedStdDev + " within " + ulp);
         assertEquals(expectedStdDev, actualStdDev, ulp);
     }
+
+    @Test
+    public void testStdNormalCdfTails() {
+        // reference values from erfc, compared relative to the value so the tails are checked too
+        double[] x = {-30d, -10d, -5d, -1.5d, 0.3d, 2.5d, 7d};
+        double[] expectedCdf = {4.906713927148764e-198, 7.619853024160593e-24, 2.866515718791946e-07,
+                0.06680720126885809, 0.6179114221889526, 0.9937903346742238, 0.9999999999987201};
+        for (int i = 0; i < x.length; i++) {
+            double cdf = NormalDistribution.StandardNormal.cdf(x[i]);
+            System.out.println("stdnormal, for x=" + x[i] + " the cdf=" + cdf + " expected=" + expectedCdf[i]);
+            assertEquals(expectedCdf[i], cdf, expectedCdf[i] * 1e-12);
+        }
+    }
+
+    @Test
+    public void testStdNormalInverseCdf() {
+        // above the mean p itself only has absolute precision, so round trip the lower half
+        for (double x = -37d; x <= 0d; x += 0.25d) {
+            double p = NormalDistribution.StandardNormal.cdf(x);
+            assertEquals(x, NormalDistribution.StandardNormal.inverseCdf(p), 1e-12 * Math.max(1d, Math.abs(x)));
+        }
+        assertEquals(0d, NormalDistribution.StandardNormal.inverseCdf(0.5d), 1e-15);
+        assertEquals(Double.NEGATIVE_INFINITY, NormalDistribution.StandardNormal.inverseCdf(0d));
+        assertEquals(Double.POSITIVE_INFINITY, NormalDistribution.StandardNormal.inverseCdf(1d));
+        assertEquals(Double.NaN, NormalDistribution.StandardNormal.inverseCdf(1.5d));
+    }
+
+    @Test
+    public void testInverseCdfNonstd() {
+        NormalDistribution nd = new NormalDistribution(34.3d, 3.22d);
+        double x = 37.8d;
+        assertEquals(x, nd.inverseCdf(nd.cdf(x)), 1e-12);
+        assertEquals(x, NormalDistribution.StandardNormal.inverseCdf(nd.cdf(x), 34.3d, 3.22d), 1e-12);
+    }
 }
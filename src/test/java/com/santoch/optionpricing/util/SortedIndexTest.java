@@ -0,0 +1,94 @@
+package com.santoch.optionpricing.util;
+
+import com.santoch.optionpricing.common.Utils;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedIndexTest {
+
+    @Test
+    public void testDoubleLookups() {
+        final SortedDoubleIndex index = new SortedDoubleIndex(new double[]{15d, 5d, 20d, 10d});
+        assertEquals(4, index.size());
+        assertEquals(5d, index.get(0));
+        assertEquals(-1, index.floorIndex(4d));
+        assertEquals(1, index.floorIndex(10d));
+        assertEquals(1, index.floorIndex(12d));
+        assertEquals(1, index.ceilingIndex(10d));
+        assertEquals(2, index.ceilingIndex(12d));
+        assertEquals(-1, index.ceilingIndex(21d));
+        assertEquals(0, index.nearestIndex(-1d));
+        assertEquals(3, index.nearestIndex(100d));
+        // ties go to the larger value
+        assertEquals(15d, index.nearest(12.5d));
+        assertEquals(10d, index.nearest(12.4d));
+        assertTrue(Double.isNaN(new SortedDoubleIndex(new double[0]).nearest(1d)));
+        assertThrows(InvalidParameterException.class, () -> new SortedDoubleIndex(new double[]{1d, Double.NaN}));
+    }
+
+    @Test
+    public void testDoubleMatchesFindClosestValue() {
+        final Random random = new Random(5L);
+        final double[] strikes = new double[50];
+        final List<Double> list = new ArrayList<>();
+        for (int i = 0; i < strikes.length; i++) {
+            strikes[i] = 50d + 2.5d * i;
+            list.add(strikes[i]);
+        }
+        final SortedDoubleIndex index = new SortedDoubleIndex(strikes);
+        final double[] targets = new double[500];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = Math.round((40d + 150d * random.nextDouble()) * 4d) / 4d;
+        }
+        final int[] out = new int[targets.length];
+        // unsorted targets fall back to binary searches
+        index.nearestIndices(targets, out, 0, targets.length);
+        for (int i = 0; i < targets.length; i++) {
+            assertEquals(Utils.findClosestValue(list, targets[i]), index.get(out[i]), 0d);
+        }
+        Arrays.sort(targets);
+        index.nearestIndices(targets, out, 0, targets.length);
+        for (int i = 0; i < targets.length; i++) {
+            assertEquals(Utils.findClosestValue(list, targets[i]), index.get(out[i]), 0d);
+            assertEquals(index.nearestIndex(targets[i]), out[i]);
+        }
+    }
+
+    @Test
+    public void testLongMatchesFindClosestExpiration() {
+        final ZonedDateTime start = ZonedDateTime.of(2024, 1, 5, 16, 0, 0, 0, ZoneOffset.UTC);
+        final List<ZonedDateTime> expirations = new ArrayList<>();
+        final long[] millis = new long[20];
+        for (int i = 0; i < millis.length; i++) {
+            final ZonedDateTime expiration = start.plusWeeks(i);
+            expirations.add(expiration);
+            millis[i] = expiration.toInstant().toEpochMilli();
+        }
+        final SortedLongIndex index = new SortedLongIndex(millis);
+        final long[] targets = new long[200];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = millis[0] - 86_400_000L * 10 + 3_600_000L * 7 * i;
+        }
+        final int[] out = new int[targets.length + 2];
+        index.nearestIndices(targets, out, 1, targets.length - 1);
+        assertEquals(0, out[0]);
+        for (int i = 1; i < targets.length; i++) {
+            final ZonedDateTime target = ZonedDateTime.ofInstant(Instant.ofEpochMilli(targets[i]), ZoneOffset.UTC);
+            assertEquals(Utils.findClosestExpiration(expirations, target).toInstant().toEpochMilli(),
+                    index.get(out[i]));
+        }
+        assertEquals(-1, index.floorIndex(millis[0] - 1));
+        assertEquals(-1, index.ceilingIndex(millis[19] + 1));
+        assertEquals(-1, new SortedLongIndex(new long[0]).nearestIndex(5L));
+    }
+}
@@ -0,0 +1,112 @@
+package com.santoch.optionpricing.util;
+
+import com.santoch.optionpricing.common.IGreeks;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VolSurfaceTest {
+    private static final double SPOT = 100d;
+    // two expiries, the second with a strike the first does not have
+    private static final double[] TIMES = {0.25d, 0.25d, 0.25d, 1d, 1d, 1d, 1d};
+    private static final double[] STRIKES = {90d, 100d, 110d, 80d, 90d, 100d, 110d};
+    private static final double[] VOLS = {0.30d, 0.25d, 0.28d, 0.32d, 0.29d, 0.26d, 0.27d};
+
+    private static VolSurface surface(VolSurface.Interpolation interpolation) {
+        return new VolSurface(interpolation, SPOT, TIMES, STRIKES, VOLS, TIMES.length);
+    }
+
+    @Test
+    public void testGridPoints() {
+        final VolSurface surface = surface(VolSurface.Interpolation.TOTAL_VARIANCE);
+        assertEquals(2, surface.expiryCount());
+        assertEquals(7, surface.size());
+        for (int i = 0; i < TIMES.length; i++) {
+            assertEquals(VOLS[i], surface.volatility(SPOT, STRIKES[i], TIMES[i]), 1e-15d);
+        }
+    }
+
+    @Test
+    public void testStrikeInterpolationAndExtrapolation() {
+        final VolSurface surface = surface(VolSurface.Interpolation.BILINEAR);
+        // linear in ln(K / S)
+        final double k = Math.log(95d / SPOT), k0 = Math.log(0.9d), k1 = 0d;
+        assertEquals(0.30d + (0.25d - 0.30d) * (k - k0) / (k1 - k0), surface.volatility(SPOT, 95d, 0.25d), 1e-15d);
+        // flat beyond the slice and outside the expiries
+        assertEquals(0.30d, surface.volatility(SPOT, 70d, 0.25d), 0d);
+        assertEquals(0.27d, surface.volatility(SPOT, 150d, 1d), 0d);
+        assertEquals(0.25d, surface.volatility(SPOT, 100d, 0.1d), 0d);
+        assertEquals(0.26d, surface.volatility(SPOT, 100d, 2d), 0d);
+    }
+
+    @Test
+    public void testTimeInterpolation() {
+        final double t = 0.5d, weight = (t - 0.25d) / 0.75d;
+        assertEquals(0.25d + (0.26d - 0.25d) * weight,
+                surface(VolSurface.Interpolation.BILINEAR).volatility(SPOT, 100d, t), 1e-15d);
+        final double w0 = 0.25d * 0.25d * 0.25d, w1 = 0.26d * 0.26d;
+        assertEquals(Math.sqrt((w0 + (w1 - w0) * weight) / t),
+                surface(VolSurface.Interpolation.TOTAL_VARIANCE).volatility(SPOT, 100d, t), 1e-15d);
+    }
+
+    @Test
+    public void testBatchMatchesSingle() {
+        final VolSurface surface = surface(VolSurface.Interpolation.TOTAL_VARIANCE);
+        final double[] strikes = {75d, 85d, 95d, 105d, 115d, 85d, 95d, 105d};
+        final double[] times = {0.1d, 0.1d, 0.4d, 0.4d, 0.4d, 1.5d, 1.5d, 0.25d};
+        final double[] out = new double[strikes.length + 1];
+        surface.volatilities(SPOT, strikes, times, out, 0, strikes.length);
+        for (int i = 0; i < strikes.length; i++) {
+            assertEquals(surface.volatility(SPOT, strikes[i], times[i]), out[i], 1e-15d);
+        }
+        assertEquals(0d, out[strikes.length]);
+    }
+
+    @Test
+    public void testFromGreeks() {
+        final IGreeks[] greeks = new IGreeks[4];
+        final double[] vols = {0.2d, 0.3d, Double.NaN, 0.26d};
+        for (int i = 0; i < greeks.length; i++) {
+            greeks[i] = new GreeksImpl();
+            greeks[i].setSmvVol(vols[i]);
+        }
+        // a call and a put at 100 are averaged, the unsolved point is skipped
+        final VolSurface surface = VolSurface.fromGreeks(VolSurface.Interpolation.BILINEAR, SPOT,
+                new double[]{0.5d, 0.5d, 0.5d, 0.5d}, new double[]{100d, 100d, 105d, 110d}, greeks);
+        assertEquals(2, surface.size());
+        assertEquals(0.25d, surface.volatility(SPOT, 100d, 0.5d), 1e-15d);
+        assertEquals(0.26d, surface.volatility(SPOT, 110d, 0.5d), 1e-15d);
+    }
+
+    @Test
+    public void testUnorderedPoints() {
+        // the grid reversed, with a second copy of every point at the same volatility
+        final int n = TIMES.length;
+        final double[] times = new double[2 * n], strikes = new double[2 * n], vols = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            times[i] = times[2 * n - 1 - i] = TIMES[n - 1 - i];
+            strikes[i] = strikes[2 * n - 1 - i] = STRIKES[n - 1 - i];
+            vols[i] = vols[2 * n - 1 - i] = VOLS[n - 1 - i];
+        }
+        final VolSurface surface = new VolSurface(VolSurface.Interpolation.BILINEAR, SPOT, times, strikes, vols,
+                2 * n);
+        final VolSurface ordered = surface(VolSurface.Interpolation.BILINEAR);
+        assertEquals(2, surface.expiryCount());
+        assertEquals(n, surface.size());
+        for (double t : new double[]{0.1d, 0.25d, 0.6d, 1d, 2d}) {
+            for (double k = 70d; k <= 120d; k += 2.5d) {
+                assertEquals(ordered.volatility(SPOT, k, t), surface.volatility(SPOT, k, t), 1e-15d);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(InvalidParameterException.class, () -> new VolSurface(VolSurface.Interpolation.BILINEAR, SPOT,
+                TIMES, STRIKES, VOLS, TIMES.length + 1));
+        assertThrows(InvalidParameterException.class, () -> new VolSurface(VolSurface.Interpolation.BILINEAR, SPOT,
+                new double[]{1d}, new double[]{100d}, new double[]{Double.NaN}, 1));
+    }
+}
@@ -0,0 +1,133 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BaroneAdesiWhaleyTest {
+    private static final double UNDERLYING_PRICE = 100d;
+    private static final double INTEREST_RATE = 0.08d;
+    private static final double DIVIDEND_YIELD = 0.12d;
+    private static final double[] STRIKES = {80d, 90d, 100d, 110d, 120d};
+
+    static final BlackScholes s_blackScholes = new BlackScholes();
+    static final BinomialTree s_tree = new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 1001, true);
+
+    @Test
+    public void testMatchesBinomialTree() {
+        final BaroneAdesiWhaley model = new BaroneAdesiWhaley();
+        // the quadratic approximation is close for short expiries
+        for (OptionType type : OptionType.values()) {
+            for (double strike : STRIKES) {
+                assertEquals(s_tree.priceOption(type, UNDERLYING_PRICE, strike, 0.1d, 0.15d, INTEREST_RATE,
+                        DIVIDEND_YIELD), model.priceOption(type, UNDERLYING_PRICE, strike, 0.1d, 0.15d,
+                        INTEREST_RATE, DIVIDEND_YIELD), 0.05d);
+                assertEquals(s_tree.priceOption(type, UNDERLYING_PRICE, strike, 0.5d, 0.35d, INTEREST_RATE,
+                        DIVIDEND_YIELD), model.priceOption(type, UNDERLYING_PRICE, strike, 0.5d, 0.35d,
+                        INTEREST_RATE, DIVIDEND_YIELD), 0.1d);
+            }
+        }
+    }
+
+    @Test
+    public void testLowVolatilityHighRate() {
+        // the plain Newton iteration for the critical price stepped to a negative price on these
+        final BaroneAdesiWhaley model = new BaroneAdesiWhaley();
+        final OptionType[] types = {OptionType.PUT, OptionType.PUT, OptionType.CALL, OptionType.CALL};
+        final double[][] inputs = {
+                // underlying, time, volatility, rate, dividend yield
+                {100d, 3d, 0.02d, 0.1d, 0d},
+                {100d, 1d, 0.01d, 0.2d, 0d},
+                {100d, 0.5d, 0.01d, 0.02d, 0.1d},
+                {80d, 3d, 0.05d, 0d, 0.1d}};
+        for (int i = 0; i < inputs.length; i++) {
+            final double[] input = inputs[i];
+            final double price = model.priceOption(types[i], input[0], 100d, input[1], input[2], input[3],
+                    input[4]);
+            assertEquals(s_tree.priceOption(types[i], input[0], 100d, input[1], input[2], input[3], input[4]),
+                    price, 0.005d);
+            // served from the cache, which only holds finite critical prices
+            assertEquals(price, model.priceOption(types[i], input[0], 100d, input[1], input[2], input[3],
+                    input[4]), 0d);
+        }
+        assertEquals(inputs.length, model.getCacheHits());
+    }
+
+    @Test
+    public void testExpired() {
+        final BaroneAdesiWhaley model = new BaroneAdesiWhaley();
+        assertEquals(0d, model.priceOption(OptionType.PUT, 110d, 100d, 0d, 0.3d, INTEREST_RATE, DIVIDEND_YIELD), 0d);
+        assertEquals(10d, model.priceOption(OptionType.CALL, 110d, 100d, 0d, 0.3d, INTEREST_RATE, DIVIDEND_YIELD),
+                0d);
+        assertEquals(0d, model.priceOption(OptionType.CALL, 90d, 100d, -0.01d, 0.3d, INTEREST_RATE,
+                DIVIDEND_YIELD), 0d);
+    }
+
+    @Test
+    public void testEuropeanWithoutEarlyExercise() {
+        final BaroneAdesiWhaley model = new BaroneAdesiWhaley();
+        for (double strike : STRIKES) {
+            assertEquals(s_blackScholes.priceOption(OptionType.CALL, UNDERLYING_PRICE, strike, 0.5d, 0.3d,
+                    INTEREST_RATE, 0d), model.priceOption(OptionType.CALL, UNDERLYING_PRICE, strike, 0.5d, 0.3d,
+                    INTEREST_RATE, 0d), 0d);
+            assertEquals(s_blackScholes.priceOption(OptionType.PUT, UNDERLYING_PRICE, strike, 0.5d, 0.3d, 0d,
+                    DIVIDEND_YIELD), model.priceOption(OptionType.PUT, UNDERLYING_PRICE, strike, 0.5d, 0.3d, 0d,
+                    DIVIDEND_YIELD), 0d);
+        }
+        assertEquals(0L, model.getCacheMisses());
+    }
+
+    @Test
+    public void testCriticalPriceCache() {
+        final BaroneAdesiWhaley cached = new BaroneAdesiWhaley(16);
+        final BaroneAdesiWhaley uncached = new BaroneAdesiWhaley(0);
+        assertEquals(16, cached.getCacheCapacity());
+        assertEquals(0, uncached.getCacheCapacity());
+        for (double strike : STRIKES) {
+            assertEquals(uncached.priceOption(OptionType.PUT, UNDERLYING_PRICE, strike, 0.25d, 0.3d, INTEREST_RATE,
+                    DIVIDEND_YIELD), cached.priceOption(OptionType.PUT, UNDERLYING_PRICE, strike, 0.25d, 0.3d,
+                    INTEREST_RATE, DIVIDEND_YIELD), 0d);
+        }
+        // one iteration for the whole strip
+        assertEquals(1L, cached.getCacheMisses());
+        assertEquals(STRIKES.length - 1L, cached.getCacheHits());
+        // a different volatility is a different critical price
+        cached.priceOption(OptionType.PUT, UNDERLYING_PRICE, 100d, 0.25d, 0.31d, INTEREST_RATE, DIVIDEND_YIELD);
+        assertEquals(2L, cached.getCacheMisses());
+        assertThrows(InvalidParameterException.class, () -> new BaroneAdesiWhaley(-1));
+    }
+
+    @Test
+    public void testGreeksMatchFiniteDifferences() {
+        final BaroneAdesiWhaley model = new BaroneAdesiWhaley();
+        final double h = 0.01d;
+        for (OptionType type : OptionType.values()) {
+            for (double strike : STRIKES) {
+                final PriceAndGreeks greeks = model.priceAndGreeks(type, UNDERLYING_PRICE, strike, 0.5d, 0.3d,
+                        INTEREST_RATE, DIVIDEND_YIELD, new PriceAndGreeks());
+                final double up = model.priceOption(type, UNDERLYING_PRICE + h, strike, 0.5d, 0.3d,
+                        INTEREST_RATE, DIVIDEND_YIELD);
+                final double down = model.priceOption(type, UNDERLYING_PRICE - h, strike, 0.5d, 0.3d,
+                        INTEREST_RATE, DIVIDEND_YIELD);
+                assertEquals(model.priceOption(type, UNDERLYING_PRICE, strike, 0.5d, 0.3d, INTEREST_RATE,
+                        DIVIDEND_YIELD), greeks.getPrice(), 0d);
+                assertEquals((up - down) / (2 * h), greeks.getDelta(), 1e-6d);
+                assertEquals((up - 2 * greeks.getPrice() + down) / (h * h), greeks.getGamma(), 1e-4d);
+            }
+        }
+    }
+
+    @Test
+    public void testImpliedVolatility() {
+        final BaroneAdesiWhaley model = new BaroneAdesiWhaley();
+        final double price = model.priceOption("P", UNDERLYING_PRICE, 110d, 0.25d, 0.3d, INTEREST_RATE, 0.01d);
+        assertEquals(0.3d, model.impliedVolatility("P", price, UNDERLYING_PRICE, 110d, 0.25d, 0.5d,
+                INTEREST_RATE, 0.01d), Constants.IV_PRECISION);
+    }
+}
@@ -0,0 +1,180 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinomialTreeTest {
+    private static final double UNDERLYING_PRICE = 1177.62d;
+    private static final double TIME_REMAINING = 0.084931506849315d; // 31 days
+    private static final double VOLATILITY = 0.20d;
+    private static final double INTEREST_RATE = 0.0135d;
+
+    static final BlackScholes s_blackScholes = new BlackScholes();
+
+    @Test
+    public void testEuropeanCallConvergesToBlackScholes() {
+        // without dividends an American call is never exercised early
+        final BinomialTree[] trees = {
+                new BinomialTree(),
+                new BinomialTree(BinomialTree.Lattice.COX_ROSS_RUBINSTEIN, 500, true),
+                new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 201, false),
+                new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 201, true)};
+        for (double strike : new double[]{1100d, 1195d, 1250d}) {
+            final double expected = s_blackScholes.priceOption(OptionType.CALL, UNDERLYING_PRICE, strike,
+                    TIME_REMAINING, VOLATILITY, INTEREST_RATE, 0d);
+            final double expectedDelta = s_blackScholes.delta(OptionType.CALL, UNDERLYING_PRICE, strike,
+                    TIME_REMAINING, VOLATILITY, INTEREST_RATE, 0d);
+            final double expectedGamma = s_blackScholes.gamma(UNDERLYING_PRICE, strike, TIME_REMAINING,
+                    VOLATILITY, INTEREST_RATE, 0d);
+            for (BinomialTree tree : trees) {
+                final PriceAndGreeks result = tree.priceAndGreeks(OptionType.CALL, UNDERLYING_PRICE, strike,
+                        TIME_REMAINING, VOLATILITY, INTEREST_RATE, 0d, new PriceAndGreeks());
+                assertEquals(expected, result.getPrice(), 0.05d);
+                assertEquals(expectedDelta, result.getDelta(), 0.005d);
+                assertEquals(expectedGamma, result.getGamma(), expectedGamma * 0.05d);
+                assertEquals(s_blackScholes.vega(OptionType.CALL, UNDERLYING_PRICE, strike, TIME_REMAINING,
+                        VOLATILITY, INTEREST_RATE, 0d), result.getVega(), 0.05d);
+            }
+        }
+    }
+
+    @Test
+    public void testLeisenReimerIsCloserThanCoxRossRubinstein() {
+        final double expected = s_blackScholes.priceOption(OptionType.CALL, UNDERLYING_PRICE, 1195d,
+                TIME_REMAINING, VOLATILITY, INTEREST_RATE, 0d);
+        final double crr = new BinomialTree(BinomialTree.Lattice.COX_ROSS_RUBINSTEIN, 101, false)
+                .priceOption(OptionType.CALL, UNDERLYING_PRICE, 1195d, TIME_REMAINING, VOLATILITY, INTEREST_RATE, 0d);
+        final double lr = new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 101, false)
+                .priceOption(OptionType.CALL, UNDERLYING_PRICE, 1195d, TIME_REMAINING, VOLATILITY, INTEREST_RATE, 0d);
+        assertTrue(Math.abs(lr - expected) < Math.abs(crr - expected));
+        assertEquals(expected, lr, 0.001d);
+    }
+
+    // largest price error of a European call over strikes, expiries and volatilities
+    private static double worstCallError(BinomialTree tree) {
+        double worst = 0d;
+        for (double strike = 80d; strike <= 120d; strike += 10d) {
+            for (double time : new double[]{0.1d, 0.5d, 2d}) {
+                for (double volatility : new double[]{0.2d, 0.6d}) {
+                    final double expected = s_blackScholes.priceOption(OptionType.CALL, 100d, strike, time,
+                            volatility, 0.05d, 0d);
+                    worst = Math.max(worst, Math.abs(tree.priceOption(OptionType.CALL, 100d, strike, time,
+                            volatility, 0.05d, 0d) - expected));
+                }
+            }
+        }
+        return worst;
+    }
+
+    @Test
+    public void testRichardsonReducesError() {
+        for (BinomialTree.Lattice lattice : BinomialTree.Lattice.values()) {
+            final int steps = lattice == BinomialTree.Lattice.LEISEN_REIMER ? 101 : 200;
+            final double plain = worstCallError(new BinomialTree(lattice, steps, false));
+            final double extrapolated = worstCallError(new BinomialTree(lattice, steps, true));
+            assertTrue(extrapolated < plain / 10d, lattice + " " + extrapolated + " vs " + plain);
+        }
+    }
+
+    @Test
+    public void testAmericanPut() {
+        // no dividend and a high rate, so deep in the money puts are exercised early
+        final BinomialTree tree = new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 301, true);
+        final BinomialTree fine = new BinomialTree(BinomialTree.Lattice.COX_ROSS_RUBINSTEIN, 5000, false);
+        final BjerksundStensland bjst = new BjerksundStensland();
+        for (double strike : new double[]{1100d, 1250d, 1400d}) {
+            final double american = tree.priceOption("P", UNDERLYING_PRICE, strike, 0.5d, VOLATILITY, 0.08d, 0d);
+            final double european = s_blackScholes.priceOption("P", UNDERLYING_PRICE, strike, 0.5d, VOLATILITY,
+                    0.08d, 0d);
+            assertTrue(american > european);
+            assertTrue(american >= strike - UNDERLYING_PRICE);
+            assertEquals(fine.priceOption("P", UNDERLYING_PRICE, strike, 0.5d, VOLATILITY, 0.08d, 0d), american,
+                    0.02d);
+            // Bjerksund-Stensland is an approximation from below
+            assertTrue(bjst.priceOption("P", UNDERLYING_PRICE, strike, 0.5d, VOLATILITY, 0.08d, 0d) <= american);
+        }
+    }
+
+    @Test
+    public void testThetaMatchesTimeDecay() {
+        final BinomialTree tree = new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 301, false);
+        final double theta = tree.theta(OptionType.PUT, UNDERLYING_PRICE, 1250d, 0.5d, VOLATILITY,
+                INTEREST_RATE, 0.03d);
+        final double day = 1d / 365d;
+        final double decay = tree.priceOption(OptionType.PUT, UNDERLYING_PRICE, 1250d, 0.5d - day, VOLATILITY,
+                INTEREST_RATE, 0.03d) - tree.priceOption(OptionType.PUT, UNDERLYING_PRICE, 1250d, 0.5d, VOLATILITY,
+                INTEREST_RATE, 0.03d);
+        assertEquals(decay, theta, Math.abs(decay) * 0.1d);
+    }
+
+    @Test
+    public void testImpliedVolatility() {
+        final BinomialTree tree = new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 201, false);
+        final double price = tree.priceOption(OptionType.PUT, UNDERLYING_PRICE, 1250d, TIME_REMAINING, VOLATILITY,
+                INTEREST_RATE, 0.03d);
+        assertEquals(VOLATILITY, tree.impliedVolatility(OptionType.PUT, price, UNDERLYING_PRICE, 1250d,
+                TIME_REMAINING, 0.5d, INTEREST_RATE, 0.03d), Constants.IV_PRECISION);
+    }
+
+    @Test
+    public void testExpired() {
+        final BinomialTree tree = new BinomialTree();
+        final PriceAndGreeks put = tree.priceAndGreeks(OptionType.PUT, UNDERLYING_PRICE, 1250d, 0d, VOLATILITY,
+                INTEREST_RATE, 0d, new PriceAndGreeks());
+        assertEquals(1250d - UNDERLYING_PRICE, put.getPrice(), 1e-9d);
+        assertEquals(-1d, put.getDelta(), 0d);
+        assertEquals(0d, put.getGamma(), 0d);
+        assertEquals(0d, put.getTheta(), 0d);
+        assertEquals(0d, tree.delta(OptionType.CALL, UNDERLYING_PRICE, 1250d, 0d, VOLATILITY, INTEREST_RATE, 0d),
+                0d);
+        assertEquals(1d, tree.delta(OptionType.CALL, UNDERLYING_PRICE, 1100d, -0.01d, VOLATILITY, INTEREST_RATE,
+                0d), 0d);
+        // worth its intrinsic value, out of the money nothing
+        assertEquals(1250d - UNDERLYING_PRICE, tree.priceOption(OptionType.PUT, UNDERLYING_PRICE, 1250d, 0d,
+                VOLATILITY, INTEREST_RATE, 0d), 1e-9d);
+        assertEquals(0d, tree.priceOption(OptionType.PUT, 110d, 100d, 0d, VOLATILITY, INTEREST_RATE, 0d), 0d);
+        assertEquals(0d, tree.priceOption(OptionType.CALL, UNDERLYING_PRICE, 1250d, -0.01d, VOLATILITY,
+                INTEREST_RATE, 0d), 0d);
+        assertEquals(0d, tree.gamma(UNDERLYING_PRICE, 1100d, 0d, VOLATILITY, INTEREST_RATE, 0d), 0d);
+        assertEquals(0d, tree.theta(OptionType.CALL, UNDERLYING_PRICE, 1100d, 0d, VOLATILITY, INTEREST_RATE, 0d),
+                0d);
+    }
+
+    @Test
+    public void testLowVolatilityHighRate() {
+        // volatility * sqrt(dt) below |r - q| * dt, where the CRR probability leaves (0, 1)
+        final BinomialTree[] trees = {
+                new BinomialTree(),
+                new BinomialTree(BinomialTree.Lattice.COX_ROSS_RUBINSTEIN, 500, true)};
+        for (BinomialTree tree : trees) {
+            // nothing left to diffuse, the call is worth its forward and is never exercised early
+            assertEquals(100d * Math.exp(-0.01d * 0.02d) - 60d * Math.exp(-0.03d * 0.02d),
+                    tree.priceOption(OptionType.CALL, 100d, 60d, 0.02d, 1e-5d, 0.03d, 0.01d), 1e-9d);
+            assertEquals(100d - 100d * Math.exp(-0.1d),
+                    tree.priceOption(OptionType.CALL, 100d, 100d, 1d, 1e-3d, 0.1d, 0d), 1e-9d);
+            assertEquals(0d, tree.priceOption(OptionType.PUT, 100d, 100d, 1d, 1e-3d, 0.1d, 0d), 1e-9d);
+            final PriceAndGreeks call = tree.priceAndGreeks(OptionType.CALL, 100d, 100d, 1d, 1e-3d, 0.1d, 0d,
+                    new PriceAndGreeks());
+            assertEquals(1d, call.getDelta(), 1e-9d);
+            assertEquals(-0.1d * 100d * Math.exp(-0.1d) / 365d, call.getTheta(), 1e-4d);
+        }
+    }
+
+    @Test
+    public void testSteps() {
+        assertEquals(201, new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 200, false).getSteps());
+        assertEquals(200, new BinomialTree(BinomialTree.Lattice.COX_ROSS_RUBINSTEIN, 200, false).getSteps());
+        assertThrows(InvalidParameterException.class,
+                () -> new BinomialTree(BinomialTree.Lattice.COX_ROSS_RUBINSTEIN, 3, false));
+        assertThrows(InvalidParameterException.class,
+                () -> new BinomialTree(BinomialTree.Lattice.COX_ROSS_RUBINSTEIN, 5, true));
+    }
+}
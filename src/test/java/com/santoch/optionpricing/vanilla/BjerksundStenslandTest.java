@@ -1,6 +1,8 @@
 package com.santoch.optionpricing.vanilla;
 
+import com.santoch.optionpricing.common.OptionType;
 import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -73,7 +75,7 @@ public class BjerksundStenslandTest {
         double bsprice = s_BjerksundStensland.priceOption("P", underlyingPrice, strikePrice, timeRemaining,
                 volatility, intererstRate, dividendYield);
         System.out.println("testBjerksundStenslandPut1 bsprice=" + bsprice);
-        assertEquals(22.03875264497185d, bsprice, Constants.PRICE_PRECISION);
+        assertEquals(22.038779239294513d, bsprice, Constants.PRICE_PRECISION);
     }
 
     @Test
@@ -106,4 +108,134 @@ public class BjerksundStenslandTest {
                         + ", rho=" + rho
         );
     }
+
+    @Test
+    public void testBjerksundStenslandBatchPrice() {
+        boolean[] isCall = {true, false, true};
+        double[] underlyingPrice = {1177.62d, 1177.62d, 1177.62d};
+        double[] strikePrice = {1195.00d, 1165.00d, 1195.00d};
+        double[] timeRemaining = {0.084931506849315d, 0.084931506849315d, 0.084931506849315d};
+        double[] volatility = {0.20d, 0.20d, 0.20d};
+        double[] interestRate = {0.0135d, 0.0135d, 0.0135d};
+        double[] dividendYield = {0.03d, 0.03d, 0.0d};
+        double[] prices = new double[3];
+        s_BjerksundStensland.priceOptions(isCall, underlyingPrice, strikePrice, timeRemaining, volatility,
+                interestRate, dividendYield, prices);
+        System.out.println("testBjerksundStenslandBatchPrice prices=" + java.util.Arrays.toString(prices));
+        assertEquals(19.082618995152643d, prices[0], Constants.PRICE_PRECISION);
+        assertEquals(22.038779239294513d, prices[1], Constants.PRICE_PRECISION);
+        assertEquals(20.29616303951127d, prices[2], Constants.PRICE_PRECISION);
+    }
+
+    @Test
+    public void testBjerksundStenslandOptionTypeOverloads() {
+        double underlyingPrice = 1177.62d;
+        double strikePrice = 1165.00d;
+        double timeRemaining = 0.084931506849315d; // date 12/19/2017, expiration 1/19/2018, 31 days
+        double volatility = 0.20d;
+        double interestRate = 0.0135d;
+        double dividendYield = 0.03d;
+        for (OptionType type : OptionType.values()) {
+            String code = type.getCode();
+            assertEquals(s_BjerksundStensland.priceOption(code, underlyingPrice, strikePrice, timeRemaining,
+                    volatility, interestRate, dividendYield), s_BjerksundStensland.priceOption(type,
+                    underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield), 0d);
+            assertEquals(s_BjerksundStensland.delta(code, underlyingPrice, strikePrice, timeRemaining,
+                    volatility, interestRate, dividendYield), s_BjerksundStensland.delta(type,
+                    underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield), 0d);
+            assertEquals(s_BjerksundStensland.vega(code, underlyingPrice, strikePrice, timeRemaining,
+                    volatility, interestRate, dividendYield), s_BjerksundStensland.vega(type,
+                    underlyingPrice, strikePrice, timeRemaining, volatility, interestRate, dividendYield), 0d);
+        }
+        assertEquals(0.0d, s_BjerksundStensland.priceOption("X", underlyingPrice, strikePrice, timeRemaining,
+                volatility, interestRate, dividendYield), 0d);
+        double bjiv = s_BjerksundStensland.impliedVolatility(OptionType.PUT, 22.03875264497185d, underlyingPrice,
+                strikePrice, timeRemaining, 0.5, interestRate, dividendYield);
+        assertEquals(0.20d, bjiv, Constants.IV_PRECISION);
+    }
+
+    @Test
+    public void testBjerksundStenslandBracketedImpVol() {
+        BjerksundStensland bracketed = new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED);
+        double timeRemaining = 0.084931506849315d; // date 12/19/2017, expiration 1/19/2018, 31 days
+        assertEquals(0.20d, bracketed.impliedVolatility("C", 20.29616, 1177.62d, 1195.00d, timeRemaining, 0.5,
+                0.0135d, 0.0d), Constants.IV_PRECISION);
+        assertEquals(0.20d, bracketed.impliedVolatility("P", 22.03875264497185d, 1177.62d, 1165.00d, timeRemaining,
+                0.5, 0.0135d, 0.03d), Constants.IV_PRECISION);
+        // below intrinsic there is no solution, reported instead of returning the last iterate
+        assertEquals(Double.NaN, bracketed.impliedVolatility("P", 10d, 100d, 120d, timeRemaining, 0.5, 0.0135d,
+                0.03d));
+    }
+
+    @Test
+    public void testBjerksundStenslandBracketedRoundTrip() {
+        BjerksundStensland bracketed = new BjerksundStensland(BjerksundStensland.IvSolver.BRACKETED);
+        double underlyingPrice = 100d;
+        double interestRate = 0.03d;
+        double dividendYield = 0.02d;
+        for (OptionType type : OptionType.values()) {
+            for (double strikePrice = 60d; strikePrice <= 150d; strikePrice += 10d) {
+                for (double timeRemaining : new double[]{0.05d, 0.5d, 2d}) {
+                    for (double volatility : new double[]{0.1d, 0.3d, 0.9d}) {
+                        double price = bracketed.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                                volatility, interestRate, dividendYield);
+                        // exercised, or so deep in the money that the price stops depending on the volatility
+                        double intrinsic = Math.max(type.getSign() * (underlyingPrice - strikePrice), 0d);
+                        if (price - intrinsic < 1e-4d || bracketed.vega(type, underlyingPrice, strikePrice,
+                                timeRemaining, volatility, interestRate, dividendYield) < 1e-4d) {
+                            continue;
+                        }
+                        double iv = bracketed.impliedVolatility(type, price, underlyingPrice, strikePrice,
+                                timeRemaining, 0.5d, interestRate, dividendYield);
+                        assertEquals(volatility, iv, Constants.IV_PRECISION);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBjerksundStenslandAnalyticGreeks() {
+        double underlyingPrice = 100d;
+        double timeRemaining = 0.5d;
+        double volatility = 0.3d;
+        double interestRate = 0.02d;
+        double dividendYield = 0.05d;
+        PriceAndGreeks result = new PriceAndGreeks();
+        for (OptionType type : OptionType.values()) {
+            for (double strikePrice = 80d; strikePrice <= 120d; strikePrice += 10d) {
+                // central differences with small bumps
+                double h = 1e-3d;
+                double delta = (s_BjerksundStensland.priceOption(type, underlyingPrice + h, strikePrice,
+                        timeRemaining, volatility, interestRate, dividendYield)
+                                - s_BjerksundStensland.priceOption(type, underlyingPrice - h, strikePrice,
+                        timeRemaining, volatility, interestRate, dividendYield)) / (2 * h);
+                double vega = (s_BjerksundStensland.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility + h, interestRate, dividendYield)
+                               - s_BjerksundStensland.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility - h, interestRate, dividendYield)) / (2 * h) * 0.01;
+                double theta = -(s_BjerksundStensland.priceOption(type, underlyingPrice, strikePrice,
+                        timeRemaining + h, volatility, interestRate, dividendYield)
+                                 - s_BjerksundStensland.priceOption(type, underlyingPrice, strikePrice,
+                        timeRemaining - h, volatility, interestRate, dividendYield)) / (2 * h) / 365;
+                assertEquals(delta, s_BjerksundStensland.delta(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility, interestRate, dividendYield), 1e-4d);
+                assertEquals(vega, s_BjerksundStensland.vega(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility, interestRate, dividendYield), 1e-4d);
+                assertEquals(theta, s_BjerksundStensland.theta(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility, interestRate, dividendYield), 1e-5d);
+
+                s_BjerksundStensland.priceAndGreeks(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                        interestRate, dividendYield, result);
+                assertEquals(s_BjerksundStensland.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility, interestRate, dividendYield), result.getPrice(), 1e-12);
+                assertEquals(s_BjerksundStensland.delta(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility, interestRate, dividendYield), result.getDelta(), 1e-12);
+                assertEquals(s_BjerksundStensland.vega(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility, interestRate, dividendYield), result.getVega(), 1e-12);
+                assertEquals(s_BjerksundStensland.theta(type, underlyingPrice, strikePrice, timeRemaining,
+                        volatility, interestRate, dividendYield), result.getTheta(), 1e-12);
+            }
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package com.santoch.optionpricing.vanilla;
 
+import com.santoch.optionpricing.common.OptionType;
 import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -164,5 +166,130 @@ public class BlackScholesTest {
         assertEquals(-0.02206, theta, 0.0001d);
         assertEquals(-0.00780, rho, 0.0001d);
     }
-}
 
+    @Test
+    public void testBlackScholesBatchPrice() {
+        boolean[] isCall = {true, false, true, false};
+        double[] underlyingPrice = {1177.62d, 214.76d, 1177.62d, 214.76d};
+        double[] strikePrice = {1195.00d, 190.00d, 1165.00d, 220.00d};
+        double[] timeRemaining = {0.084931506849315d, 0.084931506849315d, 0.5d, 0.0d};
+        double[] volatility = {0.20d, 0.25d, 0.30d, 0.25d};
+        double[] interestRate = {0.0135d, 0.0135d, 0.0135d, 0.0135d};
+        double[] dividendYield = {0.0d, 0.0d, 0.02d, 0.0d};
+        double[] prices = new double[4];
+        s_BlackScholes.priceOptions(isCall, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield, prices);
+        for (int i = 0; i < prices.length; i++) {
+            double expected = s_BlackScholes.priceOption(isCall[i] ? "C" : "P", underlyingPrice[i], strikePrice[i],
+                    timeRemaining[i], volatility[i], interestRate[i], dividendYield[i]);
+            System.out.println("testBlackScholesBatchPrice i=" + i + " price=" + prices[i] + " expected=" + expected);
+            assertEquals(expected, prices[i], 1e-9);
+        }
+        assertEquals(20.29616303951127d, prices[0], Constants.PRICE_PRECISION);
+    }
+
+    @Test
+    public void testBlackScholesBatchPriceAndDelta() {
+        // enough rows to cover the vector kernel (when enabled) and the scalar tail
+        final int n = 37;
+        boolean[] isCall = new boolean[n];
+        double[] underlyingPrice = new double[n], strikePrice = new double[n], timeRemaining = new double[n];
+        double[] volatility = new double[n], interestRate = new double[n], dividendYield = new double[n];
+        for (int i = 0; i < n; i++) {
+            isCall[i] = (i % 2) == 0;
+            underlyingPrice[i] = 214.76d;
+            strikePrice[i] = 150d + 5d * i;
+            timeRemaining[i] = (i % 5 == 4) ? 0d : 0.02d + 0.05d * (i % 7);
+            volatility[i] = 0.15d + 0.01d * (i % 11);
+            interestRate[i] = 0.0135d;
+            dividendYield[i] = (i % 3) * 0.01d;
+        }
+        double[] prices = new double[n], deltas = new double[n];
+        s_BlackScholes.priceAndDelta(isCall, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                dividendYield, prices, deltas, 0, n);
+        for (int i = 0; i < n; i++) {
+            String type = isCall[i] ? "C" : "P";
+            double price = s_BlackScholes.priceOption(type, underlyingPrice[i], strikePrice[i], timeRemaining[i],
+                    volatility[i], interestRate[i], dividendYield[i]);
+            assertEquals(price, prices[i], 1e-9);
+            if (timeRemaining[i] > 0) {
+                double delta = s_BlackScholes.delta(type, underlyingPrice[i], strikePrice[i], timeRemaining[i],
+                        volatility[i], interestRate[i], dividendYield[i]);
+                assertEquals(delta, deltas[i], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testBlackScholesFusedGreeks() {
+        double underlyingPrice = 214.76d;
+        double strikePrice = 190.00d;
+        double timeRemaining = 0.084931506849315d; // date 12/19/2017, expiration 1/19/2018, 31 days
+        double interestRate = 0.0135d;
+        double dividendYield = 0.01d;
+        double volatility = 0.25d;
+        PriceAndGreeks result = new PriceAndGreeks();
+        for (OptionType type : OptionType.values()) {
+            s_BlackScholes.priceAndGreeks(type, underlyingPrice, strikePrice, timeRemaining, volatility, interestRate,
+                    dividendYield, result);
+            System.out.println("testBlackScholesFusedGreeks " + type + " price=" + result.getPrice()
+                    + " delta=" + result.getDelta() + " gamma=" + result.getGamma() + " theta=" + result.getTheta()
+                    + " vega=" + result.getVega() + " rho=" + result.getRho());
+            assertEquals(s_BlackScholes.priceOption(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield), result.getPrice(), 1e-12);
+            assertEquals(s_BlackScholes.delta(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield), result.getDelta(), 1e-12);
+            assertEquals(s_BlackScholes.gamma(underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield), result.getGamma(), 1e-12);
+            assertEquals(s_BlackScholes.theta(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield), result.getTheta(), 1e-12);
+            assertEquals(s_BlackScholes.vega(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield), result.getVega(), 1e-12);
+            assertEquals(s_BlackScholes.rho(type, underlyingPrice, strikePrice, timeRemaining, volatility,
+                    interestRate, dividendYield), result.getRho(), 1e-12);
+        }
+    }
+
+    @Test
+    public void testBlackScholesLetsBeRationalImpVol() {
+        BlackScholes rational = new BlackScholes(BlackScholes.IvSolver.LETS_BE_RATIONAL);
+        double timeRemaining = 0.084931506849315d;
+        assertEquals(0.20d, rational.impliedVolatility("C", 20.29616, 1177.62d, 1195.00d, timeRemaining, 0.5,
+                0.0135d, 0.0d), Constants.IV_PRECISION);
+        assertEquals(0.25d, rational.impliedVolatility("P", 0.2708d, 214.76d, 190.00d, timeRemaining, 0.5,
+                0.0135d, 0.0d), Constants.IV_PRECISION);
+        assertEquals(0.74998, rational.impliedVolatility("P", 6.60d, 300.0d, 250.0d, timeRemaining, 0.5,
+                0.03d, 0.0d), Constants.IV_PRECISION);
+        // below intrinsic and above the forward have no implied volatility
+        assertEquals(Double.NaN, rational.impliedVolatility("C", 1d, 300.0d, 250.0d, timeRemaining, 0.5,
+                0.03d, 0.0d));
+        assertEquals(Double.NaN, rational.impliedVolatility("C", 301d, 300.0d, 250.0d, timeRemaining, 0.5,
+                0.03d, 0.0d));
+    }
+
+    @Test
+    public void testBlackScholesLetsBeRationalRoundTrip() {
+        BlackScholes rational = new BlackScholes(BlackScholes.IvSolver.LETS_BE_RATIONAL);
+        double underlyingPrice = 100d;
+        double interestRate = 0.03d;
+        double dividendYield = 0.01d;
+        for (OptionType type : OptionType.values()) {
+            for (double strikePrice = 40d; strikePrice <= 200d; strikePrice += 10d) {
+                for (double timeRemaining : new double[]{0.01d, 0.1d, 1d, 5d}) {
+                    for (double volatility : new double[]{0.05d, 0.2d, 0.8d, 2d}) {
+                        double price = s_BlackScholes.priceOption(type, underlyingPrice, strikePrice, timeRemaining,
+                                volatility, interestRate, dividendYield);
+                        if (price < 1e-6d) {
+                            continue;
+                        }
+                        double iv = rational.impliedVolatility(type, price, underlyingPrice, strikePrice,
+                                timeRemaining, 0d, interestRate, dividendYield);
+                        // reprices the input, even where vega is too small to pin down the volatility itself
+                        assertEquals(price, s_BlackScholes.priceOption(type, underlyingPrice, strikePrice,
+                                timeRemaining, iv, interestRate, dividendYield), Constants.PRICE_PRECISION);
+                    }
+                }
+            }
+        }
+    }
+}
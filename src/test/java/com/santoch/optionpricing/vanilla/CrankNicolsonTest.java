@@ -0,0 +1,120 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.util.Constants;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+import org.junit.jupiter.api.*;
+
+import java.security.InvalidParameterException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CrankNicolsonTest {
+    private static final double UNDERLYING_PRICE = 100d;
+    private static final double TIME_REMAINING = 0.5d;
+    private static final double VOLATILITY = 0.25d;
+    private static final double INTEREST_RATE = 0.06d;
+    private static final double DIVIDEND_YIELD = 0.01d;
+    private static final double[] STRIKES = {70d, 90d, 100d, 110d, 140d};
+
+    static final CrankNicolson s_crankNicolson = new CrankNicolson();
+    static final BinomialTree s_tree = new BinomialTree(BinomialTree.Lattice.LEISEN_REIMER, 1001, true);
+
+    @Test
+    public void testMatchesBinomialTree() {
+        for (OptionType type : OptionType.values()) {
+            for (double strike : STRIKES) {
+                final PriceAndGreeks expected = s_tree.priceAndGreeks(type, UNDERLYING_PRICE, strike,
+                        TIME_REMAINING, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD, new PriceAndGreeks());
+                final PriceAndGreeks actual = s_crankNicolson.priceAndGreeks(type, UNDERLYING_PRICE, strike,
+                        TIME_REMAINING, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD, new PriceAndGreeks());
+                assertEquals(expected.getPrice(), actual.getPrice(), 0.005d);
+                assertEquals(expected.getDelta(), actual.getDelta(), 0.001d);
+                assertEquals(expected.getGamma(), actual.getGamma(), 0.0001d);
+                assertEquals(expected.getTheta(), actual.getTheta(), 0.0002d);
+                // the grid moves with the bumped volatility, so vega is the least accurate
+                assertEquals(expected.getVega(), actual.getVega(), 0.03d * expected.getVega() + 1e-4d);
+            }
+        }
+    }
+
+    @Test
+    public void testEarlyExercise() {
+        final BlackScholes blackScholes = new BlackScholes();
+        for (double strike : STRIKES) {
+            final double american = s_crankNicolson.priceOption(OptionType.PUT, UNDERLYING_PRICE, strike,
+                    TIME_REMAINING, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD);
+            assertTrue(american >= strike - UNDERLYING_PRICE);
+            assertTrue(american > blackScholes.priceOption(OptionType.PUT, UNDERLYING_PRICE, strike,
+                    TIME_REMAINING, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD));
+        }
+        // deep in the money the put is exercised now
+        assertEquals(40d, s_crankNicolson.priceOption(OptionType.PUT, UNDERLYING_PRICE, 140d, TIME_REMAINING,
+                VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD), Constants.PRICE_PRECISION);
+    }
+
+    @Test
+    public void testStrikeStrip() {
+        final double[] strikes = new double[43];
+        for (int i = 0; i < strikes.length; i++) {
+            strikes[i] = 58d + 2d * i;
+        }
+        final double[] prices = new double[strikes.length];
+        final double[] deltas = new double[strikes.length];
+        final double[] gammas = new double[strikes.length];
+        // the first and last rows are left alone
+        prices[0] = prices[strikes.length - 1] = -1d;
+        s_crankNicolson.priceStrikes(OptionType.PUT, UNDERLYING_PRICE, strikes, TIME_REMAINING, VOLATILITY,
+                INTEREST_RATE, DIVIDEND_YIELD, prices, deltas, gammas, 1, strikes.length - 2);
+        assertEquals(-1d, prices[0], 0d);
+        assertEquals(-1d, prices[strikes.length - 1], 0d);
+        for (int i = 1; i < strikes.length - 1; i++) {
+            final PriceAndGreeks expected = s_tree.priceAndGreeks(OptionType.PUT, UNDERLYING_PRICE, strikes[i],
+                    TIME_REMAINING, VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD, new PriceAndGreeks());
+            assertEquals(expected.getPrice(), prices[i], 0.005d);
+            // gamma jumps at the exercise boundary, next to it neither the tree nor the grid is accurate
+            if (expected.getPrice() > strikes[i] - UNDERLYING_PRICE + 0.01d) {
+                assertEquals(expected.getDelta(), deltas[i], 0.001d);
+                assertEquals(expected.getGamma(), gammas[i], 0.0002d);
+            }
+        }
+        // greeks are optional
+        final double[] pricesOnly = new double[strikes.length];
+        s_crankNicolson.priceStrikes(OptionType.PUT, UNDERLYING_PRICE, strikes, TIME_REMAINING, VOLATILITY,
+                INTEREST_RATE, DIVIDEND_YIELD, pricesOnly, null, null, 1, strikes.length - 2);
+        assertEquals(prices[20], pricesOnly[20], 0d);
+    }
+
+    @Test
+    public void testImpliedVolatility() {
+        final double price = s_crankNicolson.priceOption(OptionType.PUT, UNDERLYING_PRICE, 110d, TIME_REMAINING,
+                VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD);
+        assertEquals(VOLATILITY, s_crankNicolson.impliedVolatility(OptionType.PUT, price, UNDERLYING_PRICE, 110d,
+                TIME_REMAINING, 0.5d, INTEREST_RATE, DIVIDEND_YIELD), Constants.IV_PRECISION);
+    }
+
+    @Test
+    public void testExpired() {
+        // the intrinsic value, as priceAndGreeks and priceStrikes give it
+        assertEquals(0d, s_crankNicolson.priceOption(OptionType.PUT, 110d, 100d, 0d, VOLATILITY, INTEREST_RATE,
+                DIVIDEND_YIELD), 0d);
+        assertEquals(10d, s_crankNicolson.priceOption(OptionType.CALL, 110d, 100d, -0.01d, VOLATILITY,
+                INTEREST_RATE, DIVIDEND_YIELD), 1e-12d);
+        final double[] prices = new double[STRIKES.length];
+        s_crankNicolson.priceStrikes(OptionType.PUT, UNDERLYING_PRICE, STRIKES, 0d, VOLATILITY, INTEREST_RATE,
+                DIVIDEND_YIELD, prices, null, null, 0, STRIKES.length);
+        for (int i = 0; i < STRIKES.length; i++) {
+            assertEquals(prices[i], s_crankNicolson.priceOption(OptionType.PUT, UNDERLYING_PRICE, STRIKES[i], 0d,
+                    VOLATILITY, INTEREST_RATE, DIVIDEND_YIELD), 0d);
+            assertEquals(Math.max(STRIKES[i] - UNDERLYING_PRICE, 0d), prices[i], 1e-12d);
+        }
+    }
+
+    @Test
+    public void testInvalidSteps() {
+        assertThrows(InvalidParameterException.class, () -> new CrankNicolson(3, 100));
+        assertThrows(InvalidParameterException.class, () -> new CrankNicolson(200, 2));
+    }
+}
@@ -0,0 +1,57 @@
+package com.santoch.optionpricing.vanilla;
+
+import com.santoch.optionpricing.common.OptionType;
+import com.santoch.optionpricing.util.PriceAndGreeks;
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IncrementalBlackScholesTest {
+
+    private static void assertMatchesBlackScholes(IncrementalBlackScholes contract) {
+        final BlackScholes bs = new BlackScholes();
+        final double s = contract.getUnderlyingPrice(), k = contract.getStrikePrice();
+        final double t = contract.getTimeRemaining(), v = contract.getVolatility();
+        final double r = contract.getInterestRate(), q = contract.getDividendYield();
+        final PriceAndGreeks expected = bs.priceAndGreeks(contract.getType(), s, k, t, v, r, q, new PriceAndGreeks());
+        final PriceAndGreeks actual = contract.priceAndGreeks(new PriceAndGreeks());
+        // the same expressions on the same inputs, so bit for bit the same values
+        assertEquals(bs.priceOption(contract.getType(), s, k, t, v, r, q), actual.getPrice(), 0d);
+        assertEquals(expected.getPrice(), actual.getPrice(), 0d);
+        assertEquals(expected.getDelta(), actual.getDelta(), 0d);
+        assertEquals(expected.getGamma(), actual.getGamma(), 0d);
+        assertEquals(expected.getTheta(), actual.getTheta(), 0d);
+        assertEquals(expected.getVega(), actual.getVega(), 0d);
+        assertEquals(expected.getRho(), actual.getRho(), 0d);
+    }
+
+    @Test
+    public void testIncrementalMatchesFullRepricing() {
+        final Random random = new Random(7L);
+        for (OptionType type : OptionType.values()) {
+            final IncrementalBlackScholes contract = new IncrementalBlackScholes(type, 1177.62d, 1200d, 0.25d,
+                    0.2d, 0.0135d, 0.03d);
+            assertMatchesBlackScholes(contract);
+            for (int i = 0; i < 500; i++) {
+                switch (random.nextInt(6)) {
+                    case 0, 1 -> contract.setUnderlyingPrice(1177.62d * (1d + 0.02d * random.nextGaussian()));
+                    case 2 -> contract.setTimeRemaining(0.01d + random.nextDouble());
+                    case 3 -> contract.setVolatility(0.05d + random.nextDouble());
+                    case 4 -> contract.setInterestRate(0.05d * random.nextDouble());
+                    default -> contract.setDividendYield(0.05d * random.nextDouble());
+                }
+                assertMatchesBlackScholes(contract);
+            }
+        }
+    }
+
+    @Test
+    public void testExpired() {
+        final IncrementalBlackScholes contract = new IncrementalBlackScholes(OptionType.PUT, 214.76d, 190d, 0.1d,
+                0.25d, 0.0135d, 0.01d);
+        contract.setTimeRemaining(0d);
+        assertEquals(24.76d, contract.price(), 1e-12d);
+    }
+}